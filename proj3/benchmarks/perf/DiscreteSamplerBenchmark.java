@@ -0,0 +1,81 @@
+package perf;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.DiscreteSampler;
+import utils.RandomUtils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+
+/**
+ * Compares one draw from RandomUtils.discrete with one draw from a prepared DiscreteSampler, for
+ * tables from a handful of entries to a few hundred. All variants draw from the same fast
+ * generator, so the differences are the samplers' own.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiscreteSamplerBenchmark {
+    @Param({"4", "16", "256"})
+    public int size;
+
+    private RandomGenerator random;
+    private double[] probabilities;
+    private int[] frequencies;
+    private DiscreteSampler alias;
+    private DiscreteSampler cumulative;
+
+    @Setup
+    public void setUp() {
+        random = RandomUtils.newGenerator(RandomUtils.Algorithm.XOSHIRO, 42);
+        frequencies = new int[size];
+        int sum = 0;
+        for (int i = 0; i < size; i++) {
+            frequencies[i] = 1 + RandomUtils.uniform(random, 100);
+            sum += frequencies[i];
+        }
+        // Weights that sum to exactly 1.0 in floating point, as RandomUtils.discrete demands.
+        probabilities = new double[size];
+        double rest = 1.0;
+        for (int i = 0; i < size - 1; i++) {
+            probabilities[i] = (double) frequencies[i] / sum;
+            rest -= probabilities[i];
+        }
+        probabilities[size - 1] = rest;
+        alias = DiscreteSampler.alias(probabilities);
+        cumulative = DiscreteSampler.cumulative(probabilities);
+    }
+
+    @Benchmark
+    public int discreteProbabilities() {
+        return RandomUtils.discrete(random, probabilities);
+    }
+
+    @Benchmark
+    public int discreteFrequencies() {
+        return RandomUtils.discrete(random, frequencies);
+    }
+
+    @Benchmark
+    public int aliasSampler() {
+        return alias.sample(random);
+    }
+
+    @Benchmark
+    public int cumulativeSampler() {
+        return cumulative.sample(random);
+    }
+}
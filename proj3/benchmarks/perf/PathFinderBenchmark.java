@@ -0,0 +1,89 @@
+package perf;
+
+import core.AStarPathFinder;
+import core.Point;
+import core.TerrainCosts;
+import core.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tileengine.TETile;
+import tileengine.Tileset;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times AStarPathFinder between pairs of floor tiles of a generated world. The pairs are drawn
+ * once per seed and then cycled through, so every iteration sees the same mix of short and
+ * long paths. findPath is the Point-based call most callers make; search is the allocation-free
+ * call the enemies make. With terrain on, the same pairs are searched on the same world covered
+ * with terrain, weighing steps by TerrainCosts.defaults().
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathFinderBenchmark {
+    private static final int PAIRS = 256;
+
+    @Param({"1", "42", "1234567890123456789"})
+    public long seed;
+
+    @Param({"false", "true"})
+    public boolean terrain;
+
+    private TETile[][] tiles;
+    private final AStarPathFinder pathFinder = new AStarPathFinder();
+    private final Point[] starts = new Point[PAIRS];
+    private final Point[] goals = new Point[PAIRS];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        tiles = new World().getWorldFromInput("n" + seed + "s");
+        List<Point> floor = new ArrayList<>();
+        for (int x = 0; x < tiles.length; x++) {
+            for (int y = 0; y < tiles[0].length; y++) {
+                if (tiles[x][y] == Tileset.FLOOR) {
+                    floor.add(new Point(x, y));
+                }
+            }
+        }
+        Random random = new Random(seed);
+        for (int i = 0; i < PAIRS; i++) {
+            starts[i] = floor.get(random.nextInt(floor.size()));
+            goals[i] = floor.get(random.nextInt(floor.size()));
+        }
+        if (terrain) {
+            World world = new World();
+            world.setTerrain(true);
+            tiles = world.getWorldFromInput("n" + seed + "s");
+            pathFinder.setTerrainCosts(TerrainCosts.defaults());
+        }
+    }
+
+    @Benchmark
+    public List<Point> findPath() {
+        int i = next++ & (PAIRS - 1);
+        return pathFinder.findPath(tiles, starts[i], goals[i]);
+    }
+
+    @Benchmark
+    public int search() {
+        int i = next++ & (PAIRS - 1);
+        return pathFinder.search(tiles, starts[i].getX(), starts[i].getY(), goals[i].getX(), goals[i].getY());
+    }
+}
@@ -0,0 +1,45 @@
+package perf;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.RandomUtils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+
+/**
+ * Times the draw world generation makes most, RandomUtils.uniform(random, a, b), on each
+ * generator RandomUtils offers. WorldGenerationBenchmark.buildWorld shows how much of that
+ * gain survives in a whole world.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RandomBenchmark {
+    @Param({"LEGACY", "SPLITTABLE", "XOSHIRO"})
+    public RandomUtils.Algorithm algorithm;
+
+    private RandomGenerator random;
+
+    @Setup
+    public void setUp() {
+        random = RandomUtils.newGenerator(algorithm, 42);
+    }
+
+    @Benchmark
+    public int uniform() {
+        return RandomUtils.uniform(random, 4, 12);
+    }
+}
@@ -0,0 +1,50 @@
+package perf;
+
+import core.AutograderBuddy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tileengine.TETile;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times AutograderBuddy.getWorldFromInput replaying a new game followed by a long run of
+ * random moves, the path every save file and autograder input goes through.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReplayBenchmark {
+    @Param({"100", "1000", "10000", "100000"})
+    public int moves;
+
+    private String input;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(moves);
+        StringBuilder keys = new StringBuilder("n1234567890123456789s");
+        for (int i = 0; i < moves; i++) {
+            keys.append("wasd".charAt(random.nextInt(4)));
+        }
+        input = keys.toString();
+    }
+
+    @Benchmark
+    public TETile[][] replay() {
+        return AutograderBuddy.getWorldFromInput(input);
+    }
+}
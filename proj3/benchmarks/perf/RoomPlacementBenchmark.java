@@ -0,0 +1,52 @@
+package perf;
+
+import core.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tileengine.TETile;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the room placements of World.buildWorld at rising room counts. Results are worlds per
+ * second; multiply by the room count for rooms per second. The sampler's cost grows as free
+ * space runs out, while BSP placement should grow only with the number of rooms.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoomPlacementBenchmark {
+    @Param({"SAMPLED", "BSP"})
+    public World.RoomPlacement placement;
+
+    @Param({"10", "20", "40", "60"})
+    public int rooms;
+
+    private World world;
+
+    @Setup
+    public void setUp() {
+        world = new World();
+        world.setRoomPlacement(placement);
+        world.setRoomCount(rooms);
+        world.getWorldFromInput("n42s");
+    }
+
+    @Benchmark
+    public TETile[][] buildWorld() {
+        world.buildWorld();
+        return world.getTiles();
+    }
+}
@@ -0,0 +1,57 @@
+package perf;
+
+import core.FrameSnapshot;
+import core.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the headless game loop the soak test in SimulationTests plays: a random key followed by
+ * six ticks of World.simulate, with a new game on the next seed whenever one ends. Results are
+ * per tick; an hour of game time is 216000 ticks, so a minute per hour is about 278 us per tick.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimulationBenchmark {
+    private World world;
+    private Random keys;
+    private long seed = 100;
+
+    @Setup
+    public void setUp() {
+        newGame();
+    }
+
+    private void newGame() {
+        world = new World();
+        world.getWorldFromInput("n" + seed + "s");
+        keys = new Random(seed++);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(6)
+    public FrameSnapshot.Status simulate() {
+        world.getInputQueue().offer("wasd".charAt(keys.nextInt(4)));
+        FrameSnapshot.Status status = world.simulate(6);
+        if (status != FrameSnapshot.Status.PLAYING) {
+            newGame();
+        }
+        return status;
+    }
+}
@@ -0,0 +1,134 @@
+package perf;
+
+import core.ParallelWorldGenerator;
+import core.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tileengine.TETile;
+import utils.RandomUtils;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times world generation: World.buildWorld alone on each generator a World accepts, a whole new
+ * game (buildWorld plus placing the avatar, flowers and enemies), World.connectRooms alone, and,
+ * for maps larger than the fixed 100x60 World, ParallelWorldGenerator on pools of 1 to 8 threads.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorldGenerationBenchmark {
+    @Param({"1", "42", "1234567890123456789"})
+    public long seed;
+
+    private World world;
+
+    @Setup
+    public void setUp() {
+        world = new World();
+        // Sets the seed that buildWorld regenerates from.
+        world.getWorldFromInput("n" + seed + "s");
+    }
+
+    /**
+     * Holds a world seeded like the benchmark's but drawing from the given generator.
+     * SPLITTABLE is left out because a World does not accept it.
+     */
+    @State(Scope.Thread)
+    public static class SeededWorld {
+        @Param({"LEGACY", "XOSHIRO"})
+        public RandomUtils.Algorithm algorithm;
+
+        World world;
+
+        @Setup
+        public void setUp(WorldGenerationBenchmark benchmark) {
+            world = new World();
+            world.setRandomAlgorithm(algorithm);
+            world.getWorldFromInput("n" + benchmark.seed + "s");
+        }
+    }
+
+    @Benchmark
+    public TETile[][] buildWorld(SeededWorld seeded) {
+        seeded.world.buildWorld();
+        return seeded.world.getTiles();
+    }
+
+    @Benchmark
+    public TETile[][] newGame() {
+        return world.getWorldFromInput("n" + seed + "s");
+    }
+
+    /**
+     * Holds a freshly built world whose rooms get connected again by connectRooms.
+     */
+    @State(Scope.Thread)
+    public static class BuiltWorld {
+        World world;
+
+        @Setup
+        public void setUp(WorldGenerationBenchmark benchmark) {
+            world = benchmark.world;
+        }
+
+        @Setup(Level.Invocation)
+        public void rebuild() {
+            world.buildWorld();
+        }
+    }
+
+    @Benchmark
+    public TETile[][] connectRooms(BuiltWorld built) {
+        built.world.connectRooms();
+        return built.world.getTiles();
+    }
+
+    /**
+     * Holds a square map of the given size and a pool of the given number of threads for the
+     * ParallelWorldGenerator. The speedup is the 1-thread time over the n-thread time.
+     */
+    @State(Scope.Thread)
+    public static class LargeMap {
+        @Param({"100", "500", "2000"})
+        public int size;
+
+        @Param({"1", "2", "4", "8"})
+        public int threads;
+
+        TETile[][] tiles;
+        ForkJoinPool pool;
+
+        @Setup
+        public void setUp() {
+            tiles = new TETile[size][size];
+            pool = new ForkJoinPool(threads);
+        }
+
+        @TearDown
+        public void tearDown() {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public TETile[][] largeMap(LargeMap map) {
+        new ParallelWorldGenerator(seed, ParallelWorldGenerator.DEFAULT_REGION_SIZE).generate(map.tiles, map.pool);
+        return map.tiles;
+    }
+}
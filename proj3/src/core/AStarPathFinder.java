@@ -1,67 +1,91 @@
 package core;
 
-import edu.princeton.cs.algs4.Stack;
 import tileengine.TETile;
 import tileengine.Tileset;
+import utils.Coords;
+import utils.IntPriorityQueue;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * The AStarPathFinder class implements the A* pathfinding algorithm to find the shortest path
  * between two points on a grid. It uses a heuristic to guide the search for efficiency.
+ * <p>
+ * Tiles are addressed by their grid index x * height + y (see Coords), and the per-tile search
+ * state lives in flat int arrays that are reused from one search to the next. Instead of
+ * clearing those arrays, every search bumps a generation number and a tile only counts as
+ * visited if its stamp matches the current generation. A search therefore allocates nothing
+ * once the buffers have grown to the size of the world.
+ * <p>
+ * By default every tile other than a wall costs 1 to step onto. With setTerrainCosts, steps cost
+ * what the TerrainCosts table says, and a separate search loop guides itself with the cheapest
+ * step cost times the Manhattan distance, which never overestimates.
+ * <p>
+ * A search can also be run in slices: startSearch sets it up and continueSearch expands at most
+ * a given number of tiles per call, keeping its state in the same buffers between calls. search
+ * is simply both with an unlimited budget.
  *
  * @source https://www.geeksforgeeks.org/a-search-algorithm/
  * Converted the implementation to java and
  * changed it to be suitable for the game.
  */
 public class AStarPathFinder {
+    /** Returned by startSearch and continueSearch while a search is not finished. */
+    public static final int IN_PROGRESS = -1;
+    private int lastExpandedCount;
+
+    private int width;
+    private int height;
+    /** Per tile: cost from the start, grid index of the parent, generation of the last visit. */
+    private int[] g = new int[0];
+    private int[] parent = new int[0];
+    private int[] stamp = new int[0];
+    /** Per tile: generation in which the tile was closed. */
+    private int[] closed = new int[0];
+    private int generation;
+    private final IntPriorityQueue openList = new IntPriorityQueue(256);
+    private int[] path = new int[64];
+    private int pathLength;
+    private ConnectivityIndex connectivity;
+    private TerrainCosts terrainCosts;
+    /** The search in progress between startSearch and the end of continueSearch. */
+    private TETile[][] searchWorld;
+    private TerrainCosts searchCosts;
+    private int searchStart;
+    private int searchGoal;
+    private int searchGoalX;
+    private int searchGoalY;
+    private int searchGeneration;
+
     /**
-     * A helper class to hold details about grid cells during pathfinding.
-     */
-    private static class Cell {
-        int parentRow, parentCol;
-        int f;
-        int g;
-        int h;
-
-        /**
-         * Constructs a cell with maximum values for cost and invalid parent indices.
-         */
-        Cell() {
-            this.f = Integer.MAX_VALUE;
-            this.g = Integer.MAX_VALUE;
-            this.h = Integer.MAX_VALUE;
-            this.parentRow = -1;
-            this.parentCol = -1;
-        }
+     * Lets searches on the grid of the given index check it first, so that a search for an
+     * unreachable goal fails at once instead of after visiting every tile it can reach.
+     * Searches on other grids are not affected.
+     *
+     * @param connectivity The index to consult, or null to stop consulting one.
+     */
+    public void setConnectivity(ConnectivityIndex connectivity) {
+        this.connectivity = connectivity;
     }
 
     /**
-     * Reconstructs the path from the start to the goal point using the details stored in cells.
+     * Makes searches weigh every step by the cost of the tile stepped onto. The goal can always
+     * be entered, at the table's minimum cost if the table calls it impassable, so the heuristic
+     * never overestimates the last step.
      *
-     * @param cellDetails The grid of cells with their associated costs and parent information.
-     * @param goal        The end point of the path to trace back.
-     * @return A list of points representing the path from the start to the goal.
-     */
-    public List<Point> tracePath(Cell[][] cellDetails, Point goal) {
-        List<Point> res = new ArrayList<>();
-        int row = goal.getX();
-        int col = goal.getY();
-
-        Stack<Point> path = new Stack<>();
-        while (!(cellDetails[row][col].parentRow == row && cellDetails[row][col].parentCol == col)) {
-            path.push(new Point(row, col));
-            int tempRow = cellDetails[row][col].parentRow;
-            int tempCol = cellDetails[row][col].parentCol;
-            row = tempRow;
-            col = tempCol;
-        }
-        path.push(new Point(row, col));
-        while (!path.isEmpty()) {
-            res.add(path.pop());
-        }
+     * @param costs The costs, or null for every walkable tile to cost 1.
+     */
+    public void setTerrainCosts(TerrainCosts costs) {
+        this.terrainCosts = costs;
+    }
 
-        return res;
+    /**
+     * Returns the costs set with setTerrainCosts, or null if every step costs 1.
+     */
+    public TerrainCosts getTerrainCosts() {
+        return terrainCosts;
     }
 
     /**
@@ -73,79 +97,306 @@ public class AStarPathFinder {
      * @return A list of points representing the shortest path found, or null if no path exists.
      */
     public List<Point> findPath(TETile[][] world, Point start, Point goal) {
-        if (!isValid(start.getX(), start.getY()) || !isValid(goal.getX(), goal.getY())) {
+        if (search(world, start.getX(), start.getY(), goal.getX(), goal.getY()) == 0) {
             return null;
         }
-        if (start.equals(goal)) {
+        if (pathLength == 1) {
             return List.of(start);
         }
-        int row = world.length;
-        int col = world[0].length;
-        boolean[][] closedList = new boolean[row][col];
-        Cell[][] cellDetails = new Cell[row][col];
-        for (int i = 0; i < row; i++) {
-            for (int j = 0; j < col; j++) {
-                cellDetails[i][j] = new Cell();
+        List<Point> res = new ArrayList<>(pathLength);
+        for (int k = 0; k < pathLength; k++) {
+            res.add(new Point(path[k] / height, path[k] % height));
+        }
+        return res;
+    }
+
+    /**
+     * Finds the shortest path from the start to the goal tile without allocating. The path is
+     * left in an internal buffer, read through getPath, that the next search overwrites.
+     *
+     * @param world  The grid representation of the world with tiles.
+     * @param startX The x-coordinate of the start.
+     * @param startY The y-coordinate of the start.
+     * @param goalX  The x-coordinate of the goal.
+     * @param goalY  The y-coordinate of the goal.
+     * @return The number of tiles on the path including start and goal, or 0 if no path exists.
+     */
+    public int search(TETile[][] world, int startX, int startY, int goalX, int goalY) {
+        int result = startSearch(world, startX, startY, goalX, goalY);
+        return result == IN_PROGRESS ? continueSearch(Integer.MAX_VALUE) : result;
+    }
+
+    /**
+     * Starts a search that continueSearch carries out in slices, so that a long search can be
+     * spread over several frames. Searches that need no expansion at all finish right here.
+     * The grid must not change walls until the search is done, and starting another search,
+     * including through search or findPath, abandons this one.
+     *
+     * @param world  The grid representation of the world with tiles.
+     * @param startX The x-coordinate of the start.
+     * @param startY The y-coordinate of the start.
+     * @param goalX  The x-coordinate of the goal.
+     * @param goalY  The y-coordinate of the goal.
+     * @return IN_PROGRESS, or what search would return if the search is already over.
+     */
+    public int startSearch(TETile[][] world, int startX, int startY, int goalX, int goalY) {
+        lastExpandedCount = 0;
+        pathLength = 0;
+        searchWorld = null;
+        prepare(world.length, world[0].length);
+        if (!isValid(startX, startY) || !isValid(goalX, goalY)) {
+            return 0;
+        }
+        int start = Coords.index(startX, startY, height);
+        int goal = Coords.index(goalX, goalY, height);
+        if (start == goal) {
+            path[0] = start;
+            pathLength = 1;
+            return 1;
+        }
+        if (connectivity != null && connectivity.indexes(world)
+                && !connectivity.canReach(startX, startY, goalX, goalY)) {
+            return 0;
+        }
+        int gen = nextGeneration();
+        g[start] = 0;
+        parent[start] = start;
+        stamp[start] = gen;
+        openList.clear();
+        openList.push(start, 0);
+        searchWorld = world;
+        searchCosts = terrainCosts;
+        searchStart = start;
+        searchGoal = goal;
+        searchGoalX = goalX;
+        searchGoalY = goalY;
+        searchGeneration = gen;
+        return IN_PROGRESS;
+    }
+
+    /**
+     * Carries on with the search begun by startSearch for at most the given number of
+     * expansions.
+     *
+     * @param maxExpansions The most tiles to expand before returning.
+     * @return IN_PROGRESS if the budget ran out first, otherwise the number of tiles on the path
+     * or 0 if no path exists, exactly as search would have returned.
+     * @throws IllegalStateException if no search is in progress.
+     */
+    public int continueSearch(int maxExpansions) {
+        if (searchWorld == null) {
+            throw new IllegalStateException("no search in progress");
+        }
+        int result = searchCosts == null ? searchUniform(maxExpansions) : searchWeighted(maxExpansions);
+        if (result != IN_PROGRESS) {
+            searchWorld = null;
+        }
+        return result;
+    }
+
+    /**
+     * Returns true if a search begun by startSearch is waiting for continueSearch.
+     */
+    public boolean isSearching() {
+        return searchWorld != null;
+    }
+
+    /**
+     * The search loop for uniform steps. It stops as soon as the goal is next to an expanded
+     * tile: every step costs the same, so no later path can be shorter.
+     */
+    private int searchUniform(int budget) {
+        TETile[][] world = searchWorld;
+        int start = searchStart;
+        int goal = searchGoal;
+        int goalX = searchGoalX;
+        int goalY = searchGoalY;
+        int gen = searchGeneration;
+        while (!openList.isEmpty()) {
+            if (budget == 0) {
+                return IN_PROGRESS;
+            }
+            int current = openList.pop();
+            if (closed[current] == gen) {
+                // A stale copy left behind when the tile was reached again more cheaply.
+                continue;
+            }
+            closed[current] = gen;
+            lastExpandedCount++;
+            budget--;
+            int i = current / height;
+            int j = current % height;
+            int gNew = g[current] + 1;
+            for (int d = 0; d < 4; d++) {
+                int nR = i + (d == 0 ? -1 : d == 1 ? 1 : 0);
+                int nC = j + (d == 2 ? -1 : d == 3 ? 1 : 0);
+                if (!isValid(nR, nC)) {
+                    continue;
+                }
+                int next = current + (nR - i) * height + (nC - j);
+                if (next == goal) {
+                    parent[next] = current;
+                    stamp[next] = gen;
+                    g[next] = gNew;
+                    return tracePath(start, goal);
+                }
+                if (closed[next] == gen || world[nR][nC] == Tileset.WALL_GRAY) {
+                    continue;
+                }
+                if (stamp[next] != gen || gNew < g[next]) {
+                    int hNew = Math.abs(nR - goalX) + Math.abs(nC - goalY);
+                    stamp[next] = gen;
+                    g[next] = gNew;
+                    parent[next] = current;
+                    // Ties on f go to the tile nearer the goal, which keeps the search narrow.
+                    openList.push(next, ((long) (gNew + hNew) << 32) | hNew);
+                }
             }
         }
-        int i = start.getX(), j = start.getY();
-        cellDetails[i][j].f = 0;
-        cellDetails[i][j].g = 0;
-        cellDetails[i][j].h = 0;
-        cellDetails[i][j].parentRow = i;
-        cellDetails[i][j].parentCol = j;
-        Comparator<Point> comparator = Comparator.comparingInt(p -> cellDetails[p.getX()][p.getY()].f);
-        PriorityQueue<Point> openList = new PriorityQueue<>(comparator);
-        openList.add(new Point(i, j));
+        return 0;
+    }
 
+    /**
+     * The search loop for weighted steps. Unlike the uniform loop it may only stop once the goal
+     * is taken off the open list, since a path found first is not necessarily the cheapest.
+     */
+    private int searchWeighted(int budget) {
+        TETile[][] world = searchWorld;
+        TerrainCosts costs = searchCosts;
+        int start = searchStart;
+        int goal = searchGoal;
+        int goalX = searchGoalX;
+        int goalY = searchGoalY;
+        int gen = searchGeneration;
+        int minCost = costs.minimumCost();
         while (!openList.isEmpty()) {
-            Point p = openList.iterator().next();
-            openList.remove(p);
-            i = p.getX();
-            j = p.getY();
-            closedList[i][j] = true;
-            int gNew, hNew, fNew;
-            int[][] directions = new int[][]{{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
-            for (int[] direction : directions) {
-                int nR = i + direction[0];
-                int nC = j + direction[1];
-                if (isValid(nR, nC)) {
-                    if (isDestination(nR, nC, goal)) {
-                        cellDetails[nR][nC].parentRow = i;
-                        cellDetails[nR][nC].parentCol = j;
-                        return tracePath(cellDetails, goal);
-
-                    } else if (!closedList[nR][nC] && world[nR][nC] != Tileset.WALL_GRAY) {
-                        gNew = cellDetails[i][j].g + 1;
-                        hNew = manhattanDistance(nR, nC, goal);
-                        fNew = gNew + hNew;
-
-                        if (cellDetails[nR][nC].f == Integer.MAX_VALUE || cellDetails[nR][nC].f > fNew) {
-                            openList.add(new Point(nR, nC));
-                            cellDetails[nR][nC].f = fNew;
-                            cellDetails[nR][nC].g = gNew;
-                            cellDetails[nR][nC].h = hNew;
-                            cellDetails[nR][nC].parentRow = i;
-                            cellDetails[nR][nC].parentCol = j;
-                        }
+            if (budget == 0) {
+                return IN_PROGRESS;
+            }
+            int current = openList.pop();
+            if (current == goal) {
+                return tracePath(start, goal);
+            }
+            if (closed[current] == gen) {
+                continue;
+            }
+            closed[current] = gen;
+            lastExpandedCount++;
+            budget--;
+            int i = current / height;
+            int j = current % height;
+            for (int d = 0; d < 4; d++) {
+                int nR = i + (d == 0 ? -1 : d == 1 ? 1 : 0);
+                int nC = j + (d == 2 ? -1 : d == 3 ? 1 : 0);
+                if (!isValid(nR, nC)) {
+                    continue;
+                }
+                int next = current + (nR - i) * height + (nC - j);
+                if (closed[next] == gen) {
+                    continue;
+                }
+                int cost = costs.costOf(world[nR][nC]);
+                if (cost == TerrainCosts.IMPASSABLE) {
+                    if (next != goal) {
+                        continue;
                     }
+                    cost = minCost;
+                }
+                int gNew = g[current] + cost;
+                if (stamp[next] != gen || gNew < g[next]) {
+                    int hNew = minCost * (Math.abs(nR - goalX) + Math.abs(nC - goalY));
+                    stamp[next] = gen;
+                    g[next] = gNew;
+                    parent[next] = current;
+                    openList.push(next, ((long) (gNew + hNew) << 32) | hNew);
                 }
             }
-
         }
-        return null;
+        return 0;
+    }
+
+    /**
+     * Returns the cost of the path found by the last successful search: its length minus one
+     * for uniform searches, the sum of its step costs for weighted ones.
+     */
+    public int getLastPathCost() {
+        return pathLength <= 1 ? 0 : g[path[pathLength - 1]];
     }
 
     /**
-     * Checks if a point is the destination.
+     * Returns the buffer holding the path of the last successful search as grid indices
+     * x * height + y, starting at the start tile. Only the first getPathLength entries are valid.
+     */
+    public int[] getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the number of tiles on the path of the last search, or 0 if it found none.
+     */
+    public int getPathLength() {
+        return pathLength;
+    }
+
+    /**
+     * Returns the number of cells the most recent search expanded, whether it ran whole through
+     * findPath or search or in slices through startSearch and continueSearch.
      *
-     * @param x    The x-coordinate to check.
-     * @param y    The y-coordinate to check.
-     * @param dest The destination point.
-     * @return True if the coordinates correspond to the destination point, false otherwise.
+     * @return The number of cells taken off the open list by the most recent search, over all
+     * of its slices so far.
      */
-    private boolean isDestination(int x, int y, Point dest) {
-        return x == dest.getX() && y == dest.getY();
+    public int getLastExpandedCount() {
+        return lastExpandedCount;
+    }
+
+    /**
+     * Writes the path from the start to the goal into the path buffer by following parents back
+     * from the goal and reversing the result in place.
+     */
+    private int tracePath(int start, int goal) {
+        int n = 0;
+        for (int tile = goal; ; tile = parent[tile]) {
+            if (n == path.length) {
+                int[] grown = new int[path.length * 2];
+                System.arraycopy(path, 0, grown, 0, n);
+                path = grown;
+            }
+            path[n++] = tile;
+            if (tile == start) {
+                break;
+            }
+        }
+        for (int a = 0, b = n - 1; a < b; a++, b--) {
+            int t = path[a];
+            path[a] = path[b];
+            path[b] = t;
+        }
+        pathLength = n;
+        return n;
+    }
+
+    /** Sizes the per-tile buffers for a world, reallocating only when the world got bigger. */
+    private void prepare(int w, int h) {
+        width = w;
+        height = h;
+        int tiles = w * h;
+        if (g.length < tiles) {
+            g = new int[tiles];
+            parent = new int[tiles];
+            stamp = new int[tiles];
+            closed = new int[tiles];
+            generation = 0;
+        }
+    }
+
+    private int nextGeneration() {
+        if (++generation == 0) {
+            // After 2^32 searches the stamps wrap around; start over from clean arrays.
+            Arrays.fill(stamp, 0);
+            Arrays.fill(closed, 0);
+            generation = 1;
+        }
+        return generation;
     }
 
     /**
@@ -156,19 +407,6 @@ public class AStarPathFinder {
      * @return True if the coordinates are within the grid, false otherwise.
      */
     private boolean isValid(int x, int y) {
-        return x >= 0 && x < 100 && y >= 0 && y < 60;
-    }
-
-    /**
-     * Calculates the Manhattan distance between two points, which is used as a heuristic
-     * for the A* algorithm.
-     *
-     * @param x The x-coordinate of the first point.
-     * @param y The y-coordinate of the first point.
-     * @param b The second point to calculate the distance to.
-     * @return The Manhattan distance between the two points.
-     */
-    private int manhattanDistance(int x, int y, Point b) {
-        return Math.abs(x - b.getX()) + Math.abs(y - b.getY());
+        return x >= 0 && x < width && y >= 0 && y < height;
     }
 }
@@ -31,7 +31,11 @@ public class AutograderBuddy {
     public static boolean isGroundTile(TETile t) {
         return t.character() == Tileset.FLOOR.character()
                 || t.character() == Tileset.AVATAR.character()
-                || t.character() == Tileset.FLOWER.character();
+                || t.character() == Tileset.FLOWER.character()
+                || t.character() == Tileset.GRASS.character()
+                || t.character() == Tileset.SAND.character()
+                || t.character() == Tileset.WATER.character()
+                || t.character() == Tileset.MOUNTAIN.character();
     }
 
     /**
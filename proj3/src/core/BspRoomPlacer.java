@@ -0,0 +1,99 @@
+package core;
+
+import utils.RandomUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * The BspRoomPlacer class places non-overlapping rooms by binary space partitioning instead of
+ * by trial and error. The area is split into as many rectangular leaves as rooms are wanted,
+ * always splitting the largest leaf that can still hold two rooms, and then one room is placed
+ * at a random size and position inside each leaf. Leaves never overlap and every room keeps one
+ * tile clear of its leaf's upper edges, so rooms never touch and nothing is ever rejected.
+ * <p>
+ * Every step draws a fixed number of random numbers, so placing n rooms takes O(n^2) time
+ * however dense the rooms are. If the area cannot be split into n leaves, fewer rooms are
+ * placed rather than looping.
+ */
+public class BspRoomPlacer {
+    private final int minRoom;
+    private final int maxRoom;
+
+    /**
+     * Creates a placer.
+     *
+     * @param minRoom The smallest width and height of a room, walls included, at least 3.
+     * @param maxRoom The largest width and height of a room, walls included.
+     */
+    public BspRoomPlacer(int minRoom, int maxRoom) {
+        if (minRoom < 3 || maxRoom < minRoom) {
+            throw new IllegalArgumentException("bad room sizes: " + minRoom + ".." + maxRoom);
+        }
+        this.minRoom = minRoom;
+        this.maxRoom = maxRoom;
+    }
+
+    /**
+     * Places rooms in the rectangle from (left, bottom) inclusive to (right, top) exclusive.
+     *
+     * @param random The generator to draw from.
+     * @param left   The smallest x-coordinate a room may use.
+     * @param bottom The smallest y-coordinate a room may use.
+     * @param right  One past the largest x-coordinate a room may use.
+     * @param top    One past the largest y-coordinate a room may use.
+     * @param count  The number of rooms wanted.
+     * @return The rooms, at most count of them, in the order their leaves were created.
+     */
+    public List<Room> place(RandomGenerator random, int left, int bottom, int right, int top, int count) {
+        // A leaf holds a room plus the one tile of space on its right and top.
+        int minLeaf = minRoom + 1;
+        List<int[]> leaves = new ArrayList<>();
+        if (right - left >= minLeaf && top - bottom >= minLeaf) {
+            leaves.add(new int[]{left, bottom, right, top});
+        }
+        while (leaves.size() < count) {
+            int largest = -1;
+            long largestArea = 0;
+            for (int i = 0; i < leaves.size(); i++) {
+                int[] leaf = leaves.get(i);
+                int w = leaf[2] - leaf[0];
+                int h = leaf[3] - leaf[1];
+                long area = (long) w * h;
+                if ((w >= 2 * minLeaf || h >= 2 * minLeaf) && area > largestArea) {
+                    largest = i;
+                    largestArea = area;
+                }
+            }
+            if (largest < 0) {
+                break;
+            }
+            int[] leaf = leaves.get(largest);
+            int w = leaf[2] - leaf[0];
+            int h = leaf[3] - leaf[1];
+            boolean vertical = h < 2 * minLeaf || (w >= 2 * minLeaf && w >= h);
+            if (vertical) {
+                int cut = leaf[0] + RandomUtils.uniform(random, minLeaf, w - minLeaf + 1);
+                leaves.set(largest, new int[]{leaf[0], leaf[1], cut, leaf[3]});
+                leaves.add(new int[]{cut, leaf[1], leaf[2], leaf[3]});
+            } else {
+                int cut = leaf[1] + RandomUtils.uniform(random, minLeaf, h - minLeaf + 1);
+                leaves.set(largest, new int[]{leaf[0], leaf[1], leaf[2], cut});
+                leaves.add(new int[]{leaf[0], cut, leaf[2], leaf[3]});
+            }
+        }
+
+        List<Room> rooms = new ArrayList<>(leaves.size());
+        for (int[] leaf : leaves) {
+            int w = leaf[2] - leaf[0];
+            int h = leaf[3] - leaf[1];
+            int width = RandomUtils.uniform(random, minRoom, Math.min(maxRoom, w - 1) + 1);
+            int height = RandomUtils.uniform(random, minRoom, Math.min(maxRoom, h - 1) + 1);
+            int x = leaf[0] + RandomUtils.uniform(random, w - width);
+            int y = leaf[1] + RandomUtils.uniform(random, h - height);
+            rooms.add(new Room(x, y, height, width));
+        }
+        return rooms;
+    }
+}
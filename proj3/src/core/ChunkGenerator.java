@@ -0,0 +1,206 @@
+package core;
+
+import tileengine.TETile;
+import tileengine.Tileset;
+import utils.RandomUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The ChunkGenerator class generates one chunk of an endless world. A chunk depends only on the
+ * world seed and its own chunk coordinates, so any chunk can be generated in any order, thrown
+ * away and generated again with the same result.
+ * <p>
+ * Each chunk holds a few rooms connected by a minimum spanning tree of hallways, like the rooms
+ * of the fixed-size World. To stitch chunks together, every border between two chunks has one
+ * door whose position is derived from the seed and that border alone. Both chunks sharing a
+ * border therefore agree on the door without looking at each other, and each of them runs a
+ * hallway from its side of the door to its nearest room. Apart from doors, nothing is drawn on
+ * the outermost ring of a chunk, so neighbouring chunks never have to agree on anything else.
+ */
+public class ChunkGenerator {
+    /** The width and height of a chunk in tiles. */
+    public static final int CHUNK_SIZE = 32;
+    private static final int MAX_ROOMS = 4;
+    private static final int MIN_ROOM = 5;
+    private static final int MAX_ROOM = 11;
+    private static final int DOOR_MARGIN = 4;
+
+    private final long seed;
+
+    /**
+     * Creates a generator for the world with the given seed.
+     *
+     * @param seed The world seed.
+     */
+    public ChunkGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Generates a chunk.
+     *
+     * @param cx The x-coordinate of the chunk, in chunks.
+     * @param cy The y-coordinate of the chunk, in chunks.
+     * @return The tiles of the chunk, indexed by localX * CHUNK_SIZE + localY.
+     */
+    public TETile[] generate(int cx, int cy) {
+        TETile[] tiles = new TETile[CHUNK_SIZE * CHUNK_SIZE];
+        Arrays.fill(tiles, Tileset.NOTHING);
+        Random random = new Random(mix(seed ^ mix(((long) cx << 32) | (cy & 0xFFFFFFFFL))));
+
+        List<Room> rooms = placeRooms(random);
+        for (Room room : rooms) {
+            drawRoom(tiles, room);
+        }
+        connectRooms(tiles, rooms, random);
+
+        drawDoorHallway(tiles, rooms, random, 0, doorOffset(cx - 1, cy, true), 1, 0);
+        drawDoorHallway(tiles, rooms, random, CHUNK_SIZE - 1, doorOffset(cx, cy, true), -1, 0);
+        drawDoorHallway(tiles, rooms, random, doorOffset(cx, cy - 1, false), 0, 0, 1);
+        drawDoorHallway(tiles, rooms, random, doorOffset(cx, cy, false), CHUNK_SIZE - 1, 0, -1);
+        return tiles;
+    }
+
+    /**
+     * Returns where along a border its door is. The border is identified by the chunk on its
+     * west or south side.
+     *
+     * @param cx       The x-coordinate of the chunk west or south of the border.
+     * @param cy       The y-coordinate of that chunk.
+     * @param vertical true for the border on the chunk's east side, false for its north side.
+     * @return The offset of the door along the border, away from the corners.
+     */
+    public int doorOffset(int cx, int cy, boolean vertical) {
+        long key = mix(((long) cx << 32) | (cy & 0xFFFFFFFFL)) ^ (vertical ? 0x5DEECE66DL : 0xB5297A4DL);
+        long h = mix(seed + key);
+        return DOOR_MARGIN + Math.floorMod(h, CHUNK_SIZE - 2 * DOOR_MARGIN);
+    }
+
+    private List<Room> placeRooms(Random random) {
+        int count = RandomUtils.uniform(random, 1, MAX_ROOMS + 1);
+        List<Room> rooms = new ArrayList<>();
+        for (int attempt = 0; attempt < 30 && rooms.size() < count; attempt++) {
+            int width = RandomUtils.uniform(random, MIN_ROOM, MAX_ROOM + 1);
+            int height = RandomUtils.uniform(random, MIN_ROOM, MAX_ROOM + 1);
+            // Keep two tiles of space to the chunk edge so only doors touch the border.
+            int left = RandomUtils.uniform(random, 2, CHUNK_SIZE - 2 - width + 1);
+            int bottom = RandomUtils.uniform(random, 2, CHUNK_SIZE - 2 - height + 1);
+            boolean free = true;
+            for (Room room : rooms) {
+                if (room.intersects(left, bottom, left + width, bottom + height)) {
+                    free = false;
+                    break;
+                }
+            }
+            if (free) {
+                rooms.add(new Room(left, bottom, height, width));
+            }
+        }
+        return rooms;
+    }
+
+    private static void drawRoom(TETile[] tiles, Room room) {
+        for (int x = room.left(); x < room.right(); x++) {
+            for (int y = room.bottom(); y < room.top(); y++) {
+                boolean wall = x == room.left() || x == room.right() - 1
+                        || y == room.bottom() || y == room.top() - 1;
+                tiles[x * CHUNK_SIZE + y] = wall ? Tileset.WALL_GRAY : Tileset.FLOOR;
+            }
+        }
+    }
+
+    /**
+     * Connects the rooms with a minimum spanning tree over the distances between their centres,
+     * the same way World.connectRooms does.
+     */
+    private static void connectRooms(TETile[] tiles, List<Room> rooms, Random random) {
+        List<Edge> edges = new ArrayList<>();
+        for (int i = 0; i < rooms.size(); i++) {
+            for (int j = i + 1; j < rooms.size(); j++) {
+                edges.add(new Edge(rooms.get(i), rooms.get(j), rooms.get(i).distanceFromOtherRoom(rooms.get(j))));
+            }
+        }
+        Collections.sort(edges);
+        WeightedQuickUnion wqu = new WeightedQuickUnion(rooms.size());
+        for (Edge edge : edges) {
+            int r1 = rooms.indexOf(edge.getRoom1());
+            int r2 = rooms.indexOf(edge.getRoom2());
+            if (!wqu.connected(r1, r2)) {
+                wqu.union(r1, r2);
+                Point from = edge.getRoom1().getRandomPointInRoom(random);
+                Point to = edge.getRoom2().getRandomPointInRoom(random);
+                drawHallway(tiles, from.getX(), from.getY(), to.getX(), to.getY());
+            }
+        }
+    }
+
+    /**
+     * Runs a hallway from a door on the border straight into the chunk for two tiles, then to a
+     * random point in the room nearest to the door.
+     */
+    private static void drawDoorHallway(TETile[] tiles, List<Room> rooms, Random random,
+                                        int doorX, int doorY, int dx, int dy) {
+        Room nearest = rooms.get(0);
+        int best = Integer.MAX_VALUE;
+        for (Room room : rooms) {
+            int d = Math.abs(room.centerX() - doorX) + Math.abs(room.centerY() - doorY);
+            if (d < best) {
+                best = d;
+                nearest = room;
+            }
+        }
+        Point target = nearest.getRandomPointInRoom(random);
+        int innerX = doorX + 2 * dx;
+        int innerY = doorY + 2 * dy;
+        drawStraight(tiles, doorX, doorY, innerX, innerY);
+        drawHallway(tiles, innerX, innerY, target.getX(), target.getY());
+    }
+
+    /** Draws an L-shaped hallway, horizontal leg first. */
+    private static void drawHallway(TETile[] tiles, int x0, int y0, int x1, int y1) {
+        drawStraight(tiles, x0, y0, x1, y0);
+        drawStraight(tiles, x1, y0, x1, y1);
+    }
+
+    /** Draws a straight hallway between two points on the same row or column, both included. */
+    private static void drawStraight(TETile[] tiles, int x0, int y0, int x1, int y1) {
+        int stepX = Integer.signum(x1 - x0);
+        int stepY = Integer.signum(y1 - y0);
+        for (int x = x0, y = y0; ; x += stepX, y += stepY) {
+            drawHallwayTile(tiles, x, y);
+            if (x == x1 && y == y1) {
+                return;
+            }
+        }
+    }
+
+    /** Draws a floor tile and walls on every empty tile around it that lies inside the chunk. */
+    private static void drawHallwayTile(TETile[] tiles, int x, int y) {
+        tiles[x * CHUNK_SIZE + y] = Tileset.FLOOR;
+        for (int i = -1; i <= 1; i++) {
+            for (int j = -1; j <= 1; j++) {
+                int wx = x + i;
+                int wy = y + j;
+                if (wx >= 0 && wx < CHUNK_SIZE && wy >= 0 && wy < CHUNK_SIZE
+                        && tiles[wx * CHUNK_SIZE + wy] == Tileset.NOTHING) {
+                    tiles[wx * CHUNK_SIZE + wy] = Tileset.WALL_GRAY;
+                }
+            }
+        }
+    }
+
+    /** The 64-bit finalizer of MurmurHash3. */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
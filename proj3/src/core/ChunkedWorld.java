@@ -0,0 +1,192 @@
+package core;
+
+import edu.princeton.cs.algs4.StdDraw;
+import tileengine.TERenderer;
+import tileengine.TETile;
+import tileengine.Tileset;
+import utils.Coords;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The ChunkedWorld class is an endless world that is generated lazily, one chunk at a time, as
+ * it is looked at. Chunks come from a ChunkGenerator and are kept in a least-recently-used cache
+ * with a fixed budget: once more chunks than the budget are loaded, the chunk that was used
+ * longest ago is dropped and, if it is ever needed again, generated again with the same result.
+ * Memory therefore stays flat no matter how far the player explores.
+ * <p>
+ * Tile coordinates are plain ints, which allows exploring some two billion tiles in every
+ * direction.
+ */
+public class ChunkedWorld {
+    private static final int SIZE = ChunkGenerator.CHUNK_SIZE;
+    private static final int VIEW_WIDTH = 80;
+    private static final int VIEW_HEIGHT = 50;
+
+    private final ChunkGenerator generator;
+    private final int maxChunks;
+    private final LinkedHashMap<Long, TETile[]> chunks;
+    private long generatedChunks;
+
+    /**
+     * Creates an endless world.
+     *
+     * @param seed      The world seed.
+     * @param maxChunks The most chunks to keep in memory at once, at least enough to cover a
+     *                  view with a chunk of margin on each side.
+     */
+    public ChunkedWorld(long seed, int maxChunks) {
+        if (maxChunks < 1) {
+            throw new IllegalArgumentException("chunk budget must be positive: " + maxChunks);
+        }
+        this.generator = new ChunkGenerator(seed);
+        this.maxChunks = maxChunks;
+        this.chunks = new LinkedHashMap<>(maxChunks * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, TETile[]> eldest) {
+                return size() > ChunkedWorld.this.maxChunks;
+            }
+        };
+    }
+
+    /**
+     * Returns the tile at the given position, generating its chunk if needed.
+     *
+     * @param x The x-coordinate of the tile.
+     * @param y The y-coordinate of the tile.
+     */
+    public TETile tileAt(int x, int y) {
+        TETile[] chunk = chunk(Math.floorDiv(x, SIZE), Math.floorDiv(y, SIZE));
+        return chunk[Math.floorMod(x, SIZE) * SIZE + Math.floorMod(y, SIZE)];
+    }
+
+    /**
+     * Copies the window of the world whose bottom left tile is at the given position into out.
+     * Each chunk under the window is looked up once, not once per tile.
+     *
+     * @param out     The grid to fill; its size is the size of the window.
+     * @param originX The x-coordinate of the window's bottom left tile.
+     * @param originY The y-coordinate of the window's bottom left tile.
+     */
+    public void view(TETile[][] out, int originX, int originY) {
+        int width = out.length;
+        int height = out[0].length;
+        for (int x = 0; x < width; ) {
+            int wx = originX + x;
+            int localX = Math.floorMod(wx, SIZE);
+            int columns = Math.min(SIZE - localX, width - x);
+            for (int y = 0; y < height; ) {
+                int wy = originY + y;
+                int localY = Math.floorMod(wy, SIZE);
+                int rows = Math.min(SIZE - localY, height - y);
+                TETile[] chunk = chunk(Math.floorDiv(wx, SIZE), Math.floorDiv(wy, SIZE));
+                for (int dx = 0; dx < columns; dx++) {
+                    System.arraycopy(chunk, (localX + dx) * SIZE + localY, out[x + dx], y, rows);
+                }
+                y += rows;
+            }
+            x += columns;
+        }
+    }
+
+    /**
+     * Makes sure every chunk within the given distance of a tile is loaded, so that chunks are
+     * generated as the avatar approaches rather than when they first come into view.
+     *
+     * @param x      The x-coordinate of the tile.
+     * @param y      The y-coordinate of the tile.
+     * @param radius The distance in tiles.
+     */
+    public void prefetch(int x, int y, int radius) {
+        for (int cx = Math.floorDiv(x - radius, SIZE); cx <= Math.floorDiv(x + radius, SIZE); cx++) {
+            for (int cy = Math.floorDiv(y - radius, SIZE); cy <= Math.floorDiv(y + radius, SIZE); cy++) {
+                chunk(cx, cy);
+            }
+        }
+    }
+
+    /**
+     * Returns a floor tile in the chunk at the origin, packed with Coords.pack, as a place to
+     * start exploring from.
+     */
+    public long spawnPoint() {
+        TETile[] origin = chunk(0, 0);
+        for (int i = 0; i < origin.length; i++) {
+            if (origin[i] == Tileset.FLOOR && i / SIZE > 1 && i % SIZE > 1) {
+                return Coords.pack(i / SIZE, i % SIZE);
+            }
+        }
+        throw new IllegalStateException("chunk (0, 0) has no floor");
+    }
+
+    /**
+     * Returns the number of chunks in memory.
+     */
+    public int loadedChunks() {
+        return chunks.size();
+    }
+
+    /**
+     * Returns the number of chunks generated so far, counting chunks generated again after they
+     * were evicted.
+     */
+    public long generatedChunks() {
+        return generatedChunks;
+    }
+
+    private TETile[] chunk(int cx, int cy) {
+        long key = Coords.pack(cx, cy);
+        TETile[] chunk = chunks.get(key);
+        if (chunk == null) {
+            chunk = generator.generate(cx, cy);
+            generatedChunks++;
+            chunks.put(key, chunk);
+        }
+        return chunk;
+    }
+
+    /**
+     * Explores an endless world with the keyboard: w, a, s and d move the avatar, q quits.
+     *
+     * @param args The world seed, and optionally the chunk budget (default 64).
+     */
+    public static void main(String[] args) {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : 42;
+        int budget = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        ChunkedWorld world = new ChunkedWorld(seed, budget);
+        long spawn = world.spawnPoint();
+        int x = Coords.x(spawn);
+        int y = Coords.y(spawn);
+
+        TERenderer ter = new TERenderer();
+        ter.initialize(VIEW_WIDTH, VIEW_HEIGHT + 2);
+        InputQueue input = new InputQueue();
+        input.attachToStdDraw();
+        TETile[][] view = new TETile[VIEW_WIDTH][VIEW_HEIGHT];
+        while (true) {
+            int key;
+            while ((key = input.poll()) != InputQueue.EMPTY) {
+                char c = Character.toLowerCase((char) key);
+                if (c == 'q') {
+                    System.exit(0);
+                }
+                int nx = x + (c == 'd' ? 1 : c == 'a' ? -1 : 0);
+                int ny = y + (c == 'w' ? 1 : c == 's' ? -1 : 0);
+                if (world.tileAt(nx, ny) == Tileset.FLOOR) {
+                    x = nx;
+                    y = ny;
+                }
+            }
+            world.prefetch(x, y, Math.max(VIEW_WIDTH, VIEW_HEIGHT) / 2 + SIZE);
+            world.view(view, x - VIEW_WIDTH / 2, y - VIEW_HEIGHT / 2);
+            view[VIEW_WIDTH / 2][VIEW_HEIGHT / 2] = Tileset.AVATAR;
+            ter.renderFrame(view);
+            StdDraw.setPenColor(StdDraw.WHITE);
+            StdDraw.textLeft(1, VIEW_HEIGHT + 1, "(" + x + ", " + y + ")  chunks loaded "
+                    + world.loadedChunks() + "/" + budget + ", generated " + world.generatedChunks());
+            StdDraw.show();
+            StdDraw.pause(16);
+        }
+    }
+}
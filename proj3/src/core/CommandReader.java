@@ -0,0 +1,136 @@
+package core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The CommandReader class reads the keys of an input such as "n123swasd:q" one at a time,
+ * lower-cased, from a CharSequence or a Reader. It never copies its source: a string is indexed
+ * in place and a Reader is read through a fixed buffer, so World.getWorldFromInput can replay
+ * a recorded session of any length while holding only a few kilobytes of it at once.
+ * <p>
+ * A load ("l") input continues the saved game, so the saved line is placed in front of the
+ * remaining keys with prepend instead of concatenating the two.
+ */
+public class CommandReader implements Closeable {
+    /** Returned by next and peek once every key has been read. */
+    public static final int END = -1;
+    private static final int BUFFER_SIZE = 8192;
+
+    /** Keys read before the source, or null. */
+    private CharSequence prefix;
+    private int prefixPos;
+    private final CharSequence text;
+    private int textPos;
+    private final Reader reader;
+    private final char[] buffer;
+    private int bufferPos;
+    private int bufferEnd;
+
+    private CommandReader(CharSequence text, Reader reader) {
+        this.text = text;
+        this.reader = reader;
+        this.buffer = reader == null ? null : new char[BUFFER_SIZE];
+    }
+
+    /**
+     * Returns a reader over the keys of a string.
+     *
+     * @param input The input, for example "n123swasd".
+     */
+    public static CommandReader of(CharSequence input) {
+        return new CommandReader(input, null);
+    }
+
+    /**
+     * Returns a reader over the keys of a stream. Closing the CommandReader closes it.
+     *
+     * @param input The input.
+     */
+    public static CommandReader of(Reader input) {
+        return new CommandReader(null, input);
+    }
+
+    /**
+     * Returns a reader over the keys of a file, such as a recorded bot session.
+     *
+     * @param file The file, in UTF-8 or plain ASCII.
+     */
+    public static CommandReader of(Path file) throws IOException {
+        return of(new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Makes the next keys read those of the given text, followed by whatever was left.
+     *
+     * @param keys The keys to read first.
+     * @throws IllegalStateException if keys prepended earlier have not all been read.
+     */
+    public void prepend(CharSequence keys) {
+        if (prefix != null && prefixPos < prefix.length()) {
+            throw new IllegalStateException("previously prepended keys are still unread");
+        }
+        prefix = keys;
+        prefixPos = 0;
+    }
+
+    /**
+     * Returns the next key, lower-cased, without consuming it, or END.
+     */
+    public int peek() {
+        if (prefix != null && prefixPos < prefix.length()) {
+            return Character.toLowerCase(prefix.charAt(prefixPos));
+        }
+        if (text != null) {
+            return textPos < text.length() ? Character.toLowerCase(text.charAt(textPos)) : END;
+        }
+        if (bufferPos == bufferEnd && !fill()) {
+            return END;
+        }
+        return Character.toLowerCase(buffer[bufferPos]);
+    }
+
+    /**
+     * Consumes and returns the next key, lower-cased, or END.
+     */
+    public int next() {
+        int key = peek();
+        if (key != END) {
+            if (prefix != null && prefixPos < prefix.length()) {
+                prefixPos++;
+            } else if (text != null) {
+                textPos++;
+            } else {
+                bufferPos++;
+            }
+        }
+        return key;
+    }
+
+    private boolean fill() {
+        try {
+            int read;
+            do {
+                read = reader.read(buffer, 0, buffer.length);
+            } while (read == 0);
+            bufferPos = 0;
+            bufferEnd = Math.max(read, 0);
+            return read > 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (reader != null) {
+            reader.close();
+        }
+    }
+}
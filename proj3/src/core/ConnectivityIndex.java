@@ -0,0 +1,180 @@
+package core;
+
+import tileengine.TETile;
+import tileengine.Tileset;
+
+/**
+ * The ConnectivityIndex class labels the connected components of the walkable tiles of a grid,
+ * so that AStarPathFinder can tell in constant time that a goal cannot be reached instead of
+ * finding out by exhausting every tile reachable from the start. Walkable means everything but
+ * a wall, as for AStarPathFinder.
+ * <p>
+ * Components are kept in a WeightedQuickUnion over the grid indices x * height + y. Tiles that
+ * become walkable are joined to their walkable neighbours on the spot. A union-find cannot be
+ * split, so a tile that stops being walkable instead marks the index stale, and it is rebuilt
+ * from the grid on the next query. Walls only appear while a world is generated, so in play the
+ * index is built once and then kept up to date by unions alone.
+ */
+public class ConnectivityIndex {
+    private final TETile[][] grid;
+    private final int width;
+    private final int height;
+    private final boolean[] walkable;
+    private WeightedQuickUnion components;
+    private boolean stale;
+
+    /**
+     * Creates an index of a grid. The index keeps the grid and reads it on every rebuild.
+     *
+     * @param grid The grid to index, indexed [x][y].
+     */
+    public ConnectivityIndex(TETile[][] grid) {
+        this.grid = grid;
+        this.width = grid.length;
+        this.height = grid[0].length;
+        this.walkable = new boolean[width * height];
+        this.stale = true;
+    }
+
+    /**
+     * Returns true if the index describes the given grid.
+     */
+    public boolean indexes(TETile[][] other) {
+        return other == grid;
+    }
+
+    /**
+     * Tells the index that a tile of the grid was overwritten.
+     *
+     * @param x The x-coordinate of the tile.
+     * @param y The y-coordinate of the tile.
+     */
+    public void tileChanged(int x, int y) {
+        if (stale) {
+            return;
+        }
+        int i = x * height + y;
+        boolean now = isWalkable(grid[x][y]);
+        if (now == walkable[i]) {
+            return;
+        }
+        walkable[i] = now;
+        if (now) {
+            joinNeighbours(x, y);
+        } else {
+            stale = true;
+        }
+    }
+
+    /**
+     * Tells the index that any number of tiles may have changed, for example after the grid was
+     * regenerated or restored. The index is rebuilt on the next query.
+     */
+    public void invalidate() {
+        stale = true;
+    }
+
+    /**
+     * Returns the component of a tile, or -1 if the tile is a wall. Two tiles are connected
+     * exactly when their components are equal and not -1.
+     *
+     * @param x The x-coordinate of the tile.
+     * @param y The y-coordinate of the tile.
+     */
+    public int componentOf(int x, int y) {
+        ensureFresh();
+        int i = x * height + y;
+        return walkable[i] ? components.find(i) : -1;
+    }
+
+    /**
+     * Returns false if AStarPathFinder.search cannot find a path from the start to the goal, and
+     * true if it can. Like the search, the start and goal tiles themselves may be walls: the
+     * search leaves the start through its walkable neighbours and ends as soon as it steps next
+     * to the goal.
+     *
+     * @param startX The x-coordinate of the start.
+     * @param startY The y-coordinate of the start.
+     * @param goalX  The x-coordinate of the goal.
+     * @param goalY  The y-coordinate of the goal.
+     */
+    public boolean canReach(int startX, int startY, int goalX, int goalY) {
+        if (Math.abs(startX - goalX) + Math.abs(startY - goalY) <= 1) {
+            return true;
+        }
+        ensureFresh();
+        for (int d = 0; d < 5; d++) {
+            int from = componentNear(startX, startY, d);
+            if (from < 0) {
+                continue;
+            }
+            for (int e = 1; e < 5; e++) {
+                if (componentNear(goalX, goalY, e) == from) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the component of the tile itself (d = 0) or of one of its four neighbours
+     * (d = 1..4), or -1 for walls and tiles off the grid.
+     */
+    private int componentNear(int x, int y, int d) {
+        int nx = x + (d == 1 ? -1 : d == 2 ? 1 : 0);
+        int ny = y + (d == 3 ? -1 : d == 4 ? 1 : 0);
+        if (nx < 0 || nx >= width || ny < 0 || ny >= height) {
+            return -1;
+        }
+        int i = nx * height + ny;
+        return walkable[i] ? components.find(i) : -1;
+    }
+
+    private void ensureFresh() {
+        if (!stale) {
+            return;
+        }
+        components = new WeightedQuickUnion(width * height);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                walkable[x * height + y] = isWalkable(grid[x][y]);
+            }
+        }
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                int i = x * height + y;
+                if (!walkable[i]) {
+                    continue;
+                }
+                if (x + 1 < width && walkable[i + height]) {
+                    components.union(i, i + height);
+                }
+                if (y + 1 < height && walkable[i + 1]) {
+                    components.union(i, i + 1);
+                }
+            }
+        }
+        stale = false;
+    }
+
+    private void joinNeighbours(int x, int y) {
+        int i = x * height + y;
+        if (x > 0 && walkable[i - height]) {
+            components.union(i, i - height);
+        }
+        if (x + 1 < width && walkable[i + height]) {
+            components.union(i, i + height);
+        }
+        if (y > 0 && walkable[i - 1]) {
+            components.union(i, i - 1);
+        }
+        if (y + 1 < height && walkable[i + 1]) {
+            components.union(i, i + 1);
+        }
+    }
+
+    private static boolean isWalkable(TETile tile) {
+        return tile != Tileset.WALL_GRAY;
+    }
+}
@@ -0,0 +1,333 @@
+package core;
+
+import utils.Coords;
+import utils.SpatialHash;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The EntityStore class holds every entity of the world other than the player's avatar:
+ * enemies and pickups such as flowers. Entities are stored as a struct of arrays, one primitive
+ * array per field, and are identified by their index. Updating an entity never allocates, and a
+ * loop over all entities walks a few flat arrays instead of following object pointers.
+ * <p>
+ * Every position change also updates a SpatialHash, so "which entity is on this tile" and
+ * "which entities are within r tiles" are answered without scanning the store.
+ * <p>
+ * Removing an entity moves the last entity into its slot, so indices are only stable until the
+ * next removal.
+ */
+public class EntityStore {
+    public static final byte ENEMY = 1;
+    public static final byte FLOWER = 2;
+    private static final int[] NO_PATH = new int[0];
+    private static final int CELL_SIZE = 4;
+
+    private int size;
+    private byte[] kind;
+    private int[] x;
+    private int[] y;
+    private int[] life;
+    /** Tiles of the planned path as x * height + y, starting at the entity's own tile. */
+    private int[][] path;
+    private int[] pathLength;
+    /** Index into path of the tile the entity stands on. */
+    private int[] pathCursor;
+    private final int height;
+    private final SpatialHash grid;
+
+    /**
+     * Creates an empty store for a world of the given height.
+     *
+     * @param capacity The number of entities to allocate room for up front.
+     * @param height   The height of the world, used to pack path tiles into single ints.
+     */
+    public EntityStore(int capacity, int height) {
+        capacity = Math.max(capacity, 4);
+        this.height = height;
+        kind = new byte[capacity];
+        x = new int[capacity];
+        y = new int[capacity];
+        life = new int[capacity];
+        path = new int[capacity][];
+        pathLength = new int[capacity];
+        pathCursor = new int[capacity];
+        Arrays.fill(path, NO_PATH);
+        grid = new SpatialHash(CELL_SIZE, capacity);
+    }
+
+    /**
+     * Adds an entity.
+     *
+     * @param k      The kind of the entity.
+     * @param startX The x-coordinate of the entity.
+     * @param startY The y-coordinate of the entity.
+     * @param lives  The life points of the entity.
+     * @return The index of the new entity.
+     */
+    public int add(byte k, int startX, int startY, int lives) {
+        if (size == kind.length) {
+            grow();
+        }
+        int i = size++;
+        kind[i] = k;
+        x[i] = startX;
+        y[i] = startY;
+        life[i] = lives;
+        pathLength[i] = 0;
+        pathCursor[i] = 0;
+        grid.insert(i, startX, startY);
+        return i;
+    }
+
+    /**
+     * Removes an entity by moving the last entity into its slot.
+     *
+     * @param i The index of the entity to remove.
+     */
+    public void remove(int i) {
+        int last = --size;
+        grid.remove(i);
+        if (i == last) {
+            return;
+        }
+        grid.remove(last);
+        kind[i] = kind[last];
+        x[i] = x[last];
+        y[i] = y[last];
+        life[i] = life[last];
+        int[] freed = path[i];
+        path[i] = path[last];
+        path[last] = freed;
+        pathLength[i] = pathLength[last];
+        pathCursor[i] = pathCursor[last];
+        grid.insert(i, x[i], y[i]);
+    }
+
+    /**
+     * Removes every entity.
+     */
+    public void clear() {
+        size = 0;
+        grid.clear();
+    }
+
+    /**
+     * Replaces the contents of this store with a copy of another store of the same world
+     * height, including every planned path. Indices are preserved.
+     *
+     * @param other The store to copy.
+     */
+    public void copyFrom(EntityStore other) {
+        if (other.height != height) {
+            throw new IllegalArgumentException("stores are for worlds of different heights");
+        }
+        clear();
+        for (int i = 0; i < other.size; i++) {
+            add(other.kind[i], other.x[i], other.y[i], other.life[i]);
+            setPath(i, other.path[i], other.pathLength[i]);
+            pathCursor[i] = other.pathCursor[i];
+        }
+    }
+
+    /**
+     * Returns an independent copy of this store.
+     */
+    public EntityStore copy() {
+        EntityStore copy = new EntityStore(size, height);
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    private void grow() {
+        int capacity = kind.length * 2;
+        kind = Arrays.copyOf(kind, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        life = Arrays.copyOf(life, capacity);
+        path = Arrays.copyOf(path, capacity);
+        Arrays.fill(path, size, capacity, NO_PATH);
+        pathLength = Arrays.copyOf(pathLength, capacity);
+        pathCursor = Arrays.copyOf(pathCursor, capacity);
+    }
+
+    /**
+     * Returns the number of entities.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of entities of the given kind.
+     *
+     * @param k The kind to count.
+     */
+    public int count(byte k) {
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            if (kind[i] == k) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Returns the index of the first entity of the given kind on the tile, or -1 if there is none.
+     *
+     * @param k  The kind to look for.
+     * @param px The x-coordinate of the tile.
+     * @param py The y-coordinate of the tile.
+     */
+    public int find(byte k, int px, int py) {
+        for (int i = grid.firstAt(px, py); i >= 0; i = grid.nextAt(i)) {
+            if (kind[i] == k) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Writes the index of every entity within the given Euclidean radius of a tile into out.
+     *
+     * @param px     The x-coordinate of the centre tile.
+     * @param py     The y-coordinate of the centre tile.
+     * @param radius The radius in tiles.
+     * @param out    The array to fill. Entities that do not fit are counted but not written.
+     * @return The number of entities within the radius.
+     */
+    public int queryRadius(int px, int py, int radius, int[] out) {
+        return grid.queryRadius(px, py, radius, out);
+    }
+
+    /**
+     * Returns the kind of an entity.
+     */
+    public byte kind(int i) {
+        return kind[i];
+    }
+
+    /**
+     * Returns the x-coordinate of an entity.
+     */
+    public int x(int i) {
+        return x[i];
+    }
+
+    /**
+     * Returns the y-coordinate of an entity.
+     */
+    public int y(int i) {
+        return y[i];
+    }
+
+    /**
+     * Returns the life points of an entity.
+     */
+    public int life(int i) {
+        return life[i];
+    }
+
+    /**
+     * Sets the life points of an entity.
+     */
+    public void setLife(int i, int lives) {
+        life[i] = lives;
+    }
+
+    /**
+     * Moves an entity to a new tile.
+     *
+     * @param i  The index of the entity.
+     * @param nx The new x-coordinate.
+     * @param ny The new y-coordinate.
+     */
+    public void move(int i, int nx, int ny) {
+        x[i] = nx;
+        y[i] = ny;
+        grid.move(i, nx, ny);
+    }
+
+    /**
+     * Replaces the planned path of an entity. The path is copied into a buffer owned by the
+     * entity, which is only reallocated when the new path is longer than any path before it.
+     *
+     * @param i     The index of the entity.
+     * @param steps The path starting at the entity's tile, or null to clear it.
+     */
+    public void setPath(int i, List<Point> steps) {
+        if (steps == null) {
+            pathLength[i] = 0;
+            pathCursor[i] = 0;
+            return;
+        }
+        if (path[i].length < steps.size()) {
+            path[i] = new int[Math.max(steps.size(), path[i].length * 2)];
+        }
+        int[] buffer = path[i];
+        for (int s = 0; s < steps.size(); s++) {
+            Point p = steps.get(s);
+            buffer[s] = Coords.index(p.getX(), p.getY(), height);
+        }
+        pathLength[i] = steps.size();
+        pathCursor[i] = 0;
+    }
+
+    /**
+     * Replaces the planned path of an entity with tiles already encoded as x * height + y, such
+     * as the path buffer of AStarPathFinder.
+     *
+     * @param i      The index of the entity.
+     * @param tiles  The path starting at the entity's tile.
+     * @param length The number of valid entries in tiles, 0 to clear the path.
+     */
+    public void setPath(int i, int[] tiles, int length) {
+        if (path[i].length < length) {
+            path[i] = new int[Math.max(length, path[i].length * 2)];
+        }
+        System.arraycopy(tiles, 0, path[i], 0, length);
+        pathLength[i] = length;
+        pathCursor[i] = 0;
+    }
+
+    /**
+     * Returns true if the entity has a planned path and a next tile to step on.
+     */
+    public boolean hasNextStep(int i) {
+        return pathLength[i] - pathCursor[i] > 1;
+    }
+
+    /**
+     * Moves the entity one tile along its planned path. Must only be called if hasNextStep.
+     *
+     * @param i The index of the entity.
+     */
+    public void advanceOnPath(int i) {
+        int tile = path[i][++pathCursor[i]];
+        move(i, tile / height, tile % height);
+    }
+
+    /**
+     * Returns the number of tiles left on the planned path, including the current one.
+     */
+    public int remainingPathLength(int i) {
+        return Math.max(0, pathLength[i] - pathCursor[i]);
+    }
+
+    /**
+     * Returns the x-coordinate of the k-th remaining tile of the planned path.
+     */
+    public int pathX(int i, int k) {
+        return path[i][pathCursor[i] + k] / height;
+    }
+
+    /**
+     * Returns the y-coordinate of the k-th remaining tile of the planned path.
+     */
+    public int pathY(int i, int k) {
+        return path[i][pathCursor[i] + k] % height;
+    }
+}
@@ -0,0 +1,30 @@
+package core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * The FrameEvent class is a Java Flight Recorder event committed once per rendered frame.
+ * It carries the same numbers as the metrics HUD line, so a recording of a real play session can
+ * be inspected in JDK Mission Control. When no recording is running, committing is a no-op.
+ */
+@Name("byow.Frame")
+@Label("Game Frame")
+@Category("BYOW")
+@Description("Timings of one rendered frame")
+class FrameEvent extends Event {
+    @Label("Render Frame")
+    @Timespan(Timespan.NANOSECONDS)
+    long renderFrameNanos;
+
+    @Label("Draw HUD")
+    @Timespan(Timespan.NANOSECONDS)
+    long drawHudNanos;
+
+    @Label("Tiles Drawn")
+    int tilesDrawn;
+}
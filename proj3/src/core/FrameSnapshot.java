@@ -0,0 +1,88 @@
+package core;
+
+import tileengine.TETile;
+
+/**
+ * The FrameSnapshot class holds everything the render thread needs to draw one frame: the tiles
+ * as they should appear on screen (with the enemy path and line of sight already applied), the
+ * values shown on the HUD and whether the game is still running.
+ * <p>
+ * Snapshots are filled by the simulation thread and handed to the render thread through a
+ * TripleBuffer. Once published, a snapshot is never modified while the render thread holds it.
+ */
+public class FrameSnapshot {
+    /**
+     * The state of the game at the time of the snapshot.
+     */
+    public enum Status {
+        PLAYING, WON, LOST, QUIT
+    }
+
+    private final TETile[][] tiles;
+    private int life;
+    private int flowers;
+    private long tick;
+    private Status status;
+
+    /**
+     * Creates an empty snapshot for a world of the given size.
+     *
+     * @param width  The width of the world in tiles.
+     * @param height The height of the world in tiles.
+     */
+    public FrameSnapshot(int width, int height) {
+        tiles = new TETile[width][height];
+        status = Status.PLAYING;
+    }
+
+    /**
+     * Overwrites the HUD values and status of this snapshot. The tiles are written directly
+     * through getTiles.
+     *
+     * @param life    The remaining life of the avatar.
+     * @param flowers The number of flowers left.
+     * @param tick    The simulation tick the snapshot was taken at.
+     * @param status  The state of the game.
+     */
+    void update(int life, int flowers, long tick, Status status) {
+        this.life = life;
+        this.flowers = flowers;
+        this.tick = tick;
+        this.status = status;
+    }
+
+    /**
+     * Returns the tiles to draw.
+     */
+    public TETile[][] getTiles() {
+        return tiles;
+    }
+
+    /**
+     * Returns the remaining life of the avatar.
+     */
+    public int getLife() {
+        return life;
+    }
+
+    /**
+     * Returns the number of flowers left.
+     */
+    public int getFlowers() {
+        return flowers;
+    }
+
+    /**
+     * Returns the simulation tick the snapshot was taken at.
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Returns the state of the game.
+     */
+    public Status getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,215 @@
+package core;
+
+import utils.LatencyHistogram;
+
+/**
+ * The GameMetrics class collects timings of the game loop. The simulation side (a tick: moving
+ * the enemy and searching for its path) and the render side (a frame: rendering the tiles and
+ * drawing the HUD) run on different threads, so each side has its own histograms and its own
+ * begin/end pair, and each histogram is only ever written by one thread. The numbers can be
+ * shown as a HUD line and are also committed as TickEvent and FrameEvent for Java Flight
+ * Recorder.
+ * <p>
+ * Phase timings between begin and end are added up, so a phase that runs several times in one
+ * tick or frame is reported once with its total.
+ */
+public class GameMetrics {
+    private final LatencyHistogram tickTimes;
+    private final LatencyHistogram moveEnemyTimes;
+    private final LatencyHistogram findPathTimes;
+    private final LatencyHistogram frameTimes;
+    private final LatencyHistogram renderFrameTimes;
+    private final LatencyHistogram drawHudTimes;
+
+    private TickEvent tickEvent;
+    private long tickStart;
+    private long moveEnemyNanos, findPathNanos;
+    private volatile int nodesExpanded;
+
+    private FrameEvent frameEvent;
+    private long frameStart;
+    private long renderFrameNanos, drawHudNanos;
+    private int tilesDrawn;
+
+    /**
+     * Creates an empty set of metrics.
+     */
+    public GameMetrics() {
+        tickTimes = new LatencyHistogram();
+        moveEnemyTimes = new LatencyHistogram();
+        findPathTimes = new LatencyHistogram();
+        frameTimes = new LatencyHistogram();
+        renderFrameTimes = new LatencyHistogram();
+        drawHudTimes = new LatencyHistogram();
+    }
+
+    /**
+     * Marks the start of a simulation tick. Called by the simulation thread.
+     */
+    public void beginTick() {
+        tickStart = System.nanoTime();
+        moveEnemyNanos = 0;
+        findPathNanos = 0;
+        tickEvent = new TickEvent();
+        tickEvent.begin();
+    }
+
+    /**
+     * Marks the end of a simulation tick, records every phase that ran and commits the JFR event.
+     */
+    public void endTick() {
+        tickTimes.record(System.nanoTime() - tickStart);
+        record(moveEnemyTimes, moveEnemyNanos);
+        record(findPathTimes, findPathNanos);
+
+        tickEvent.end();
+        if (tickEvent.shouldCommit()) {
+            tickEvent.moveEnemyNanos = moveEnemyNanos;
+            tickEvent.findPathNanos = findPathNanos;
+            tickEvent.nodesExpanded = nodesExpanded;
+            tickEvent.commit();
+        }
+    }
+
+    /**
+     * Marks the start of a rendered frame. Called by the render thread.
+     */
+    public void beginFrame() {
+        frameStart = System.nanoTime();
+        renderFrameNanos = 0;
+        drawHudNanos = 0;
+        frameEvent = new FrameEvent();
+        frameEvent.begin();
+    }
+
+    /**
+     * Marks the end of a rendered frame, records every phase that ran and commits the JFR event.
+     */
+    public void endFrame() {
+        frameTimes.record(System.nanoTime() - frameStart);
+        record(renderFrameTimes, renderFrameNanos);
+        record(drawHudTimes, drawHudNanos);
+
+        frameEvent.end();
+        if (frameEvent.shouldCommit()) {
+            frameEvent.renderFrameNanos = renderFrameNanos;
+            frameEvent.drawHudNanos = drawHudNanos;
+            frameEvent.tilesDrawn = tilesDrawn;
+            frameEvent.commit();
+        }
+    }
+
+    private static void record(LatencyHistogram histogram, long nanos) {
+        if (nanos > 0) {
+            histogram.record(nanos);
+        }
+    }
+
+    /**
+     * Adds time spent moving the enemy to the current tick.
+     *
+     * @param nanos The elapsed time in nanoseconds.
+     */
+    public void addMoveEnemy(long nanos) {
+        moveEnemyNanos += nanos;
+    }
+
+    /**
+     * Adds a path search to the current tick.
+     *
+     * @param nanos    The elapsed time in nanoseconds.
+     * @param expanded The number of nodes the search expanded.
+     */
+    public void addFindPath(long nanos, int expanded) {
+        findPathNanos += nanos;
+        nodesExpanded = expanded;
+    }
+
+    /**
+     * Adds time spent rendering tiles to the current frame.
+     *
+     * @param nanos The elapsed time in nanoseconds.
+     * @param tiles The number of tiles drawn.
+     */
+    public void addRenderFrame(long nanos, int tiles) {
+        renderFrameNanos += nanos;
+        tilesDrawn = tiles;
+    }
+
+    /**
+     * Adds time spent drawing the HUD to the current frame.
+     *
+     * @param nanos The elapsed time in nanoseconds.
+     */
+    public void addDrawHud(long nanos) {
+        drawHudNanos += nanos;
+    }
+
+    /**
+     * Returns the histogram of whole tick times.
+     */
+    public LatencyHistogram getTickTimes() {
+        return tickTimes;
+    }
+
+    /**
+     * Returns the histogram of enemy movement times.
+     */
+    public LatencyHistogram getMoveEnemyTimes() {
+        return moveEnemyTimes;
+    }
+
+    /**
+     * Returns the histogram of path search times.
+     */
+    public LatencyHistogram getFindPathTimes() {
+        return findPathTimes;
+    }
+
+    /**
+     * Returns the histogram of whole frame times.
+     */
+    public LatencyHistogram getFrameTimes() {
+        return frameTimes;
+    }
+
+    /**
+     * Returns the histogram of tile rendering times.
+     */
+    public LatencyHistogram getRenderFrameTimes() {
+        return renderFrameTimes;
+    }
+
+    /**
+     * Returns the histogram of HUD drawing times.
+     */
+    public LatencyHistogram getDrawHudTimes() {
+        return drawHudTimes;
+    }
+
+    /**
+     * Returns the number of nodes the most recent path search expanded.
+     */
+    public int getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    /**
+     * Returns the number of tiles drawn in the most recent frame.
+     */
+    public int getTilesDrawn() {
+        return tilesDrawn;
+    }
+
+    /**
+     * Builds the one line summary shown on the HUD. Called by the render thread; the tick
+     * percentiles are read without synchronization, so they may lag the simulation slightly.
+     *
+     * @return The frame and tick percentiles, the last A* expansion count and the tiles drawn.
+     */
+    public String hudLine() {
+        return String.format("frame p50 %.2f ms  p99 %.2f ms  |  tick p99 %.2f ms  |  A* nodes %d  |  tiles %d",
+                frameTimes.percentile(50) / 1e6, frameTimes.percentile(99) / 1e6,
+                tickTimes.percentile(99) / 1e6, nodesExpanded, tilesDrawn);
+    }
+}
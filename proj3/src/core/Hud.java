@@ -0,0 +1,115 @@
+package core;
+
+import edu.princeton.cs.algs4.StdDraw;
+import tileengine.TETile;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * The Hud class draws the Heads-Up Display above the world: remaining life, flowers left,
+ * the tile under the cursor, key hints, the clock and optionally the metrics line.
+ * <p>
+ * Every piece of text is kept between frames. Static hints are constants, the flower and cursor
+ * texts are rebuilt only when the flower count or the hovered tile changes, and the clock and
+ * metrics texts are refreshed at most once per second. In steady state drawing the HUD does not
+ * allocate any strings.
+ */
+public class Hud {
+    private static final String LIFE_LABEL = "Remaining Life: ";
+    private static final String HEART = "♥";
+    private static final String VISION_HINT = "Press v to toggle vision";
+    private static final String PATH_HINT = "Press k to see enemy's coming path";
+    private static final DateTimeFormatter CLOCK_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd 'at' HH:mm:ss z").withZone(ZoneId.systemDefault());
+
+    private final int width;
+    private final int height;
+    private int shownFlowers;
+    private String flowersText;
+    private TETile shownCursorTile;
+    private String cursorText;
+    private long clockSecond;
+    private String clockText;
+    private long metricsSecond;
+    private String metricsText;
+
+    /**
+     * Full constructor for Hud objects.
+     *
+     * @param width  The width of the world in tiles.
+     * @param height The height of the world in tiles. The HUD is drawn above this row.
+     */
+    public Hud(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.shownFlowers = -1;
+        this.clockSecond = -1;
+        this.metricsSecond = -1;
+    }
+
+    /**
+     * Draws the HUD for the current frame.
+     *
+     * @param world   The world grid, used to describe the tile under the cursor.
+     * @param life    The remaining life of the avatar.
+     * @param flowers The number of flowers left.
+     * @param metrics The metrics to show, or null to hide the metrics line.
+     */
+    public void draw(TETile[][] world, int life, int flowers, GameMetrics metrics) {
+        StdDraw.setPenColor(StdDraw.WHITE);
+        StdDraw.rectangle(5, height + 2, width, 2);
+
+        StdDraw.text(5, height + 2.5, LIFE_LABEL);
+        for (int i = 1; i <= life; i++) {
+            StdDraw.text(8 + i, height + 2.5, HEART);
+        }
+        StdDraw.text(5.8, height + 1.5, flowersText(flowers));
+
+        int mX = Math.max(0, Math.min((int) StdDraw.mouseX(), width - 1));
+        int mY = Math.max(0, Math.min((int) StdDraw.mouseY(), height - 1));
+        StdDraw.text(62, height + 2.5, cursorText(world[mX][mY]));
+
+        StdDraw.text(40, height + 2.5, VISION_HINT);
+        StdDraw.text(42.5, height + 1.5, PATH_HINT);
+
+        long second = System.currentTimeMillis() / 1000;
+        StdDraw.text(width - 8, height + 2.25, clockText(second));
+        if (metrics != null) {
+            StdDraw.text(width / 2.0, height + 4.25, metricsText(metrics, second));
+        }
+    }
+
+    private String flowersText(int flowers) {
+        if (flowers != shownFlowers) {
+            shownFlowers = flowers;
+            flowersText = " Number of Flowers: " + flowers;
+        }
+        return flowersText;
+    }
+
+    private String cursorText(TETile tile) {
+        if (tile != shownCursorTile) {
+            shownCursorTile = tile;
+            cursorText = "Cursor at: " + tile.description();
+        }
+        return cursorText;
+    }
+
+    private String clockText(long second) {
+        if (second != clockSecond) {
+            clockSecond = second;
+            clockText = CLOCK_FORMAT.format(Instant.ofEpochSecond(second));
+        }
+        return clockText;
+    }
+
+    private String metricsText(GameMetrics metrics, long second) {
+        if (second != metricsSecond) {
+            metricsSecond = second;
+            metricsText = metrics.hudLine();
+        }
+        return metricsText;
+    }
+}
@@ -0,0 +1,152 @@
+package core;
+
+import edu.princeton.cs.algs4.DrawListener;
+import edu.princeton.cs.algs4.StdDraw;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The InputQueue class carries typed keys from the window to the game loop. It is a lock-free
+ * single-producer single-consumer ring buffer: the producer is the Swing event thread, which
+ * offers every key as StdDraw reports it through the DrawListener callback, and the consumer is
+ * the game loop, which drains every pending key once per frame. Tests can play the producer
+ * role and feed keys without a window.
+ */
+public class InputQueue implements DrawListener {
+    /** Returned by poll when no key is pending. */
+    public static final int EMPTY = -1;
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private final char[] buffer;
+    private final int mask;
+    /** Index of the next key to read. Only written by the consumer. */
+    private final AtomicLong head;
+    /** Index of the next free slot. Only written by the producer. */
+    private final AtomicLong tail;
+
+    /**
+     * Creates a queue that holds up to 1024 pending keys.
+     */
+    public InputQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a queue that holds up to capacity pending keys.
+     *
+     * @param capacity The maximum number of pending keys, must be a power of two.
+     */
+    public InputQueue(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        buffer = new char[capacity];
+        mask = capacity - 1;
+        head = new AtomicLong();
+        tail = new AtomicLong();
+    }
+
+    /**
+     * Registers this queue with StdDraw so every typed key is offered to it.
+     */
+    public void attachToStdDraw() {
+        StdDraw.addListener(this);
+    }
+
+    /**
+     * Adds a key to the queue. Must only be called from the producer thread.
+     *
+     * @param key The key to add.
+     * @return true if the key was added, false if the queue is full and the key was dropped.
+     */
+    public boolean offer(char key) {
+        long t = tail.get();
+        if (t - head.get() == buffer.length) {
+            return false;
+        }
+        buffer[(int) t & mask] = key;
+        tail.setRelease(t + 1);
+        return true;
+    }
+
+    /**
+     * Adds every character of the string to the queue, as if it had been typed.
+     *
+     * @param keys The keys to add.
+     * @return The number of keys added before the queue filled up.
+     */
+    public int offerAll(CharSequence keys) {
+        for (int i = 0; i < keys.length(); i++) {
+            if (!offer(keys.charAt(i))) {
+                return i;
+            }
+        }
+        return keys.length();
+    }
+
+    /**
+     * Removes the oldest pending key. Must only be called from the consumer thread.
+     *
+     * @return The key, or EMPTY if no key is pending.
+     */
+    public int poll() {
+        long h = head.get();
+        if (h == tail.get()) {
+            return EMPTY;
+        }
+        char key = buffer[(int) h & mask];
+        head.setRelease(h + 1);
+        return key;
+    }
+
+    /**
+     * Waits until a key is pending and removes it. Must only be called from the consumer thread.
+     *
+     * @return The oldest pending key.
+     */
+    public char take() {
+        int key;
+        int spins = 0;
+        while ((key = poll()) == EMPTY) {
+            if (spins < 100) {
+                Thread.onSpinWait();
+            } else if (spins < 200) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(1_000_000);
+            }
+            spins++;
+        }
+        return (char) key;
+    }
+
+    /**
+     * Returns true if no key is pending.
+     */
+    public boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+
+    /**
+     * Returns the number of pending keys.
+     */
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    /**
+     * StdDraw keeps its own list of typed keys next to the listener callbacks. Nothing reads
+     * that list once the queue is attached, so it is emptied to keep it from growing.
+     */
+    public static void discardStdDrawKeys() {
+        while (StdDraw.hasNextKeyTyped()) {
+            StdDraw.nextKeyTyped();
+        }
+    }
+
+    @Override
+    public void keyTyped(char c) {
+        offer(c);
+    }
+}
@@ -1,5 +1,8 @@
 package core;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
 /**
  * The Main class serves as the entry point for the world generation and interaction program.
  * It contains the main method which parses command line arguments and initializes the game world.
@@ -13,12 +16,24 @@ public class Main {
      * @param args Command line arguments passed to the program. The program expects at most one argument.
      *             If one argument is provided, it is used as input to generate the world.
      *             If no arguments are provided, the program starts in interactive mode, allowing the user to
-     *             interact with the world via keyboard.
+     *             interact with the world via keyboard. An argument of the form --speed=X also starts
+     *             interactive mode, with the game running X times faster than real time ("max" for
+     *             as fast as possible). An argument of the form --replay=FILE replays the keys stored in
+     *             the file, which may be of any size, without rendering anything.
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         if (args.length > 1) {
             System.out.println("Can only have one argument - the input string");
             System.exit(0);
+        } else if (args.length == 1 && args[0].startsWith("--speed=")) {
+            World world = new World();
+            world.setClock(SimulationClock.parse(args[0].substring("--speed=".length())));
+            world.interactWithKeyboard();
+        } else if (args.length == 1 && args[0].startsWith("--replay=")) {
+            World world = new World();
+            try (CommandReader input = CommandReader.of(Path.of(args[0].substring("--replay=".length())))) {
+                world.getWorldFromInput(input);
+            }
         } else if (args.length == 1) {
             World world = new World();
             world.getWorldFromInput(args[0]);
@@ -0,0 +1,273 @@
+package core;
+
+import tileengine.TETile;
+import tileengine.Tileset;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The ParallelWorldGenerator class generates a world of rooms and hallways on several cores.
+ * The map is partitioned into a grid of rectangular regions, and every region gets its own
+ * SplittableRandom, split off one seed-derived generator in region order before any work
+ * starts. The work then runs in three steps:
+ * <ol>
+ *     <li>In parallel, every region places its rooms, draws them and connects them with a
+ *     minimum spanning tree of hallways, the same way World.connectRooms does. Rooms keep two
+ *     tiles away from the region's border, so a region only ever writes its own tiles.</li>
+ *     <li>The rooms of all regions are merged into one list, in region order.</li>
+ *     <li>Sequentially, every region is connected to its east and north neighbours by a
+ *     hallway between their closest rooms. These hallways use room centres, not random
+ *     points, so they need no random numbers.</li>
+ * </ol>
+ * No step depends on how regions are scheduled onto threads, so the result is identical for
+ * any parallelism, including 1.
+ */
+public class ParallelWorldGenerator {
+    /** The default width and height of a region in tiles. */
+    public static final int DEFAULT_REGION_SIZE = 40;
+    private static final int MIN_REGION_SIZE = 16;
+    private static final int MIN_ROOM = 4;
+    private static final int MAX_ROOM = 12;
+
+    private final long seed;
+    private final int regionSize;
+
+    /**
+     * Creates a generator.
+     *
+     * @param seed       The seed of the world.
+     * @param regionSize The target width and height of a region in tiles, at least 16.
+     */
+    public ParallelWorldGenerator(long seed, int regionSize) {
+        if (regionSize < MIN_REGION_SIZE) {
+            throw new IllegalArgumentException("regions must be at least " + MIN_REGION_SIZE + " tiles");
+        }
+        this.seed = seed;
+        this.regionSize = regionSize;
+    }
+
+    /**
+     * Generates a world into the given grid using the common ForkJoinPool.
+     *
+     * @param world The grid to fill, indexed [x][y]; its previous contents are overwritten.
+     * @return Every room of the world, in region order.
+     */
+    public List<Room> generate(TETile[][] world) {
+        return generate(world, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Generates a world into the given grid using the given pool.
+     *
+     * @param world The grid to fill, indexed [x][y]; its previous contents are overwritten.
+     * @param pool  The pool to place rooms on.
+     * @return Every room of the world, in region order.
+     */
+    public List<Room> generate(TETile[][] world, ForkJoinPool pool) {
+        int width = world.length;
+        int height = world[0].length;
+        int regionsX = Math.max(1, width / regionSize);
+        int regionsY = Math.max(1, height / regionSize);
+        if (width / regionsX < MIN_REGION_SIZE || height / regionsY < MIN_REGION_SIZE) {
+            throw new IllegalArgumentException("world is too small: " + width + "x" + height);
+        }
+        Region[] regions = new Region[regionsX * regionsY];
+        SplittableRandom root = new SplittableRandom(seed);
+        for (int rx = 0; rx < regionsX; rx++) {
+            for (int ry = 0; ry < regionsY; ry++) {
+                regions[rx * regionsY + ry] = new Region(rx * width / regionsX, ry * height / regionsY,
+                        (rx + 1) * width / regionsX, (ry + 1) * height / regionsY, root.split());
+            }
+        }
+
+        pool.invoke(new RegionTask(world, regions, 0, regions.length));
+
+        List<Room> rooms = new ArrayList<>();
+        for (Region region : regions) {
+            rooms.addAll(region.rooms);
+        }
+        for (int rx = 0; rx < regionsX; rx++) {
+            for (int ry = 0; ry < regionsY; ry++) {
+                Region region = regions[rx * regionsY + ry];
+                if (rx + 1 < regionsX) {
+                    connectRegions(world, region, regions[(rx + 1) * regionsY + ry]);
+                }
+                if (ry + 1 < regionsY) {
+                    connectRegions(world, region, regions[rx * regionsY + ry + 1]);
+                }
+            }
+        }
+        return rooms;
+    }
+
+    /**
+     * A rectangle of the map, from (x0, y0) inclusive to (x1, y1) exclusive, with its own
+     * random number generator and, once generated, its rooms.
+     */
+    private static class Region {
+        final int x0, y0, x1, y1;
+        final SplittableRandom random;
+        final List<Room> rooms = new ArrayList<>();
+
+        Region(int x0, int y0, int x1, int y1, SplittableRandom random) {
+            this.x0 = x0;
+            this.y0 = y0;
+            this.x1 = x1;
+            this.y1 = y1;
+            this.random = random;
+        }
+    }
+
+    /**
+     * Generates a range of regions, splitting the range in halves until one region is left.
+     */
+    private static class RegionTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final TETile[][] world;
+        private final Region[] regions;
+        private final int from, to;
+
+        RegionTask(TETile[][] world, Region[] regions, int from, int to) {
+            this.world = world;
+            this.regions = regions;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                generateRegion(world, regions[from]);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RegionTask(world, regions, from, mid), new RegionTask(world, regions, mid, to));
+        }
+    }
+
+    private static void generateRegion(TETile[][] world, Region region) {
+        for (int x = region.x0; x < region.x1; x++) {
+            Arrays.fill(world[x], region.y0, region.y1, Tileset.NOTHING);
+        }
+        SplittableRandom random = region.random;
+        int area = (region.x1 - region.x0) * (region.y1 - region.y0);
+        int target = Math.max(1, area / 300 + random.nextInt(3));
+        for (int attempt = 0; attempt < 100 && region.rooms.size() < target; attempt++) {
+            int roomWidth = random.nextInt(MIN_ROOM, MAX_ROOM);
+            int roomHeight = random.nextInt(MIN_ROOM, MAX_ROOM);
+            // Keep two tiles of space to the region edge so hallways never leave the region.
+            int left = random.nextInt(region.x0 + 2, region.x1 - 1 - roomWidth);
+            int bottom = random.nextInt(region.y0 + 2, region.y1 - 1 - roomHeight);
+            boolean free = true;
+            for (Room room : region.rooms) {
+                if (room.intersects(left, bottom, left + roomWidth, bottom + roomHeight)) {
+                    free = false;
+                    break;
+                }
+            }
+            if (free) {
+                Room room = new Room(left, bottom, roomHeight, roomWidth);
+                region.rooms.add(room);
+                drawRoom(world, room);
+            }
+        }
+
+        List<Room> rooms = region.rooms;
+        List<Edge> edges = new ArrayList<>();
+        for (int i = 0; i < rooms.size(); i++) {
+            for (int j = i + 1; j < rooms.size(); j++) {
+                edges.add(new Edge(rooms.get(i), rooms.get(j), rooms.get(i).distanceFromOtherRoom(rooms.get(j))));
+            }
+        }
+        Collections.sort(edges);
+        WeightedQuickUnion wqu = new WeightedQuickUnion(rooms.size());
+        for (Edge edge : edges) {
+            int r1 = rooms.indexOf(edge.getRoom1());
+            int r2 = rooms.indexOf(edge.getRoom2());
+            if (!wqu.connected(r1, r2)) {
+                wqu.union(r1, r2);
+                Room a = edge.getRoom1();
+                Room b = edge.getRoom2();
+                drawHallway(world,
+                        random.nextInt(a.left() + 1, a.right() - 1), random.nextInt(a.bottom() + 1, a.top() - 1),
+                        random.nextInt(b.left() + 1, b.right() - 1), random.nextInt(b.bottom() + 1, b.top() - 1));
+            }
+        }
+    }
+
+    /**
+     * Connects two neighbouring regions with a hallway between the centres of their two
+     * closest rooms. Ties go to the earlier rooms, so the choice is deterministic.
+     */
+    private static void connectRegions(TETile[][] world, Region a, Region b) {
+        Room bestA = null, bestB = null;
+        long best = Long.MAX_VALUE;
+        for (Room ra : a.rooms) {
+            for (Room rb : b.rooms) {
+                long dx = ra.centerX() - rb.centerX();
+                long dy = ra.centerY() - rb.centerY();
+                if (dx * dx + dy * dy < best) {
+                    best = dx * dx + dy * dy;
+                    bestA = ra;
+                    bestB = rb;
+                }
+            }
+        }
+        if (bestA != null) {
+            drawHallway(world, bestA.centerX(), bestA.centerY(), bestB.centerX(), bestB.centerY());
+        }
+    }
+
+    private static void drawRoom(TETile[][] world, Room room) {
+        for (int x = room.left(); x < room.right(); x++) {
+            for (int y = room.bottom(); y < room.top(); y++) {
+                boolean wall = x == room.left() || x == room.right() - 1
+                        || y == room.bottom() || y == room.top() - 1;
+                world[x][y] = wall ? Tileset.WALL_GRAY : Tileset.FLOOR;
+            }
+        }
+    }
+
+    /** Draws an L-shaped hallway, turning where World.drawHallway would turn. */
+    private static void drawHallway(TETile[][] world, int x0, int y0, int x1, int y1) {
+        boolean horizontal = Math.abs(x0 - x1) > Math.abs(y0 - y1);
+        int turnX = horizontal ? x1 : x0;
+        int turnY = horizontal ? y0 : y1;
+        drawStraight(world, x0, y0, turnX, turnY);
+        drawStraight(world, turnX, turnY, x1, y1);
+    }
+
+    private static void drawStraight(TETile[][] world, int x0, int y0, int x1, int y1) {
+        int stepX = Integer.signum(x1 - x0);
+        int stepY = Integer.signum(y1 - y0);
+        for (int x = x0, y = y0; ; x += stepX, y += stepY) {
+            drawHallwayTile(world, x, y);
+            if (x == x1 && y == y1) {
+                return;
+            }
+        }
+    }
+
+    /** Same rules as World.drawHallwayTile: carve through walls and wall in empty tiles. */
+    private static void drawHallwayTile(TETile[][] world, int x, int y) {
+        if (x <= 0 || x >= world.length - 1 || y <= 0 || y >= world[0].length - 1) {
+            return;
+        }
+        if (world[x][y] == Tileset.NOTHING || world[x][y] == Tileset.WALL_GRAY) {
+            world[x][y] = Tileset.FLOOR;
+            for (int i = -1; i <= 1; i++) {
+                for (int j = -1; j <= 1; j++) {
+                    if (world[x + i][y + j] == Tileset.NOTHING) {
+                        world[x + i][y + j] = Tileset.WALL_GRAY;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package core;
+
+import tileengine.TETile;
+
+import java.util.Arrays;
+
+/**
+ * The PathScheduler class spreads the enemies' path searches over ticks so that no tick spends
+ * more than a fixed number of A* expansions on them, however many enemies want a new path at
+ * once. Enemies ask for a path with request; every tick, run works through the requests, nearest
+ * enemy to the avatar first, and a search that does not fit in what is left of the budget is
+ * suspended and carried on in the next tick (see AStarPathFinder.continueSearch). Meanwhile the
+ * enemy keeps following its old path.
+ * <p>
+ * A search aims at where the avatar was when it started. When it finishes the path is only
+ * installed if the enemy is still on the tile it started from; otherwise the enemy is asked for
+ * again. The budget counts expansions rather than time, so a game replays the same way on any
+ * machine.
+ */
+public class PathScheduler {
+    /** A budget that lets a tick finish a couple of long searches on the default map. */
+    public static final int DEFAULT_BUDGET = 1024;
+
+    private final AStarPathFinder pathFinder;
+    private final int budget;
+    private boolean[] requested;
+    private int[] waiting;
+    private int waitingCount;
+    /** The enemy whose search is suspended, or -1. */
+    private int active;
+    private int activeX;
+    private int activeY;
+    private int lastExpansions;
+
+    /**
+     * Creates a scheduler with its own path finder.
+     *
+     * @param budget The most tiles to expand per call to run, at least 1.
+     */
+    public PathScheduler(int budget) {
+        if (budget < 1) {
+            throw new IllegalArgumentException("budget must be positive: " + budget);
+        }
+        this.budget = budget;
+        pathFinder = new AStarPathFinder();
+        requested = new boolean[8];
+        waiting = new int[8];
+        active = -1;
+    }
+
+    /**
+     * Returns the path finder the scheduler searches with, to set its connectivity index and
+     * terrain costs.
+     */
+    public AStarPathFinder getPathFinder() {
+        return pathFinder;
+    }
+
+    /**
+     * Returns the most tiles run expands per call.
+     */
+    public int getBudget() {
+        return budget;
+    }
+
+    /**
+     * Asks for a new path for an enemy. Asking again before the path is installed does nothing.
+     *
+     * @param entity The index of the enemy in the EntityStore.
+     */
+    public void request(int entity) {
+        if (entity >= requested.length) {
+            int capacity = Math.max(entity + 1, requested.length * 2);
+            requested = Arrays.copyOf(requested, capacity);
+            waiting = Arrays.copyOf(waiting, capacity);
+        }
+        if (requested[entity]) {
+            return;
+        }
+        requested[entity] = true;
+        if (entity != active) {
+            waiting[waitingCount++] = entity;
+        }
+    }
+
+    /**
+     * Returns the number of enemies waiting for a path, including the one being searched for.
+     */
+    public int pendingCount() {
+        return waitingCount + (active >= 0 ? 1 : 0);
+    }
+
+    /**
+     * Drops every request and the suspended search, for example when the game is restored to a
+     * snapshot.
+     */
+    public void clear() {
+        Arrays.fill(requested, false);
+        waitingCount = 0;
+        active = -1;
+    }
+
+    /**
+     * Searches for the waiting enemies until the budget of this tick is spent, installing each
+     * path found with EntityStore.setPath.
+     *
+     * @param world    The tiles of the world.
+     * @param entities The entities, whose enemies are the ones requested.
+     * @param goalX    The x-coordinate of the avatar.
+     * @param goalY    The y-coordinate of the avatar.
+     * @return The number of tiles expanded.
+     */
+    public int run(TETile[][] world, EntityStore entities, int goalX, int goalY) {
+        int left = budget;
+        while (left > 0) {
+            int result = AStarPathFinder.IN_PROGRESS;
+            if (active < 0) {
+                active = takeNearest(entities, goalX, goalY);
+                if (active < 0) {
+                    break;
+                }
+                activeX = entities.x(active);
+                activeY = entities.y(active);
+                result = pathFinder.startSearch(world, activeX, activeY, goalX, goalY);
+            }
+            if (result == AStarPathFinder.IN_PROGRESS) {
+                int before = pathFinder.getLastExpandedCount();
+                result = pathFinder.continueSearch(left);
+                left -= pathFinder.getLastExpandedCount() - before;
+            }
+            if (result != AStarPathFinder.IN_PROGRESS) {
+                finish(entities, result);
+            }
+        }
+        lastExpansions = budget - left;
+        return lastExpansions;
+    }
+
+    /**
+     * Returns the number of tiles the last call to run expanded.
+     */
+    public int getLastExpansions() {
+        return lastExpansions;
+    }
+
+    private void finish(EntityStore entities, int length) {
+        int e = active;
+        active = -1;
+        requested[e] = false;
+        if (e >= entities.size() || entities.kind(e) != EntityStore.ENEMY) {
+            return;
+        }
+        if (entities.x(e) != activeX || entities.y(e) != activeY) {
+            // The enemy moved on along its old path while the search ran.
+            request(e);
+            return;
+        }
+        entities.setPath(e, pathFinder.getPath(), length);
+    }
+
+    /**
+     * Removes and returns the waiting enemy nearest to the goal, or -1 if none is waiting.
+     */
+    private int takeNearest(EntityStore entities, int goalX, int goalY) {
+        int best = -1;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int k = 0; k < waitingCount; k++) {
+            int e = waiting[k];
+            if (e >= entities.size()) {
+                continue;
+            }
+            int distance = Math.abs(entities.x(e) - goalX) + Math.abs(entities.y(e) - goalY);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = k;
+            }
+        }
+        if (best < 0) {
+            // Only enemies that no longer exist are waiting.
+            clear();
+            return -1;
+        }
+        int e = waiting[best];
+        // Shift rather than swap, so enemies at equal distances are served in request order.
+        System.arraycopy(waiting, best + 1, waiting, best, waitingCount - best - 1);
+        waitingCount--;
+        return e;
+    }
+}
@@ -0,0 +1,207 @@
+package core;
+
+import tileengine.TETile;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The PathService class runs path searches on a pool of worker threads, so the game loop only
+ * hands out requests and picks up finished paths, and never waits for A*. Every worker thread
+ * keeps its own AStarPathFinder, whose buffers are reused from one request to the next.
+ * <p>
+ * Requests are tagged with the version of the world they were made for and with the agent they
+ * are for. A result is dropped, and its future cancelled, if by the time it is ready the world
+ * has moved on to another version (setWorldVersion) or the same agent has asked for a newer
+ * path, typically towards a goal that has moved since. Dropped requests that have not started
+ * yet are not searched at all.
+ * <p>
+ * Workers read the grid while the game goes on, so the grid passed to request must not change
+ * its walls until the world version changes. World passes its generated ground, which never
+ * changes after generation.
+ */
+public class PathService implements AutoCloseable {
+    /**
+     * A finished search.
+     *
+     * @param agent        The agent the path is for.
+     * @param worldVersion The world version the request was made for.
+     * @param tiles        The path as grid indices x * height + y from start to goal, empty if
+     *                     there is no path.
+     */
+    public record Result(int agent, long worldVersion, int[] tiles) {
+    }
+
+    /** A request waiting for or going through a search. */
+    private static final class Request {
+        final TETile[][] grid;
+        final long worldVersion;
+        final int agent;
+        final int startX, startY, goalX, goalY;
+        final CompletableFuture<Result> future = new CompletableFuture<>();
+
+        Request(TETile[][] grid, long worldVersion, int agent, int startX, int startY, int goalX, int goalY) {
+            this.grid = grid;
+            this.worldVersion = worldVersion;
+            this.agent = agent;
+            this.startX = startX;
+            this.startY = startY;
+            this.goalX = goalX;
+            this.goalY = goalY;
+        }
+    }
+
+    private final Executor executor;
+    private final ExecutorService ownPool;
+    private final ThreadLocal<AStarPathFinder> finders = ThreadLocal.withInitial(AStarPathFinder::new);
+    private final ConcurrentHashMap<Integer, Request> latest = new ConcurrentHashMap<>();
+    private volatile long worldVersion;
+    private volatile TerrainCosts terrainCosts;
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Creates a service with its own pool of daemon worker threads.
+     *
+     * @param threads The number of worker threads.
+     */
+    public PathService(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("need at least one thread: " + threads);
+        }
+        AtomicLong count = new AtomicLong();
+        ownPool = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "path-service-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor = ownPool;
+    }
+
+    /**
+     * Creates a service that runs its searches on the given executor, for example a pool shared
+     * with other work. Closing the service does not shut the executor down.
+     *
+     * @param executor The executor.
+     */
+    public PathService(Executor executor) {
+        this.executor = executor;
+        this.ownPool = null;
+    }
+
+    /**
+     * Returns the number of worker threads a service should use by default: one per core but
+     * the one the game loop runs on.
+     */
+    public static int defaultThreads() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    /**
+     * Sets the current world version. Requests made for any other version are dropped.
+     *
+     * @param version The version.
+     */
+    public void setWorldVersion(long version) {
+        this.worldVersion = version;
+    }
+
+    /**
+     * Returns the current world version.
+     */
+    public long getWorldVersion() {
+        return worldVersion;
+    }
+
+    /**
+     * Makes searches started from now on weigh steps by the given costs.
+     *
+     * @param costs The costs, or null for every walkable tile to cost 1.
+     */
+    public void setTerrainCosts(TerrainCosts costs) {
+        this.terrainCosts = costs;
+    }
+
+    /**
+     * Asks for the shortest path from the start to the goal. A newer request for the same agent
+     * makes this one stale.
+     *
+     * @param grid         The tiles to search, whose walls must not change.
+     * @param worldVersion The world version the request is made for.
+     * @param agent        The agent, for example the index of an enemy.
+     * @param startX       The x-coordinate of the start.
+     * @param startY       The y-coordinate of the start.
+     * @param goalX        The x-coordinate of the goal.
+     * @param goalY        The y-coordinate of the goal.
+     * @return A future for the path, cancelled if the request turns stale.
+     */
+    public CompletableFuture<Result> request(TETile[][] grid, long worldVersion, int agent,
+                                             int startX, int startY, int goalX, int goalY) {
+        Request request = new Request(grid, worldVersion, agent, startX, startY, goalX, goalY);
+        latest.put(agent, request);
+        executor.execute(() -> run(request));
+        return request.future;
+    }
+
+    private void run(Request request) {
+        if (isStale(request)) {
+            drop(request);
+            return;
+        }
+        try {
+            AStarPathFinder finder = finders.get();
+            finder.setTerrainCosts(terrainCosts);
+            int length = finder.search(request.grid, request.startX, request.startY, request.goalX, request.goalY);
+            int[] tiles = Arrays.copyOf(finder.getPath(), length);
+            if (isStale(request)) {
+                drop(request);
+                return;
+            }
+            latest.remove(request.agent, request);
+            completed.incrementAndGet();
+            request.future.complete(new Result(request.agent, request.worldVersion, tiles));
+        } catch (RuntimeException e) {
+            latest.remove(request.agent, request);
+            request.future.completeExceptionally(e);
+        }
+    }
+
+    private boolean isStale(Request request) {
+        return request.worldVersion != worldVersion || latest.get(request.agent) != request;
+    }
+
+    private void drop(Request request) {
+        latest.remove(request.agent, request);
+        dropped.incrementAndGet();
+        request.future.cancel(false);
+    }
+
+    /**
+     * Returns the number of requests that delivered a path, or found there is none.
+     */
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    /**
+     * Returns the number of requests dropped as stale.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Stops the service's own worker threads. Requests still waiting are never completed.
+     */
+    @Override
+    public void close() {
+        if (ownPool != null) {
+            ownPool.shutdownNow();
+        }
+    }
+}
@@ -62,4 +62,13 @@ public class Point {
     public boolean equals(Object obj) {
         return obj instanceof Point && this.x == ((Point) obj).x && this.y == ((Point) obj).y;
     }
+
+    /**
+     * Returns a hash code consistent with equals. Points are mutable, so a point must not be
+     * moved while it is a key in a hash-based collection.
+     */
+    @Override
+    public int hashCode() {
+        return 31 * x + y;
+    }
 }
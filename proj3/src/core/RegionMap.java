@@ -0,0 +1,225 @@
+package core;
+
+import tileengine.TETile;
+import tileengine.Tileset;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * The RegionMap class tells which room or hallway every tile of a generated world belongs to,
+ * and which rooms each hallway links. It is built once from the finished layout and never
+ * changes, so room-level questions (which room is the avatar in, which rooms border this one)
+ * cost one array lookup instead of a scan over the rooms.
+ * <p>
+ * Regions are numbered densely: room i of the world's room list is region i, and the hallways
+ * follow as regions roomCount() and up. A hallway is a maximal 4-connected run of walkable
+ * tiles outside every room, so two hallways that cross are one region, and a hallway that
+ * passes through a room is two. A hallway links every room it opens into through a doorway.
+ * Walls outside rooms and empty tiles belong to no region.
+ * <p>
+ * The layout is read rather than recorded while it is drawn, so the map describes the
+ * connections that actually exist, whichever generator produced them.
+ */
+public class RegionMap {
+    /** The region of tiles that belong to no room or hallway. */
+    public static final int NONE = -1;
+    private static final int[] EMPTY = new int[0];
+
+    private final int height;
+    private final int[] regions;
+    private final List<Room> rooms;
+    private final int regionCount;
+    /** Per region: the linked regions, rooms for a hallway and hallways for a room, ascending. */
+    private final int[][] links;
+    /** Per room: the rooms one hallway away, ascending. */
+    private final int[][] neighbours;
+
+    private RegionMap(int height, int[] regions, List<Room> rooms, int regionCount, int[][] links,
+                      int[][] neighbours) {
+        this.height = height;
+        this.regions = regions;
+        this.rooms = rooms;
+        this.regionCount = regionCount;
+        this.links = links;
+        this.neighbours = neighbours;
+    }
+
+    /**
+     * Builds the map of a generated world.
+     *
+     * @param world The tiles, indexed [x][y], right after generation.
+     * @param rooms The rooms of the world; their order defines the room regions.
+     * @return The region map.
+     */
+    public static RegionMap build(TETile[][] world, List<Room> rooms) {
+        int width = world.length;
+        int height = world[0].length;
+        int[] regions = new int[width * height];
+        Arrays.fill(regions, NONE);
+        for (int r = 0; r < rooms.size(); r++) {
+            Room room = rooms.get(r);
+            for (int x = Math.max(0, room.left()); x < Math.min(width, room.right()); x++) {
+                for (int y = Math.max(0, room.bottom()); y < Math.min(height, room.top()); y++) {
+                    regions[x * height + y] = r;
+                }
+            }
+        }
+
+        // Flood fill the walkable tiles outside rooms, one hallway at a time.
+        int next = rooms.size();
+        int[] queue = new int[width * height];
+        for (int start = 0; start < regions.length; start++) {
+            if (regions[start] != NONE || !isWalkable(world[start / height][start % height])) {
+                continue;
+            }
+            int hallway = next++;
+            regions[start] = hallway;
+            int head = 0, tail = 0;
+            queue[tail++] = start;
+            while (head < tail) {
+                int tile = queue[head++];
+                int x = tile / height, y = tile % height;
+                for (int d = 0; d < 4; d++) {
+                    int nx = x + (d == 0 ? -1 : d == 1 ? 1 : 0);
+                    int ny = y + (d == 2 ? -1 : d == 3 ? 1 : 0);
+                    if (nx < 0 || nx >= width || ny < 0 || ny >= height) {
+                        continue;
+                    }
+                    int n = nx * height + ny;
+                    if (regions[n] == NONE && isWalkable(world[nx][ny])) {
+                        regions[n] = hallway;
+                        queue[tail++] = n;
+                    }
+                }
+            }
+        }
+
+        // A hallway tile next to a walkable room tile is a doorway between the two.
+        List<TreeSet<Integer>> linkSets = new ArrayList<>(next);
+        for (int r = 0; r < next; r++) {
+            linkSets.add(new TreeSet<>());
+        }
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                int region = regions[x * height + y];
+                if (region < rooms.size()) {
+                    continue;
+                }
+                for (int d = 0; d < 4; d++) {
+                    int nx = x + (d == 0 ? -1 : d == 1 ? 1 : 0);
+                    int ny = y + (d == 2 ? -1 : d == 3 ? 1 : 0);
+                    if (nx < 0 || nx >= width || ny < 0 || ny >= height) {
+                        continue;
+                    }
+                    int other = regions[nx * height + ny];
+                    if (other != NONE && other < rooms.size() && isWalkable(world[nx][ny])) {
+                        linkSets.get(region).add(other);
+                        linkSets.get(other).add(region);
+                    }
+                }
+            }
+        }
+        int[][] links = new int[next][];
+        for (int r = 0; r < next; r++) {
+            links[r] = toArray(linkSets.get(r));
+        }
+        int[][] neighbours = new int[rooms.size()][];
+        for (int r = 0; r < rooms.size(); r++) {
+            TreeSet<Integer> adjacent = new TreeSet<>();
+            for (int hallway : links[r]) {
+                for (int other : links[hallway]) {
+                    if (other != r) {
+                        adjacent.add(other);
+                    }
+                }
+            }
+            neighbours[r] = toArray(adjacent);
+        }
+        return new RegionMap(height, regions, List.copyOf(rooms), next, links, neighbours);
+    }
+
+    /**
+     * Returns the region of a tile: a room index, a hallway region, or NONE.
+     *
+     * @param x The x-coordinate of the tile.
+     * @param y The y-coordinate of the tile.
+     */
+    public int regionAt(int x, int y) {
+        return regions[x * height + y];
+    }
+
+    /**
+     * Returns the room a tile is in, walls included, or null if it is in none.
+     *
+     * @param x The x-coordinate of the tile.
+     * @param y The y-coordinate of the tile.
+     */
+    public Room roomAt(int x, int y) {
+        int region = regionAt(x, y);
+        return region >= 0 && region < rooms.size() ? rooms.get(region) : null;
+    }
+
+    /**
+     * Returns true if the region is a room, false if it is a hallway or NONE.
+     */
+    public boolean isRoom(int region) {
+        return region >= 0 && region < rooms.size();
+    }
+
+    /**
+     * Returns the room of a room region.
+     */
+    public Room room(int region) {
+        return rooms.get(region);
+    }
+
+    /**
+     * Returns the number of rooms.
+     */
+    public int roomCount() {
+        return rooms.size();
+    }
+
+    /**
+     * Returns the number of regions, rooms and hallways together.
+     */
+    public int regionCount() {
+        return regionCount;
+    }
+
+    /**
+     * Returns the hallways that open into a room, or for a hallway, the rooms it opens into,
+     * in ascending order. The array must not be modified.
+     *
+     * @param region A room or hallway region.
+     */
+    public int[] links(int region) {
+        return region == NONE ? EMPTY : links[region];
+    }
+
+    /**
+     * Returns the rooms a hallway away from a room, in ascending order. This is the room
+     * adjacency graph; the array must not be modified.
+     *
+     * @param room A room region.
+     */
+    public int[] neighbours(int room) {
+        return neighbours[room];
+    }
+
+    private static boolean isWalkable(TETile tile) {
+        return tile != null && tile != Tileset.WALL_GRAY && tile != Tileset.NOTHING;
+    }
+
+    private static int[] toArray(TreeSet<Integer> set) {
+        int[] array = new int[set.size()];
+        int i = 0;
+        for (int value : set) {
+            array[i++] = value;
+        }
+        return array;
+    }
+}
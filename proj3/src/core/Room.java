@@ -1,16 +1,22 @@
 package core;
 
+import utils.Coords;
 import utils.RandomUtils;
 
-import java.util.Random;
+import java.util.random.RandomGenerator;
 
 /**
  * The Room object is used to represent a single room in the 2D world.
  * All Room objects have height, width, and points representing the bottom left and top right points
+ * <p>
+ * The corners are kept as plain ints so that world generation can test and draw rooms without
+ * going through Point objects; the Point getters are only there for callers outside the generator.
  */
 public class Room {
-    private final Point bottomLeft;
-    private final Point topRight;
+    private final int left;
+    private final int bottom;
+    private final int right;
+    private final int top;
     private final int heigth;
     private final int width;
 
@@ -22,8 +28,22 @@ public class Room {
      * @param width      The widht of the room
      */
     public Room(Point bottomLeft, int heigth, int width) {
-        this.bottomLeft = bottomLeft;
-        this.topRight = new Point(getBottomLeft().getX() + width, getBottomLeft().getY() + heigth);
+        this(bottomLeft.getX(), bottomLeft.getY(), heigth, width);
+    }
+
+    /**
+     * Constructs a room from the coordinates of its bottom left corner.
+     *
+     * @param left   The x-coordinate of the room's bottom left corner
+     * @param bottom The y-coordinate of the room's bottom left corner
+     * @param heigth The height of the room
+     * @param width  The width of the room
+     */
+    public Room(int left, int bottom, int heigth, int width) {
+        this.left = left;
+        this.bottom = bottom;
+        this.right = left + width;
+        this.top = bottom + heigth;
         this.heigth = heigth;
         this.width = width;
     }
@@ -32,24 +52,63 @@ public class Room {
      * Return the bottom left point of the room
      */
     public Point getBottomLeft() {
-        return bottomLeft;
+        return new Point(left, bottom);
     }
 
     /**
      * Return the top right point of the room
      */
     public Point getTopRight() {
-        return topRight;
+        return new Point(right, top);
     }
 
     /**
      * Return the middle point of the room
      */
     public Point getCenter() {
-        int x = (getTopRight().getX() + getBottomLeft().getX()) / 2;
-        int y = (getTopRight().getY() + getBottomLeft().getY()) / 2;
+        return new Point(centerX(), centerY());
+    }
+
+    /**
+     * Returns the x-coordinate of the bottom left corner
+     */
+    public int left() {
+        return left;
+    }
+
+    /**
+     * Returns the y-coordinate of the bottom left corner
+     */
+    public int bottom() {
+        return bottom;
+    }
+
+    /**
+     * Returns the x-coordinate of the top right corner, one past the room's right wall
+     */
+    public int right() {
+        return right;
+    }
+
+    /**
+     * Returns the y-coordinate of the top right corner, one past the room's top wall
+     */
+    public int top() {
+        return top;
+    }
+
+    /**
+     * Returns the x-coordinate of the middle of the room
+     */
+    public int centerX() {
+        return (right + left) / 2;
+    }
 
-        return new Point(x, y);
+    /**
+     * Returns the y-coordinate of the middle of the room
+     */
+    public int centerY() {
+        return (top + bottom) / 2;
     }
 
     /**
@@ -58,8 +117,8 @@ public class Room {
      * @param other The Room object
      */
     public int distanceFromOtherRoom(Room other) {
-        int xDiff = getCenter().getX() - other.getCenter().getX();
-        int yDiff = getCenter().getY() - other.getCenter().getY();
+        int xDiff = centerX() - other.centerX();
+        int yDiff = centerY() - other.centerY();
         double dist = Math.sqrt(xDiff * xDiff + yDiff * yDiff);
 
         return (int) Math.round(dist);
@@ -72,23 +131,44 @@ public class Room {
      */
 
     public boolean intersects(Room other) {
-        return (getBottomLeft().getX() <= other.getTopRight().getX()
-                && getTopRight().getX() >= other.getBottomLeft().getX()
-                && getBottomLeft().getY() <= other.getTopRight().getY()
-                && getTopRight().getY() >= other.getBottomLeft().getY());
+        return intersects(other.left, other.bottom, other.right, other.top);
+    }
+
+    /**
+     * Checks whether a rectangle, given by its corners, intersects with this room
+     *
+     * @param otherLeft   The x-coordinate of the rectangle's bottom left corner
+     * @param otherBottom The y-coordinate of the rectangle's bottom left corner
+     * @param otherRight  The x-coordinate of the rectangle's top right corner
+     * @param otherTop    The y-coordinate of the rectangle's top right corner
+     */
+    public boolean intersects(int otherLeft, int otherBottom, int otherRight, int otherTop) {
+        return left <= otherRight && right >= otherLeft && bottom <= otherTop && top >= otherBottom;
     }
 
     /**
      * Retrieves a random point within the given room that is not a wall.
      *
-     * @param rand Random object
+     * @param rand Random number generator
      * @return A random point within the room.
      */
-    public Point getRandomPointInRoom(Random rand) {
-        int x = RandomUtils.uniform(rand, getBottomLeft().getX() + 1, getTopRight().getX() - 1);
-        int y = RandomUtils.uniform(rand, getBottomLeft().getY() + 1, getTopRight().getY() - 1);
+    public Point getRandomPointInRoom(RandomGenerator rand) {
+        long tile = randomTileInRoom(rand);
+        return new Point(Coords.x(tile), Coords.y(tile));
+    }
+
+    /**
+     * Retrieves a random tile within the given room that is not a wall, packed with Coords.pack.
+     * Draws from rand exactly like getRandomPointInRoom.
+     *
+     * @param rand Random number generator
+     * @return A random packed coordinate within the room.
+     */
+    public long randomTileInRoom(RandomGenerator rand) {
+        int x = RandomUtils.uniform(rand, left + 1, right - 1);
+        int y = RandomUtils.uniform(rand, bottom + 1, top - 1);
 
-        return new Point(x, y);
+        return Coords.pack(x, y);
     }
 
 }
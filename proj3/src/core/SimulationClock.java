@@ -0,0 +1,183 @@
+package core;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The SimulationClock class paces the simulation thread. Game logic only ever counts ticks, each
+ * standing for TICK_NANOS of game time, so the clock decides how fast the game runs without
+ * changing what happens in it:
+ * <ul>
+ *     <li>real time runs one tick every TICK_NANOS of wall-clock time,</li>
+ *     <li>scaled runs the same ticks a fixed factor faster or slower, and</li>
+ *     <li>unthrottled runs the next tick as soon as the previous one is done.</li>
+ * </ul>
+ * A run with the same seed and the same keys on the same ticks plays out identically in every
+ * mode. Clocks read and wait on a TimeSource, System.nanoTime by default.
+ */
+public class SimulationClock {
+    /** The number of ticks per second of game time. */
+    public static final int TICKS_PER_SECOND = 60;
+    /** The length of one tick in game time. */
+    public static final long TICK_NANOS = 1_000_000_000L / TICKS_PER_SECOND;
+
+    /**
+     * How the clock maps game time onto wall-clock time.
+     */
+    public enum Mode {
+        REAL_TIME, SCALED, UNTHROTTLED
+    }
+
+    /**
+     * Where a clock reads the time and how it waits for it to pass. Tests pace clocks with a
+     * source whose time only moves when they move it.
+     */
+    public interface TimeSource {
+        /** Reads System.nanoTime and waits with LockSupport.parkNanos. */
+        TimeSource SYSTEM = new TimeSource() {
+            @Override
+            public long nanoTime() {
+                return System.nanoTime();
+            }
+
+            @Override
+            public void parkNanos(long nanos) {
+                LockSupport.parkNanos(nanos);
+            }
+        };
+
+        /**
+         * Returns the current time in nanoseconds from an arbitrary origin.
+         */
+        long nanoTime();
+
+        /**
+         * Waits for about the given number of nanoseconds.
+         */
+        void parkNanos(long nanos);
+    }
+
+    private final Mode mode;
+    private final double scale;
+    private final long periodNanos;
+    private final TimeSource time;
+    private long nextTick;
+    private boolean running;
+
+    private SimulationClock(Mode mode, double scale, TimeSource time) {
+        this.mode = mode;
+        this.scale = scale;
+        this.periodNanos = mode == Mode.UNTHROTTLED ? 0 : Math.max(1, Math.round(TICK_NANOS / scale));
+        this.time = time;
+    }
+
+    /**
+     * Returns a clock that runs one tick per TICK_NANOS of wall-clock time.
+     */
+    public static SimulationClock realTime() {
+        return realTime(TimeSource.SYSTEM);
+    }
+
+    /**
+     * Returns a clock that runs one tick per TICK_NANOS of the given source's time.
+     *
+     * @param time The source to read and wait on.
+     */
+    public static SimulationClock realTime(TimeSource time) {
+        return new SimulationClock(Mode.REAL_TIME, 1.0, time);
+    }
+
+    /**
+     * Returns a clock that runs the game the given factor faster than real time, so 2 plays a
+     * minute of game time in 30 seconds and 0.5 in two minutes.
+     *
+     * @param factor The speed-up, greater than 0.
+     */
+    public static SimulationClock scaled(double factor) {
+        return scaled(factor, TimeSource.SYSTEM);
+    }
+
+    /**
+     * Returns a clock that runs the game the given factor faster than the given source's time.
+     *
+     * @param factor The speed-up, greater than 0.
+     * @param time   The source to read and wait on.
+     */
+    public static SimulationClock scaled(double factor, TimeSource time) {
+        if (!(factor > 0) || Double.isInfinite(factor)) {
+            throw new IllegalArgumentException("time scale must be positive and finite: " + factor);
+        }
+        return new SimulationClock(Mode.SCALED, factor, time);
+    }
+
+    /**
+     * Returns a clock that never waits between ticks.
+     */
+    public static SimulationClock unthrottled() {
+        return new SimulationClock(Mode.UNTHROTTLED, Double.POSITIVE_INFINITY, TimeSource.SYSTEM);
+    }
+
+    /**
+     * Parses a clock from a command line value: "1" or "realtime", a factor such as "2" or
+     * "10", or "max" for unthrottled.
+     *
+     * @param value The value to parse.
+     * @return The matching clock.
+     */
+    public static SimulationClock parse(String value) {
+        String v = value.trim().toLowerCase();
+        if (v.equals("max") || v.equals("unthrottled")) {
+            return unthrottled();
+        }
+        if (v.equals("realtime") || v.equals("1") || v.equals("1x")) {
+            return realTime();
+        }
+        return scaled(Double.parseDouble(v.endsWith("x") ? v.substring(0, v.length() - 1) : v));
+    }
+
+    /**
+     * Returns the mode of this clock.
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Returns how many times faster than real time the clock runs; infinite if unthrottled.
+     */
+    public double getScale() {
+        return scale;
+    }
+
+    /**
+     * Waits until the next tick is due, one period after the previous call returned. When the
+     * caller falls behind, the clock starts counting again from now instead of running a burst of
+     * ticks to catch up.
+     */
+    public void awaitNextTick() {
+        if (mode == Mode.UNTHROTTLED) {
+            return;
+        }
+        long now = time.nanoTime();
+        if (!running) {
+            running = true;
+            nextTick = now;
+        }
+        nextTick += periodNanos;
+        long wait = nextTick - now;
+        if (wait > 0) {
+            time.parkNanos(wait);
+        } else {
+            nextTick = now;
+        }
+    }
+
+    /**
+     * Converts a duration of game time into a whole number of ticks, rounding up.
+     *
+     * @param millis The duration in milliseconds.
+     * @return The number of ticks, at least 1.
+     */
+    public static int ticksFor(long millis) {
+        return (int) Math.max(1, (millis * 1_000_000L + TICK_NANOS - 1) / TICK_NANOS);
+    }
+}
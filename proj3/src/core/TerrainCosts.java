@@ -0,0 +1,78 @@
+package core;
+
+import tileengine.TETile;
+import tileengine.TileRegistry;
+import tileengine.Tileset;
+
+import java.util.Arrays;
+
+/**
+ * The TerrainCosts class is a table of what it costs to step onto each kind of tile, for
+ * AStarPathFinder searches over terrain. Costs are held in an int array indexed by TileRegistry
+ * id, so a lookup is a field read and an array access. Tiles outside the registry, such as color
+ * variants, all share one cost.
+ * <p>
+ * A cost of IMPASSABLE means the tile cannot be entered. Every other cost is at least 1.
+ */
+public final class TerrainCosts {
+    /** The cost of a tile that cannot be entered. */
+    public static final int IMPASSABLE = 0;
+
+    private final int[] costs;
+    private final int unregisteredCost;
+    private final int minimumCost;
+
+    /**
+     * Creates a cost table.
+     *
+     * @param costs            The cost of every registered tile, indexed by TileRegistry id.
+     * @param unregisteredCost The cost of tiles outside the registry.
+     */
+    public TerrainCosts(int[] costs, int unregisteredCost) {
+        if (costs.length != TileRegistry.size()) {
+            throw new IllegalArgumentException("need one cost per registered tile, got " + costs.length);
+        }
+        this.costs = costs.clone();
+        this.unregisteredCost = unregisteredCost;
+        int minimum = unregisteredCost == IMPASSABLE ? Integer.MAX_VALUE : unregisteredCost;
+        for (int cost : this.costs) {
+            if (cost < 0) {
+                throw new IllegalArgumentException("negative cost " + cost);
+            }
+            if (cost != IMPASSABLE) {
+                minimum = Math.min(minimum, cost);
+            }
+        }
+        this.minimumCost = minimum == Integer.MAX_VALUE ? 1 : minimum;
+    }
+
+    /**
+     * Returns the default table: walls are impassable, sand costs 2, water 4, mountains 8 and
+     * every other tile 1.
+     */
+    public static TerrainCosts defaults() {
+        int[] costs = new int[TileRegistry.size()];
+        Arrays.fill(costs, 1);
+        costs[TileRegistry.idOf(Tileset.WALL_GRAY)] = IMPASSABLE;
+        costs[TileRegistry.idOf(Tileset.SAND)] = 2;
+        costs[TileRegistry.idOf(Tileset.WATER)] = 4;
+        costs[TileRegistry.idOf(Tileset.MOUNTAIN)] = 8;
+        return new TerrainCosts(costs, 1);
+    }
+
+    /**
+     * Returns the cost of stepping onto a tile, or IMPASSABLE.
+     */
+    public int costOf(TETile tile) {
+        int id = TileRegistry.idOf(tile);
+        return id < 0 ? unregisteredCost : costs[id];
+    }
+
+    /**
+     * Returns the smallest cost of any tile that can be entered, which times the Manhattan
+     * distance is an admissible and consistent A* heuristic.
+     */
+    public int minimumCost() {
+        return minimumCost;
+    }
+}
@@ -0,0 +1,94 @@
+package core;
+
+import tileengine.TETile;
+import tileengine.Tileset;
+
+/**
+ * The TerrainGenerator class covers the floor of a generated world with terrain: grass, sand,
+ * water and mountains. It samples two octaves of value noise, so terrain forms patches that
+ * spread across rooms and hallways instead of speckling them, and turns the value at each floor
+ * tile into a terrain by thresholds.
+ * <p>
+ * The noise depends only on the seed and the tile, not on the world's random generator, so
+ * enabling terrain leaves the layout, the avatar and the entities exactly where they were.
+ */
+public class TerrainGenerator {
+    /** The distance between lattice points of the coarse octave, in tiles. */
+    private static final int SCALE = 12;
+
+    private final long seed;
+
+    /**
+     * Creates a generator.
+     *
+     * @param seed The seed of the world.
+     */
+    public TerrainGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Replaces every FLOOR tile of the world with the terrain at its position. Other tiles are
+     * left alone.
+     *
+     * @param world The generated world, indexed [x][y].
+     */
+    public void paint(TETile[][] world) {
+        for (int x = 0; x < world.length; x++) {
+            for (int y = 0; y < world[0].length; y++) {
+                if (world[x][y] == Tileset.FLOOR) {
+                    world[x][y] = terrainAt(x, y);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the terrain of a tile.
+     */
+    public TETile terrainAt(int x, int y) {
+        double n = 0.7 * noise(x, y, SCALE, 0) + 0.3 * noise(x, y, SCALE / 3, 1);
+        if (n < 0.22) {
+            return Tileset.WATER;
+        } else if (n < 0.32) {
+            return Tileset.SAND;
+        } else if (n < 0.58) {
+            return Tileset.FLOOR;
+        } else if (n < 0.76) {
+            return Tileset.GRASS;
+        }
+        return Tileset.MOUNTAIN;
+    }
+
+    /**
+     * Returns value noise in [0, 1): random values at the points of a lattice with the given
+     * spacing, blended between the four points around (x, y) with a smoothstep.
+     */
+    private double noise(int x, int y, int spacing, int octave) {
+        int cx = Math.floorDiv(x, spacing);
+        int cy = Math.floorDiv(y, spacing);
+        double fx = smooth((x - cx * (double) spacing) / spacing);
+        double fy = smooth((y - cy * (double) spacing) / spacing);
+        double bottom = lerp(lattice(cx, cy, octave), lattice(cx + 1, cy, octave), fx);
+        double top = lerp(lattice(cx, cy + 1, octave), lattice(cx + 1, cy + 1, octave), fx);
+        return lerp(bottom, top, fy);
+    }
+
+    private double lattice(int cx, int cy, int octave) {
+        long h = seed ^ (cx * 0x9E3779B97F4A7C15L) ^ (cy * 0xC2B2AE3D27D4EB4FL) ^ (octave * 0x165667B19E3779F9L);
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (h >>> 11) * 0x1.0p-53;
+    }
+
+    private static double smooth(double t) {
+        return t * t * (3 - 2 * t);
+    }
+
+    private static double lerp(double a, double b, double t) {
+        return a + (b - a) * t;
+    }
+}
@@ -0,0 +1,80 @@
+package core;
+
+import tileengine.TEImageRenderer;
+import tileengine.TETile;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+/**
+ * The ThumbnailGallery class renders the worlds of a range of seeds to PNG files without opening
+ * a window. Seeds are generated and rendered in parallel on all available cores, which makes it
+ * cheap to eyeball thousands of worlds after a change to world generation.
+ */
+public class ThumbnailGallery {
+    private final File outputDir;
+    private final TEImageRenderer renderer;
+
+    /**
+     * Full constructor for ThumbnailGallery objects.
+     *
+     * @param outputDir The directory the PNG files are written to. It is created if missing.
+     * @param tileSize  Pixels per tile, 1 to 4 for thumbnails or 16 for full size.
+     */
+    public ThumbnailGallery(File outputDir, int tileSize) {
+        this.outputDir = outputDir;
+        this.renderer = new TEImageRenderer(tileSize);
+    }
+
+    /**
+     * Generates and writes the world of every seed in [firstSeed, firstSeed + count).
+     * Each world is written to "seed-[seed].png" inside the output directory.
+     *
+     * @param firstSeed The first seed to render.
+     * @param count     The number of consecutive seeds to render.
+     * @return The number of files written.
+     */
+    public int renderSeeds(long firstSeed, int count) {
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IllegalArgumentException("cannot create directory " + outputDir);
+        }
+        AtomicInteger written = new AtomicInteger();
+        LongStream.range(firstSeed, firstSeed + count).parallel().forEach(seed -> {
+            renderer.writePng(generate(seed), new File(outputDir, "seed-" + seed + ".png"));
+            written.incrementAndGet();
+        });
+        return written.get();
+    }
+
+    /**
+     * Generates the world for a seed exactly as a new game started with that seed would.
+     *
+     * @param seed The seed of the world.
+     * @return The generated world.
+     */
+    public static TETile[][] generate(long seed) {
+        return new World().getWorldFromInput("n" + seed + "s");
+    }
+
+    /**
+     * Renders a range of seeds to PNG files.
+     *
+     * @param args The output directory, the first seed, the number of seeds and optionally
+     *             the number of pixels per tile (defaults to 2).
+     */
+    public static void main(String[] args) {
+        if (args.length < 3 || args.length > 4) {
+            System.out.println("Usage: ThumbnailGallery <output dir> <first seed> <count> [tile size]");
+            System.exit(0);
+        }
+        System.setProperty("java.awt.headless", "true");
+        int tileSize = args.length == 4 ? Integer.parseInt(args[3]) : 2;
+        ThumbnailGallery gallery = new ThumbnailGallery(new File(args[0]), tileSize);
+
+        long start = System.nanoTime();
+        int written = gallery.renderSeeds(Long.parseLong(args[1]), Integer.parseInt(args[2]));
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Wrote " + written + " worlds to " + args[0] + " in " + millis + " ms");
+    }
+}
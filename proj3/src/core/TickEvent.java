@@ -0,0 +1,29 @@
+package core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * The TickEvent class is a Java Flight Recorder event committed once per simulation tick.
+ * It is the simulation-side counterpart of FrameEvent.
+ */
+@Name("byow.Tick")
+@Label("Simulation Tick")
+@Category("BYOW")
+@Description("Timings of one simulation tick")
+class TickEvent extends Event {
+    @Label("Enemy Move")
+    @Timespan(Timespan.NANOSECONDS)
+    long moveEnemyNanos;
+
+    @Label("Path Search")
+    @Timespan(Timespan.NANOSECONDS)
+    long findPathNanos;
+
+    @Label("A* Nodes Expanded")
+    int nodesExpanded;
+}
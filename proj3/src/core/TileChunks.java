@@ -0,0 +1,140 @@
+package core;
+
+import tileengine.TETile;
+
+/**
+ * The TileChunks class turns a mutable tile grid into a sequence of persistent snapshots. The
+ * grid is divided into square chunks of CHUNK_SIZE tiles. Every write to the grid marks its
+ * chunk dirty, and capturing a snapshot copies only the dirty chunks; every other chunk is
+ * shared, by reference, with the snapshot captured before. Chunks are never written once they
+ * belong to a snapshot, so any number of snapshots and forked worlds can share them.
+ * <p>
+ * A snapshot is a table of chunk references, one per chunk. Capturing costs one copy per dirty
+ * chunk plus copying that small table (about a hundred references for the default world);
+ * restoring copies back only the chunks that differ from the grid's current contents.
+ */
+public class TileChunks {
+    /** The width and height of a chunk in tiles. */
+    public static final int CHUNK_SIZE = 8;
+    private static final int SHIFT = 3;
+
+    private final int width;
+    private final int height;
+    private final int chunksY;
+    private final boolean[] dirty;
+    private final int[] dirtyList;
+    private int dirtyCount;
+    /** The snapshot that the grid equals apart from its dirty chunks. */
+    private TETile[][] base;
+
+    /**
+     * Creates a tracker for a grid of the given size. Every chunk starts out dirty.
+     *
+     * @param width  The width of the grid in tiles.
+     * @param height The height of the grid in tiles.
+     */
+    public TileChunks(int width, int height) {
+        this.width = width;
+        this.height = height;
+        int chunksX = (width + CHUNK_SIZE - 1) >> SHIFT;
+        this.chunksY = (height + CHUNK_SIZE - 1) >> SHIFT;
+        dirty = new boolean[chunksX * chunksY];
+        dirtyList = new int[dirty.length];
+        base = new TETile[dirty.length][];
+        markAllDirty();
+    }
+
+    /**
+     * Records that a tile of the grid changed.
+     *
+     * @param x The x-coordinate of the tile.
+     * @param y The y-coordinate of the tile.
+     */
+    public void markDirty(int x, int y) {
+        int chunk = (x >> SHIFT) * chunksY + (y >> SHIFT);
+        if (!dirty[chunk]) {
+            dirty[chunk] = true;
+            dirtyList[dirtyCount++] = chunk;
+        }
+    }
+
+    /**
+     * Records that any tile of the grid may have changed.
+     */
+    public void markAllDirty() {
+        for (int chunk = 0; chunk < dirty.length; chunk++) {
+            if (!dirty[chunk]) {
+                dirty[chunk] = true;
+                dirtyList[dirtyCount++] = chunk;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of chunks written since the last capture or restore.
+     */
+    public int dirtyChunks() {
+        return dirtyCount;
+    }
+
+    /**
+     * Captures the current contents of the grid.
+     *
+     * @param grid The grid, indexed [x][y].
+     * @return The chunk table of the snapshot. It must not be modified.
+     */
+    public TETile[][] capture(TETile[][] grid) {
+        TETile[][] chunks = base.clone();
+        for (int d = 0; d < dirtyCount; d++) {
+            int chunk = dirtyList[d];
+            chunks[chunk] = copyOut(grid, chunk);
+            dirty[chunk] = false;
+        }
+        dirtyCount = 0;
+        base = chunks;
+        return chunks;
+    }
+
+    /**
+     * Overwrites the grid with a snapshot captured by this or another tracker of the same size.
+     * Only chunks that differ from the grid's current contents are copied.
+     *
+     * @param grid   The grid, indexed [x][y].
+     * @param chunks The chunk table of the snapshot.
+     */
+    public void restore(TETile[][] grid, TETile[][] chunks) {
+        if (chunks.length != base.length) {
+            throw new IllegalArgumentException("snapshot is for a grid of another size");
+        }
+        for (int chunk = 0; chunk < chunks.length; chunk++) {
+            if (dirty[chunk] || base[chunk] != chunks[chunk]) {
+                copyIn(grid, chunk, chunks[chunk]);
+                dirty[chunk] = false;
+            }
+        }
+        dirtyCount = 0;
+        base = chunks;
+    }
+
+    private TETile[] copyOut(TETile[][] grid, int chunk) {
+        int x0 = (chunk / chunksY) << SHIFT;
+        int y0 = (chunk % chunksY) << SHIFT;
+        int w = Math.min(CHUNK_SIZE, width - x0);
+        int h = Math.min(CHUNK_SIZE, height - y0);
+        TETile[] tiles = new TETile[CHUNK_SIZE * CHUNK_SIZE];
+        for (int dx = 0; dx < w; dx++) {
+            System.arraycopy(grid[x0 + dx], y0, tiles, dx * CHUNK_SIZE, h);
+        }
+        return tiles;
+    }
+
+    private void copyIn(TETile[][] grid, int chunk, TETile[] tiles) {
+        int x0 = (chunk / chunksY) << SHIFT;
+        int y0 = (chunk % chunksY) << SHIFT;
+        int w = Math.min(CHUNK_SIZE, width - x0);
+        int h = Math.min(CHUNK_SIZE, height - y0);
+        for (int dx = 0; dx < w; dx++) {
+            System.arraycopy(tiles, dx * CHUNK_SIZE, grid[x0 + dx], y0, h);
+        }
+    }
+}
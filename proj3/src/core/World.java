@@ -6,12 +6,17 @@ import edu.princeton.cs.algs4.StdDraw;
 import tileengine.TERenderer;
 import tileengine.TETile;
 import tileengine.Tileset;
+import utils.Coords;
 import utils.RandomUtils;
+import utils.TripleBuffer;
 
 import java.awt.*;
-import java.text.SimpleDateFormat;
+import java.io.File;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
+import java.util.random.RandomGenerator;
 
 /**
  * The World class represents a randomly generated world consisting of rooms and connecting hallways.
@@ -20,6 +25,21 @@ import java.util.List;
  * Hallways are then generated to connect these rooms, creating a cohesive map layout.
  */
 public class World {
+    private static final long FRAME_NANOS = 1_000_000_000L / 60;
+    /** Enemies take a step every this many ticks, 200 ms of game time. */
+    private static final int ENEMY_MOVE_TICKS = SimulationClock.ticksFor(200);
+    /** The number of moves that can be undone. */
+    private static final int MAX_UNDO = 256;
+    /**
+     * With a fixed room count, SAMPLED placement gives up once randomRoomGenerator has failed this
+     * many times, each after 100 rejected candidates; counts drawn from the seed always fit.
+     */
+    private static final int MAX_FAILED_ROOMS = 50;
+    /**
+     * The version of world generation, part of the key of every WorldCache entry. Bump it with
+     * any change that makes a seed generate a different world, or caches keep serving old ones.
+     */
+    public static final int GENERATOR_VERSION = 2;
     private final int maxRoomWid = 12;
     private final int maxRoomHeight = 12;
     private final int WIDTH = 100;
@@ -28,24 +48,85 @@ public class World {
     private final boolean[][] visibilityMap;
     private boolean isLineOfSight;
     private final AStarPathFinder pathFinder;
+    private final ConnectivityIndex connectivity;
+    private RegionMap regionMap;
     private boolean showEnemyPath;
-    private List<Point> enemyPath;
-    private long lastEnemyMoveTime;
+    private long lastEnemyMoveTick;
     private Avatar avatar;
-    private Avatar enemy;
-    private String movementHistory, seed;
+    /**
+     * The keys typed since the game started, as written to a save file. Snapshots keep a
+     * reference and a length instead of a copy, so once historyShared is set the characters
+     * already in the builder must not change: only appends are allowed, and anything that
+     * shortens the history first switches to a copy.
+     */
+    private StringBuilder movementHistory;
+    private boolean historyShared;
+    private String seed;
     private final List<Room> rooms;
-    private Random random;
-    private final List<Point> flowerPositions;
+    private RandomGenerator random;
+    private RandomUtils.Algorithm randomAlgorithm;
+    private final EntityStore entities;
+    private final int enemyCount;
+    private final int flowerCount;
     private int flowers;
     private boolean started;
+    private final GameMetrics metrics;
+    private volatile boolean showMetrics;
+    private final Hud hud;
+    private final InputQueue input;
+    private long tickCount;
+    private SimulationClock clock;
+    private String saveDirectory;
+    private final TileChunks chunks;
+    private final ArrayDeque<WorldSnapshot> undoHistory;
+    private boolean parallelGeneration;
+    private RoomPlacement roomPlacement;
+    private int roomCount;
+    private WorldCache worldCache;
+    private boolean terrain;
+    private PathScheduler pathScheduler;
+    private PathService pathService;
+    /** Paths requested from pathService, by enemy index; null where none is outstanding. */
+    private final List<CompletableFuture<PathService.Result>> pendingPaths;
+    /** Bumped whenever the ground changes or the game jumps to a snapshot. */
+    private long worldVersion;
+    /** The tiles as generated, before entities were placed: what a tile shows once it is left. */
+    private TETile[][] ground;
+
+    /**
+     * How buildWorld places rooms.
+     */
+    public enum RoomPlacement {
+        /** Random positions, retrying on overlap: the layout every seed has always had. */
+        SAMPLED,
+        /** Binary space partitioning with BspRoomPlacer: one pass, never retries. */
+        BSP
+    }
 
     /**
      * The constructor for the World class.
      * It initializes the world grid with a specified WIDTH and HEIGHT,
      * sets up the visibility map, initializes the AStarPathFinder, and sets up other components.
+     * The world has one enemy and three flowers.
      */
     public World() {
+        this(1, 3);
+    }
+
+    /**
+     * Constructs a world with the given number of enemies and flowers. The first enemy and the
+     * flowers are placed exactly as in a default world, so a seed produces the same world for
+     * any count; extra enemies are placed afterwards.
+     *
+     * @param enemyCount  The number of enemies, at least 1.
+     * @param flowerCount The number of flowers to collect, at least 1.
+     */
+    public World(int enemyCount, int flowerCount) {
+        if (enemyCount < 1 || flowerCount < 1) {
+            throw new IllegalArgumentException("need at least one enemy and one flower");
+        }
+        this.enemyCount = enemyCount;
+        this.flowerCount = flowerCount;
         world = new TETile[WIDTH][HEIGHT];
         visibilityMap = new boolean[WIDTH][HEIGHT];
         for (int i = 0; i < WIDTH; i++) {
@@ -54,30 +135,409 @@ public class World {
             }
         }
         pathFinder = new AStarPathFinder();
+        connectivity = new ConnectivityIndex(world);
+        pathFinder.setConnectivity(connectivity);
         isLineOfSight = false;
         showEnemyPath = false;
-        enemyPath = new ArrayList<>();
-        flowerPositions = new ArrayList<>();
-        flowers = 3;
+        entities = new EntityStore(enemyCount + flowerCount, HEIGHT);
+        flowers = flowerCount;
         avatar = null;
-        enemy = null;
-        lastEnemyMoveTime = System.currentTimeMillis();
-        movementHistory = "";
+        lastEnemyMoveTick = 0;
+        movementHistory = new StringBuilder();
         started = false;
         rooms = new ArrayList<>();
+        metrics = new GameMetrics();
+        showMetrics = false;
+        hud = new Hud(WIDTH, HEIGHT);
+        input = new InputQueue();
+        clock = SimulationClock.realTime();
+        saveDirectory = ".";
+        chunks = new TileChunks(WIDTH, HEIGHT);
+        undoHistory = new ArrayDeque<>();
+        randomAlgorithm = RandomUtils.Algorithm.LEGACY;
+        roomPlacement = RoomPlacement.SAMPLED;
+        worldCache = WorldCache.fromSystemProperty();
+        pendingPaths = new ArrayList<>();
+    }
+
+    /**
+     * Writes a tile of the world. Every tile write goes through here so that snapshots know
+     * which chunks changed.
+     *
+     * @param x    The x-coordinate of the tile.
+     * @param y    The y-coordinate of the tile.
+     * @param tile The new tile.
+     */
+    private void setTile(int x, int y, TETile tile) {
+        world[x][y] = tile;
+        chunks.markDirty(x, y);
+        connectivity.tileChanged(x, y);
+    }
+
+    /**
+     * Shows the ground again on a tile an entity or the avatar just left.
+     */
+    private void clearTile(int x, int y) {
+        setTile(x, y, ground[x][y]);
+    }
+
+    /**
+     * Captures the current game state. Snapshots share every unchanged chunk of tiles with the
+     * snapshot taken before them, so this is cheap enough to call on every move. Like the rest
+     * of the game state, it must be called from the thread that runs the game.
+     *
+     * @return An immutable snapshot that restore and fork can return to at any time.
+     */
+    public WorldSnapshot snapshot() {
+        historyShared = true;
+        return new WorldSnapshot(chunks.capture(world), entities.copy(), avatar, flowers, started,
+                tickCount, lastEnemyMoveTick, movementHistory, movementHistory.length(), seed, rooms, regionMap,
+                ground, random);
+    }
+
+    /**
+     * Returns the game to a snapshot taken from this world or any world forked from it. Only
+     * the chunks of tiles that differ are copied back.
+     *
+     * @param snapshot The snapshot to return to.
+     */
+    public void restore(WorldSnapshot snapshot) {
+        chunks.restore(world, snapshot.chunks);
+        if (pathScheduler != null) {
+            pathScheduler.clear();
+        }
+        connectivity.invalidate();
+        entities.copyFrom(snapshot.entities);
+        avatar = new Avatar(new Point(snapshot.avatarStartX, snapshot.avatarStartY),
+                new Point(snapshot.avatarX, snapshot.avatarY), snapshot.avatarImg);
+        avatar.setLife(snapshot.avatarLife);
+        flowers = snapshot.flowers;
+        started = snapshot.started;
+        tickCount = snapshot.tickCount;
+        lastEnemyMoveTick = snapshot.lastEnemyMoveTick;
+        movementHistory = new StringBuilder(snapshot.historyLength + 16)
+                .append(snapshot.movementHistory, 0, snapshot.historyLength);
+        historyShared = false;
+        seed = snapshot.seed;
+        rooms.clear();
+        rooms.addAll(snapshot.rooms);
+        regionMap = snapshot.regionMap;
+        ground = snapshot.ground;
+        nextWorldVersion();
+        random = snapshot.random();
+        for (boolean[] column : visibilityMap) {
+            Arrays.fill(column, false);
+        }
+        calculateVisibility();
+    }
+
+    /**
+     * Returns an independent copy of this world that continues from the current state, for
+     * example to try out moves without affecting the real game. The copy shares its tiles'
+     * chunks with this world until either of them writes to one, and it can undo the same
+     * moves as this world.
+     *
+     * @return The forked world.
+     */
+    public World fork() {
+        World copy = new World(enemyCount, flowerCount);
+        copy.clock = clock;
+        copy.saveDirectory = saveDirectory;
+        copy.worldCache = worldCache;
+        copy.setTerrain(terrain);
+        copy.setPathBudget(pathScheduler == null ? 0 : pathScheduler.getBudget());
+        copy.restore(snapshot());
+        copy.undoHistory.addAll(undoHistory);
+        return copy;
+    }
+
+    /**
+     * Undoes the last moves of the avatar, restoring the whole game, enemies included, to the
+     * moment before the earliest of them. Only the last MAX_UNDO moves are remembered.
+     *
+     * @param moves The number of moves to undo.
+     * @return The number of moves actually undone.
+     */
+    public int rewind(int moves) {
+        WorldSnapshot target = null;
+        int undone = 0;
+        while (undone < moves && !undoHistory.isEmpty()) {
+            target = undoHistory.pollLast();
+            undone++;
+        }
+        if (target != null) {
+            restore(target);
+        }
+        return undone;
+    }
+
+    /**
+     * Remembers the current state so that the move about to be made can be undone.
+     */
+    private void recordUndoPoint() {
+        if (undoHistory.size() == MAX_UNDO) {
+            undoHistory.pollFirst();
+        }
+        undoHistory.addLast(snapshot());
+    }
+
+    /**
+     * Sets the clock that paces the game loop started by begin, for example to run the game
+     * faster than real time. The game itself only counts ticks, so this changes its speed but
+     * not its outcome.
+     *
+     * @param clock The clock to use.
+     */
+    public void setClock(SimulationClock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Chooses how buildWorld lays out rooms and hallways. By default they are generated one
+     * after another from the seed's Random, which keeps every seed producing the world it always
+     * has. With parallel generation the layout comes from a ParallelWorldGenerator instead: a
+     * seed still always produces the same world, on any number of cores, but not the same world
+     * as the default. The avatar, enemies and flowers are placed the same way in both cases.
+     *
+     * @param parallel true to generate the layout with a ParallelWorldGenerator.
+     */
+    public void setParallelGeneration(boolean parallel) {
+        this.parallelGeneration = parallel;
+    }
+
+    /**
+     * Chooses the random number generator the seed drives. The default, LEGACY, is
+     * java.util.Random, with which every seed and save file reproduces exactly the game it always
+     * has. XOSHIRO is faster but gives every seed a different world; saves made with it record
+     * that, so they load back correctly. SPLITTABLE is not accepted because snapshots and undo
+     * need to copy the generator, which SplittableRandom does not allow.
+     *
+     * @param algorithm The generator to use from the next new game or load on.
+     */
+    public void setRandomAlgorithm(RandomUtils.Algorithm algorithm) {
+        if (algorithm == RandomUtils.Algorithm.SPLITTABLE) {
+            throw new IllegalArgumentException("a world's generator must be copyable: " + algorithm);
+        }
+        this.randomAlgorithm = algorithm;
+    }
+
+    /**
+     * Chooses how buildWorld places rooms. SAMPLED, the default, keeps every seed's layout;
+     * BSP gives seeds new layouts but takes the same time at any room count. Parallel
+     * generation places rooms its own way and ignores this.
+     *
+     * @param placement The placement to use from the next generated world on.
+     */
+    public void setRoomPlacement(RoomPlacement placement) {
+        this.roomPlacement = placement;
+    }
+
+    /**
+     * Fixes the number of rooms buildWorld places instead of drawing it from the seed, for
+     * example to generate denser worlds. Both placements place as many rooms as fit: BSP runs
+     * out of leaves, and SAMPLED stops once it fails to find space for a room too often.
+     *
+     * @param count The number of rooms, or 0 to let the seed decide as usual.
+     */
+    public void setRoomCount(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("negative room count: " + count);
+        }
+        this.roomCount = count;
+    }
+
+    /**
+     * Enables terrain: buildWorld covers the floor with grass, sand, water and mountains (see
+     * TerrainGenerator), and enemies plan their paths by TerrainCosts.defaults() instead of
+     * counting steps. Terrain does not move any room, entity or avatar, but enemies take
+     * different paths, so games play out differently. Off by default.
+     *
+     * @param enabled Whether to generate terrain and weigh paths by it.
+     */
+    public void setTerrain(boolean enabled) {
+        this.terrain = enabled;
+        pathFinder.setTerrainCosts(enabled ? TerrainCosts.defaults() : null);
+        if (pathScheduler != null) {
+            pathScheduler.getPathFinder().setTerrainCosts(pathFinder.getTerrainCosts());
+        }
+        if (pathService != null) {
+            pathService.setTerrainCosts(pathFinder.getTerrainCosts());
+        }
+    }
+
+    /**
+     * Makes enemies plan their paths on a PathService instead of the game loop. An enemy that
+     * decides to re-plan sends a request and keeps following its old path; the path is picked
+     * up on the first tick after it is ready, unless the enemy has left the tile it was planned
+     * from. The game loop never waits for a search. Takes precedence over a path budget. Paths
+     * planned when a game starts or loads are still searched at once.
+     * <p>
+     * A service tracks the version of one world, so it must not be shared between worlds, and
+     * forks of this world do not use it. Searches run on the generated ground, without the
+     * entities on it.
+     *
+     * @param service The service, or null to plan on the game loop again.
+     */
+    public void setPathService(PathService service) {
+        this.pathService = service;
+        pendingPaths.clear();
+        if (service != null) {
+            service.setWorldVersion(worldVersion);
+            service.setTerrainCosts(pathFinder.getTerrainCosts());
+        }
+    }
+
+    /**
+     * Sends a path request for an enemy to the path service.
+     */
+    private void requestPath(int e) {
+        while (pendingPaths.size() <= e) {
+            pendingPaths.add(null);
+        }
+        Point goal = avatar.getPos();
+        pendingPaths.set(e, pathService.request(ground, worldVersion, e, entities.x(e), entities.y(e),
+                goal.getX(), goal.getY()));
+    }
+
+    /**
+     * Installs every path the path service has finished, unless it no longer fits the enemy.
+     * Never waits for a search that is still running.
+     */
+    private void collectPaths() {
+        for (int e = 0; e < pendingPaths.size(); e++) {
+            CompletableFuture<PathService.Result> future = pendingPaths.get(e);
+            if (future == null || !future.isDone()) {
+                continue;
+            }
+            pendingPaths.set(e, null);
+            if (future.isCancelled()) {
+                continue;
+            }
+            PathService.Result result = future.join();
+            int[] tiles = result.tiles();
+            if (result.worldVersion() != worldVersion || e >= entities.size()
+                    || entities.kind(e) != EntityStore.ENEMY) {
+                continue;
+            }
+            if (tiles.length > 0 && tiles[0] != Coords.index(entities.x(e), entities.y(e), HEIGHT)) {
+                // The enemy moved on along its old path while the search ran.
+                continue;
+            }
+            entities.setPath(e, tiles, tiles.length);
+        }
+    }
+
+    /**
+     * Limits the A* expansions enemies may spend on planning per tick. Instead of searching
+     * the moment they decide to re-plan, enemies then queue up with a PathScheduler, nearest to
+     * the avatar first, and long searches are spread over several ticks, so no tick stalls
+     * however many enemies re-plan at once. Enemies react a little later, so games play out
+     * differently than without a budget. Paths planned when a game starts or loads are still
+     * searched at once.
+     *
+     * @param expansionsPerTick The budget, or 0 to search at once as by default.
+     */
+    public void setPathBudget(int expansionsPerTick) {
+        if (expansionsPerTick < 0) {
+            throw new IllegalArgumentException("negative budget: " + expansionsPerTick);
+        }
+        if (expansionsPerTick == 0) {
+            pathScheduler = null;
+            return;
+        }
+        pathScheduler = new PathScheduler(expansionsPerTick);
+        pathScheduler.getPathFinder().setConnectivity(connectivity);
+        pathScheduler.getPathFinder().setTerrainCosts(pathFinder.getTerrainCosts());
+    }
+
+    /**
+     * Sets the cache buildWorld looks worlds up in before generating them and stores them in
+     * after. Defaults to the cache named by the byow.worldCache system property, if any.
+     *
+     * @param cache The cache, or null to always generate.
+     */
+    public void setWorldCache(WorldCache cache) {
+        this.worldCache = cache;
     }
 
     /**
      * Builds the world by first initializing random number generator with seed,
-     * then it generates rooms and connects them with hallways.
+     * then it generates rooms and connects them with hallways. Finally it maps every tile to
+     * its room or hallway. With a WorldCache, a world generated before is read back instead.
      */
     public void buildWorld() {
-        random = new Random(Long.parseLong(seed));
-        initWorld();
-        int maxNumberOfRooms = 20;
-        int roomNumbers = RandomUtils.uniform(random, maxNumberOfRooms - 5) + 6;
-        generateRooms(roomNumbers);
-        connectRooms();
+        random = RandomUtils.newGenerator(randomAlgorithm, Long.parseLong(seed));
+        rooms.clear();
+        String variant = generatorVariant();
+        WorldCache.Entry cached = worldCache == null ? null
+                : worldCache.get(Long.parseLong(seed), WIDTH, HEIGHT, variant);
+        if (cached != null) {
+            for (int x = 0; x < WIDTH; x++) {
+                System.arraycopy(cached.tiles()[x], 0, world[x], 0, HEIGHT);
+            }
+            chunks.markAllDirty();
+            connectivity.invalidate();
+            rooms.addAll(cached.rooms());
+            random = cached.random();
+        } else if (parallelGeneration) {
+            rooms.addAll(new ParallelWorldGenerator(Long.parseLong(seed),
+                    ParallelWorldGenerator.DEFAULT_REGION_SIZE).generate(world));
+            chunks.markAllDirty();
+            connectivity.invalidate();
+        } else {
+            initWorld();
+            int maxNumberOfRooms = 20;
+            int roomNumbers = roomCount > 0 ? roomCount : RandomUtils.uniform(random, maxNumberOfRooms - 5) + 6;
+            if (roomPlacement == RoomPlacement.BSP) {
+                for (Room room : new BspRoomPlacer(4, maxRoomWid - 1).place(random, 1, 1, WIDTH - 1, HEIGHT - 1,
+                        roomNumbers)) {
+                    rooms.add(room);
+                    drawRoom(room);
+                }
+            } else {
+                generateRooms(roomNumbers, roomCount > 0 ? MAX_FAILED_ROOMS : Integer.MAX_VALUE);
+            }
+            connectRooms();
+        }
+        if (cached == null && terrain) {
+            new TerrainGenerator(Long.parseLong(seed)).paint(world);
+            chunks.markAllDirty();
+        }
+        if (cached == null && worldCache != null) {
+            worldCache.put(Long.parseLong(seed), variant, new WorldCache.Entry(world, rooms, random));
+        }
+        regionMap = RegionMap.build(world, rooms);
+        ground = TETile.copyOf(world);
+        nextWorldVersion();
+    }
+
+    /**
+     * Starts a new world version, so that paths still being searched for the old one are
+     * dropped.
+     */
+    private void nextWorldVersion() {
+        worldVersion++;
+        pendingPaths.clear();
+        if (pathService != null) {
+            pathService.setWorldVersion(worldVersion);
+        }
+    }
+
+    /**
+     * Returns the world version, which changes every time a world is generated or a snapshot
+     * restored.
+     */
+    public long getWorldVersion() {
+        return worldVersion;
+    }
+
+    /**
+     * Names the settings that decide which world a seed generates, for WorldCache keys.
+     */
+    private String generatorVariant() {
+        String layout = parallelGeneration ? "parallel" : roomPlacement.name().toLowerCase();
+        return randomAlgorithm.name().toLowerCase() + "-" + layout + (roomCount > 0 ? "-" + roomCount : "")
+                + (terrain ? "-terrain" : "");
     }
 
     /**
@@ -90,6 +550,7 @@ public class World {
         StdDraw.setXscale(0, WIDTH * 14);
         StdDraw.setYscale(0, HEIGHT * 14);
         StdDraw.enableDoubleBuffering();
+        input.attachToStdDraw();
 
         drawStart();
         char opt = getOption();
@@ -102,7 +563,7 @@ public class World {
             }
             begin(opt + s + "s", null, null);
         } else if (opt == 'l') {
-            in = new In("./saves/save-slot-1.txt");
+            in = new In(slotFile(1));
 
             if (!in.isEmpty()) {
                 line = in.readLine();
@@ -112,12 +573,13 @@ public class World {
             }
             if (!line.isEmpty()) {
                 lives = in.readLine();
+                randomAlgorithm = readRandomAlgorithm(in);
                 begin(line, enemyPos, lives);
             } else {
                 System.exit(0);
             }
         } else if (opt == '2') {
-            in = new In("./saves/save-slot-2.txt");
+            in = new In(slotFile(2));
 
             if (!in.isEmpty()) {
                 line = in.readLine();
@@ -127,12 +589,13 @@ public class World {
             }
             if (!line.isEmpty()) {
                 lives = in.readLine();
+                randomAlgorithm = readRandomAlgorithm(in);
                 begin(line, enemyPos, lives);
             } else {
                 System.exit(0);
             }
         } else if (opt == '3') {
-            in = new In("./saves/save-slot-3.txt");
+            in = new In(slotFile(3));
 
             if (!in.isEmpty()) {
                 line = in.readLine();
@@ -142,6 +605,7 @@ public class World {
             }
             if (!line.isEmpty()) {
                 lives = in.readLine();
+                randomAlgorithm = readRandomAlgorithm(in);
                 begin(line, enemyPos, lives);
             } else {
                 System.exit(0);
@@ -165,6 +629,13 @@ public class World {
         this.showEnemyPath = !showEnemyPath;
     }
 
+    /**
+     * Toggles the frame-time metrics line on the HUD.
+     */
+    private void changeShowMetrics() {
+        this.showMetrics = !showMetrics;
+    }
+
     /**
      * Checks if a given x,y coordinate is within the bounds of the world grid.
      *
@@ -221,94 +692,349 @@ public class World {
         handleGivenAvatarLife(lives);
 
         StdDraw.enableDoubleBuffering();
-        TETile[][] renderTiles = new TETile[WIDTH][HEIGHT];
 
+        TripleBuffer<FrameSnapshot> frames = new TripleBuffer<>(() -> new FrameSnapshot(WIDTH, HEIGHT));
+        composeFrame(frames.back(), FrameSnapshot.Status.PLAYING);
+        frames.publish();
+
+        Thread simulation = new Thread(() -> runSimulation(frames), "simulation");
+        simulation.setDaemon(true);
+        simulation.start();
+        runRenderer(ter, frames);
+    }
+
+    /**
+     * Runs the simulation at the pace of the clock until the game ends. After every tick the
+     * state of the world is copied into the back buffer and published for the render thread.
+     *
+     * @param frames The buffer shared with the render thread.
+     */
+    private void runSimulation(TripleBuffer<FrameSnapshot> frames) {
         while (true) {
-            if (StdDraw.hasNextKeyTyped()) {
-                char key = Character.toLowerCase(StdDraw.nextKeyTyped());
-                if (!movementHistory.isEmpty() && movementHistory.charAt(movementHistory.length() - 1) == ':') {
-                    if (key == 'q') {
-                        movementHistory = movementHistory.substring(0, movementHistory.length() - 1);
-                        writeHistoryToFile(1);
-                        break;
-                    } else if (key == '2') {
-                        movementHistory = movementHistory.substring(0, movementHistory.length() - 1);
-                        writeHistoryToFile(2);
-                        break;
-                    } else if (key == '3') {
-                        movementHistory = movementHistory.substring(0, movementHistory.length() - 1);
-                        writeHistoryToFile(3);
-                        break;
-                    }
-                    movementHistory = movementHistory.substring(0, movementHistory.length() - 1);
-                }
-                updateWorld(key);
+            FrameSnapshot.Status status = tick();
+            composeFrame(frames.back(), status);
+            frames.publish();
+            if (status != FrameSnapshot.Status.PLAYING) {
+                return;
+            }
+            clock.awaitNextTick();
+        }
+    }
+
+    /**
+     * Runs up to the given number of ticks as fast as possible, without a window or a render
+     * thread, and stops early if the game ends. Keys offered to the input queue beforehand are
+     * applied on the first tick. Meant for tests and tools that play the game headless; a save
+     * key sequence (":q") writes the save and ends the game with status QUIT.
+     *
+     * @param ticks The maximum number of ticks to run.
+     * @return The state of the game after the last tick that ran.
+     */
+    public FrameSnapshot.Status simulate(long ticks) {
+        FrameSnapshot.Status status = FrameSnapshot.Status.PLAYING;
+        for (long t = 0; t < ticks && status == FrameSnapshot.Status.PLAYING; t++) {
+            status = tick();
+        }
+        return status;
+    }
+
+    /**
+     * Returns the number of ticks simulated since the world was created.
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * Advances the game by one tick: applies pending keys, moves the enemy and checks whether
+     * the game has been won or lost.
+     *
+     * @return The state of the game after the tick.
+     */
+    public FrameSnapshot.Status tick() {
+        tickCount++;
+        metrics.beginTick();
+        try {
+            if (drainInput()) {
+                return FrameSnapshot.Status.QUIT;
             }
             if (checkIfWin()) {
-                drawWinningFrame();
-                break;
+                return FrameSnapshot.Status.WON;
             }
             drawFlowers();
             if (!started) {
-                ter.renderFrame(world);
-                drawHud();
-                StdDraw.show();
-                continue;
+                return FrameSnapshot.Status.PLAYING;
             }
+            long moveStart = System.nanoTime();
             moveEnemy();
+            metrics.addMoveEnemy(System.nanoTime() - moveStart);
             checkIfEnemyCatch();
             if (checkIfLost()) {
-                drawLosingFrame();
-                break;
+                return FrameSnapshot.Status.LOST;
             }
-            for (int x = 0; x < WIDTH; x++) {
-                for (int y = 0; y < HEIGHT; y++) {
-                    renderTiles[x][y] = world[x][y];
+            return FrameSnapshot.Status.PLAYING;
+        } finally {
+            metrics.endTick();
+        }
+    }
+
+    /**
+     * Copies the world into a snapshot as it should appear on screen. Once the game has started,
+     * the enemy's path and the line of sight are applied on top of the world tiles.
+     *
+     * @param frame  The snapshot to overwrite.
+     * @param status The state of the game.
+     */
+    private void composeFrame(FrameSnapshot frame, FrameSnapshot.Status status) {
+        TETile[][] renderTiles = frame.getTiles();
+        for (int x = 0; x < WIDTH; x++) {
+            System.arraycopy(world[x], 0, renderTiles[x], 0, HEIGHT);
+        }
+        if (started && showEnemyPath) {
+            Point avatarPos = avatar.getPos();
+            for (int e = 0; e < entities.size(); e++) {
+                if (entities.kind(e) != EntityStore.ENEMY) {
+                    continue;
                 }
-            }
-            if (showEnemyPath) {
-                if (enemyPath != null) {
-                    for (Point point : enemyPath) {
-                        if (!point.equals(avatar.getPos()) && !point.equals(enemy.getPos())) {
-                            renderTiles[point.getX()][point.getY()] = Tileset.TREE;
-                        }
+                for (int k = 1; k < entities.remainingPathLength(e); k++) {
+                    int px = entities.pathX(e, k);
+                    int py = entities.pathY(e, k);
+                    if ((px != avatarPos.getX() || py != avatarPos.getY())
+                            && renderTiles[px][py] != Tileset.ENEMY) {
+                        renderTiles[px][py] = Tileset.TREE;
                     }
                 }
             }
-            if (isLineOfSight) {
-                for (int x = 0; x < WIDTH; x++) {
-                    for (int y = 0; y < HEIGHT; y++) {
-                        if (!visibilityMap[x][y]) {
-                            renderTiles[x][y] = Tileset.NOTHING;
-                        }
+        }
+        if (started && isLineOfSight) {
+            for (int x = 0; x < WIDTH; x++) {
+                for (int y = 0; y < HEIGHT; y++) {
+                    if (!visibilityMap[x][y]) {
+                        renderTiles[x][y] = Tileset.NOTHING;
                     }
                 }
             }
-            ter.renderFrame(renderTiles);
-            drawHud();
+        }
+        frame.update(avatar.getLife(), flowers, tickCount, status);
+    }
+
+    /**
+     * Draws the newest published snapshot as often as the display allows, independently of the
+     * simulation, until a snapshot reports that the game is over.
+     *
+     * @param ter    The renderer to draw with.
+     * @param frames The buffer shared with the simulation thread.
+     */
+    private void runRenderer(TERenderer ter, TripleBuffer<FrameSnapshot> frames) {
+        long nextFrame = System.nanoTime();
+        while (true) {
+            metrics.beginFrame();
+            InputQueue.discardStdDrawKeys();
+            FrameSnapshot frame = frames.latest();
+            if (frame.getStatus() == FrameSnapshot.Status.WON) {
+                drawWinningFrame();
+                return;
+            } else if (frame.getStatus() == FrameSnapshot.Status.LOST) {
+                drawLosingFrame();
+                return;
+            } else if (frame.getStatus() == FrameSnapshot.Status.QUIT) {
+                // The game was saved; like the original save keys, leave the program.
+                System.exit(0);
+            }
+            renderFrame(ter, frame.getTiles());
+            timedDrawHud(frame);
             StdDraw.show();
+            metrics.endFrame();
+
+            nextFrame += FRAME_NANOS;
+            long wait = nextFrame - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            } else {
+                nextFrame = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Applies every key typed since the last frame, in the order they were typed.
+     *
+     * @return true if one of the keys saved the game and the loop should stop.
+     */
+    private boolean drainInput() {
+        int next;
+        while ((next = input.poll()) != InputQueue.EMPTY) {
+            if (handleKey(Character.toLowerCase((char) next))) {
+                return true;
+            }
         }
+        return false;
+    }
+
+    /**
+     * Applies a single key from the game loop. A save key right after ':' writes the matching
+     * save slot; anything else is passed on to updateWorld.
+     *
+     * @param key The lower-cased key.
+     * @return true if the key saved the game.
+     */
+    private boolean handleKey(char key) {
+        if (endsWithColon()) {
+            truncateHistory(movementHistory.length() - 1);
+            if (key == 'q') {
+                writeHistoryToFile(1);
+                return true;
+            } else if (key == '2') {
+                writeHistoryToFile(2);
+                return true;
+            } else if (key == '3') {
+                writeHistoryToFile(3);
+                return true;
+            }
+        }
+        updateWorld(key);
+        return false;
     }
 
     /**
-     * Draws the enemy's position on the world grid.
+     * Returns the queue the game loop reads typed keys from. Keys offered to it are handled
+     * exactly as if they had been typed into the window.
      *
-     * @param enemyPos The position of the enemy in string format "x y".
+     * @return The input queue of this world.
+     */
+    public InputQueue getInputQueue() {
+        return input;
+    }
+
+    /**
+     * Renders the tiles and records how long it took.
+     *
+     * @param ter   The renderer to draw with.
+     * @param tiles The tiles to draw.
+     */
+    private void renderFrame(TERenderer ter, TETile[][] tiles) {
+        long start = System.nanoTime();
+        ter.renderFrame(tiles);
+        metrics.addRenderFrame(System.nanoTime() - start, ter.getTilesDrawn());
+    }
+
+    /**
+     * Draws the HUD and records how long it took.
+     *
+     * @param frame The snapshot whose values are shown.
+     */
+    private void timedDrawHud(FrameSnapshot frame) {
+        long start = System.nanoTime();
+        drawHud(frame);
+        metrics.addDrawHud(System.nanoTime() - start);
+    }
+
+    /**
+     * Returns the frame-time metrics collected by the game loop.
+     *
+     * @return The metrics of this world.
+     */
+    public GameMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Draws the enemies' positions on the world grid.
+     *
+     * @param enemyPos The positions of the enemies in string format "x y", one pair per enemy.
+     *                 Saves with fewer pairs than enemies only move the first enemies.
      */
     public void drawEnemyPos(String enemyPos) {
         if (enemyPos != null) {
             String[] tokens;
-            tokens = enemyPos.split(" ");
-            int x = Integer.parseInt(tokens[0]), y = Integer.parseInt(tokens[1]);
-            world[enemy.getPos().getX()][enemy.getPos().getY()] = Tileset.FLOOR;
-            enemy.getPos().setX(x);
-            enemy.getPos().setY(y);
-            world[enemy.getPos().getX()][enemy.getPos().getY()] = enemy.getImg();
-            enemyPath = pathFinder.findPath(world, enemy.getPos(), avatar.getPos());
+            tokens = enemyPos.trim().split(" +");
+            int e = 0;
+            for (int t = 0; t + 1 < tokens.length; t += 2) {
+                e = nextEnemy(e);
+                if (e < 0) {
+                    break;
+                }
+                int x = Integer.parseInt(tokens[t]), y = Integer.parseInt(tokens[t + 1]);
+                clearTile(entities.x(e), entities.y(e));
+                entities.move(e, x, y);
+                setTile(x, y, Tileset.ENEMY);
+                planEnemyPath(e);
+                e++;
+            }
             started = false;
         }
     }
 
+    /**
+     * Returns the index of the first enemy at or after the given entity index, or -1.
+     *
+     * @param from The entity index to start looking at.
+     */
+    private int nextEnemy(int from) {
+        for (int e = from; e < entities.size(); e++) {
+            if (entities.kind(e) == EntityStore.ENEMY) {
+                return e;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Replaces an enemy's planned path with a fresh path towards the avatar.
+     *
+     * @param e The entity index of the enemy.
+     */
+    private void planEnemyPath(int e) {
+        Point goal = avatar.getPos();
+        int length = pathFinder.search(world, entities.x(e), entities.y(e), goal.getX(), goal.getY());
+        entities.setPath(e, pathFinder.getPath(), length);
+    }
+
+    /**
+     * Returns the positions of all enemies in the save file format "x y x y ...".
+     */
+    private String enemyPositions() {
+        StringBuilder line = new StringBuilder();
+        for (int e = 0; e < entities.size(); e++) {
+            if (entities.kind(e) == EntityStore.ENEMY) {
+                if (line.length() > 0) {
+                    line.append(' ');
+                }
+                line.append(entities.x(e)).append(' ').append(entities.y(e));
+            }
+        }
+        return line.toString();
+    }
+
+    /**
+     * Returns the store holding the enemies and flowers of this world.
+     *
+     * @return The entity store.
+     */
+    public EntityStore getEntities() {
+        return entities;
+    }
+
+    /**
+     * Returns the index of which walkable tiles of this world are connected. It follows every
+     * change to the tiles, and the world's path finder consults it before each search.
+     *
+     * @return The connectivity index.
+     */
+    public ConnectivityIndex getConnectivity() {
+        return connectivity;
+    }
+
+    /**
+     * Returns the map from tiles to the rooms and hallways of this world, with the graph of which
+     * rooms the hallways link. It is rebuilt whenever a world is generated.
+     *
+     * @return The region map, or null before the first world is generated.
+     */
+    public RegionMap getRegionMap() {
+        return regionMap;
+    }
+
     /**
      * Sets the avatar's life count based on the given string.
      *
@@ -325,11 +1051,12 @@ public class World {
      * Draws flowers at their designated positions on the world grid.
      */
     public void drawFlowers() {
-        if (flowerPositions == null) {
-            return;
-        }
-        for (Point f : flowerPositions) {
-            world[f.getX()][f.getY()] = Tileset.FLOWER;
+        for (int i = 0; i < entities.size(); i++) {
+            // Only flowers an enemy walked over need drawing again; rewriting the rest would mark
+            // their chunks dirty and make every snapshot copy them.
+            if (entities.kind(i) == EntityStore.FLOWER && world[entities.x(i)][entities.y(i)] != Tileset.FLOWER) {
+                setTile(entities.x(i), entities.y(i), Tileset.FLOWER);
+            }
         }
     }
 
@@ -337,9 +1064,10 @@ public class World {
      * Checks if the avatar has caught a flower and updates the flower count and positions.
      */
     public void checkIfCatchFlower() {
-        if (flowerPositions.contains(avatar.getPos())) {
+        int flower = entities.find(EntityStore.FLOWER, avatar.getPos().getX(), avatar.getPos().getY());
+        if (flower >= 0) {
             flowers--;
-            flowerPositions.remove(avatar.getPos());
+            entities.remove(flower);
         }
     }
 
@@ -362,10 +1090,10 @@ public class World {
     }
 
     /**
-     * Checks if the enemy has caught the avatar and updates avatar's life accordingly.
+     * Checks if an enemy has caught the avatar and updates avatar's life accordingly.
      */
     public void checkIfEnemyCatch() {
-        if (enemy.getPos().equals(avatar.getPos())) {
+        if (entities.find(EntityStore.ENEMY, avatar.getPos().getX(), avatar.getPos().getY()) >= 0) {
             avatar.reduceLife();
             if (avatar.getLife() > 0) {
                 placeAvatarAtBegin();
@@ -408,7 +1136,7 @@ public class World {
      */
     public void placeAvatarAtBegin() {
         Point startPos = avatar.getStartPos();
-        world[startPos.getX()][startPos.getY()] = avatar.getImg();
+        setTile(startPos.getX(), startPos.getY(), avatar.getImg());
         resetVisibility();
         addPathToBegin();
         avatar.getPos().setX(startPos.getX());
@@ -444,90 +1172,184 @@ public class World {
                     path.append("s");
                 }
             }
-            movementHistory += path.toString();
+            movementHistory.append(path);
         }
     }
 
     /**
      * Draws the Heads-Up Display (HUD) showing the game's status like remaining life and flowers count.
+     *
+     * @param frame The snapshot whose values are shown.
      */
-    public void drawHud() {
-        StdDraw.setPenColor(StdDraw.WHITE);
-        StdDraw.rectangle(5, HEIGHT + 2, WIDTH, 2);
+    public void drawHud(FrameSnapshot frame) {
+        hud.draw(frame.getTiles(), frame.getLife(), frame.getFlowers(), showMetrics ? metrics : null);
+    }
 
-        StdDraw.text(5, HEIGHT + 2.5, "Remaining Life: ");
+    /**
+     * Moves every enemy one step along its path, re-planning paths using the AStarPathFinder,
+     * or, with a path budget, letting the PathScheduler spend this tick's budget, or, with a path
+     * service, sending requests to it and installing the paths it has finished.
+     */
+    private void moveEnemy() {
+        if (tickCount - lastEnemyMoveTick >= ENEMY_MOVE_TICKS) {
+            for (int e = 0; e < entities.size(); e++) {
+                if (entities.kind(e) != EntityStore.ENEMY) {
+                    continue;
+                }
+                if (entities.hasNextStep(e)) {
+                    clearTile(entities.x(e), entities.y(e));
+                    entities.advanceOnPath(e);
+                }
 
-        for (int i = 1; i <= avatar.getLife(); i++) {
-            StdDraw.text(8 + i, HEIGHT + 2.5, "♥");
+                if (random.nextInt(10) < 7) {
+                    if (pathService != null) {
+                        requestPath(e);
+                    } else if (pathScheduler != null) {
+                        pathScheduler.request(e);
+                    } else {
+                        long searchStart = System.nanoTime();
+                        planEnemyPath(e);
+                        metrics.addFindPath(System.nanoTime() - searchStart, pathFinder.getLastExpandedCount());
+                    }
+                }
+            }
+            for (int e = 0; e < entities.size(); e++) {
+                if (entities.kind(e) == EntityStore.ENEMY) {
+                    setTile(entities.x(e), entities.y(e), Tileset.ENEMY);
+                }
+            }
+            lastEnemyMoveTick = tickCount;
+        }
+        if (pathService != null) {
+            collectPaths();
+        } else if (pathScheduler != null) {
+            long searchStart = System.nanoTime();
+            int expanded = pathScheduler.run(world, entities, avatar.getPos().getX(), avatar.getPos().getY());
+            if (expanded > 0) {
+                metrics.addFindPath(System.nanoTime() - searchStart, expanded);
+            }
         }
-        StdDraw.text(5.8, HEIGHT + 1.5, " Number of Flowers: " + flowers);
+    }
 
-        int mX = Math.min((int) StdDraw.mouseX(), WIDTH - 1);
-        int mY = Math.min((int) StdDraw.mouseY(), HEIGHT - 1);
-        StdDraw.text(62, HEIGHT + 2.5, "Cursor at: " + world[mX][mY].description());
+    /**
+     * Writes the current game state to a save file for the specified slot. Slots other than 2
+     * and 3 write slot 1.
+     *
+     * @param slot The save slot number to write to.
+     */
+    private void writeHistoryToFile(Integer slot) {
+        writeSave(new Out(slotFile(slot == 2 || slot == 3 ? slot : 1)));
+    }
 
-        StdDraw.text(40, HEIGHT + 2.5, "Press v to toggle vision");
-        StdDraw.text(42.5, HEIGHT + 1.5, "Press k to see enemy's coming path");
-        SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd 'at' HH:mm:ss z");
-        Date date = new Date(System.currentTimeMillis());
-        StdDraw.text(WIDTH - 8, HEIGHT + 2.25, formatter.format(date));
+    /**
+     * Writes the game state to a save file and closes it: the typed input, the enemy positions,
+     * the avatar's life and, for games not played with the default generator, its name.
+     *
+     * @param out The save file.
+     */
+    private void writeSave(Out out) {
+        out.println("n" + seed + "s" + movementHistory);
+        out.println(enemyPositions());
+        out.println(avatar.getLife());
+        if (randomAlgorithm != RandomUtils.Algorithm.LEGACY) {
+            out.println(randomAlgorithm);
+        }
+        out.close();
     }
 
     /**
-     * Moves the enemy using the AStarPathFinder.
+     * Reads the optional line after the avatar's life in a save file, which names the random
+     * number generator of games not played with the default one.
+     *
+     * @param in The save file, positioned after the life line.
      */
-    private void moveEnemy() {
-        long currentTime = System.currentTimeMillis();
+    private static RandomUtils.Algorithm readRandomAlgorithm(In in) {
+        String line = in.hasNextLine() ? in.readLine().trim() : "";
+        return line.isEmpty() ? RandomUtils.Algorithm.LEGACY : RandomUtils.Algorithm.parse(line);
+    }
 
-        if (currentTime - lastEnemyMoveTime > 200) {
-            if (enemyPath != null && (enemyPath.size() > 1)) {
-                Point enemyLoc = enemy.getPos();
-                world[enemyLoc.getX()][enemyLoc.getY()] = Tileset.FLOOR;
-                enemy.getPos().setX(enemyPath.get(1).getX());
-                enemy.getPos().setY(enemyPath.get(1).getY());
-                enemyPath.remove(1);
-                world[enemy.getPos().getX()][enemy.getPos().getY()] = enemy.getImg();
-            }
+    /**
+     * Returns the path of the save file of a slot inside the save directory.
+     *
+     * @param slot The save slot number.
+     */
+    private String slotFile(int slot) {
+        return saveDirectory + "/saves/save-slot-" + slot + ".txt";
+    }
 
-            if (random.nextInt(10) < 7) {
-                enemyPath = pathFinder.findPath(world, enemy.getPos(), avatar.getPos());
-            }
-            lastEnemyMoveTime = currentTime;
-        }
+    /**
+     * Sets the directory this world reads and writes its save files in. Save slots live in its
+     * "saves" subdirectory, which must exist, and the ":q" save of getWorldFromInput writes
+     * "data.txt" directly in it. Defaults to the working directory.
+     *
+     * @param directory The save directory.
+     */
+    public void setSaveDirectory(String directory) {
+        this.saveDirectory = directory;
+    }
 
+    /**
+     * Saves the game to a slot, exactly like typing ":q", ":2" or ":3" in the game, but without
+     * ending it.
+     *
+     * @param slot The save slot number, 1 to 3.
+     */
+    public void save(int slot) {
+        writeHistoryToFile(slot);
     }
 
     /**
-     * Writes the current game state to a save file for the specified slot.
+     * Loads the game saved in a slot, replacing the current one.
      *
-     * @param slot The save slot number to write to.
+     * @param slot The save slot number, 1 to 3.
+     * @return false if the slot holds no save.
      */
-    private void writeHistoryToFile(Integer slot) {
-        switch (slot) {
-            case 2:
-                Out out2 = new Out("./saves/save-slot-2.txt");
-                out2.println("n" + seed + "s" + movementHistory);
-                out2.println(enemy.getPos().getX() + " " + enemy.getPos().getY());
-                out2.println(avatar.getLife());
-                out2.close();
-                System.exit(0);
-                break;
-            case 3:
-                Out out3 = new Out("./saves/save-slot-3.txt");
-                out3.println("n" + seed + "s" + movementHistory);
-                out3.println(enemy.getPos().getX() + " " + enemy.getPos().getY());
-                out3.println(avatar.getLife());
-                out3.close();
-                System.exit(0);
-                break;
-            default:
-                Out out = new Out("./saves/save-slot-1.txt");
-                out.println("n" + seed + "s" + movementHistory);
-                out.println(enemy.getPos().getX() + " " + enemy.getPos().getY());
-                out.println(avatar.getLife());
-                out.close();
-                System.exit(0);
+    public boolean load(int slot) {
+        if (!new File(slotFile(slot)).exists()) {
+            return false;
         }
+        In in = new In(slotFile(slot));
+        String line = in.hasNextLine() ? in.readLine() : "";
+        String enemyPos = in.hasNextLine() ? in.readLine() : null;
+        String lives = in.hasNextLine() ? in.readLine() : null;
+        randomAlgorithm = readRandomAlgorithm(in);
+        in.close();
+        if (line.isEmpty()) {
+            return false;
+        }
+        getWorldFromInput(line);
+        drawEnemyPos(enemyPos);
+        handleGivenAvatarLife(lives);
+        return true;
+    }
+
+    /**
+     * Returns the tiles of the world. The array is live: it changes as the game runs.
+     */
+    public TETile[][] getTiles() {
+        return world;
+    }
+
+    /**
+     * Returns the remaining life of the avatar.
+     */
+    public int getAvatarLife() {
+        return avatar.getLife();
+    }
+
+    /**
+     * Returns the number of flowers left to collect.
+     */
+    public int getFlowersLeft() {
+        return flowers;
+    }
+
+    /**
+     * Returns the position of the avatar.
+     */
+    public Point getAvatarPosition() {
+        Point pos = avatar.getPos();
+        return new Point(pos.getX(), pos.getY());
     }
 
     /**
@@ -560,13 +1382,11 @@ public class World {
      */
     public char getOption() {
         while (true) {
-            if (StdDraw.hasNextKeyTyped()) {
-                char key = StdDraw.nextKeyTyped();
-                key = Character.toLowerCase(key);
+            char key = Character.toLowerCase(input.take());
+            InputQueue.discardStdDrawKeys();
 
-                if (key == 'n' || key == 'l' || key == '2' || key == '3' || key == 'q') {
-                    return key;
-                }
+            if (key == 'n' || key == 'l' || key == '2' || key == '3' || key == 'q') {
+                return key;
             }
         }
     }
@@ -583,18 +1403,16 @@ public class World {
         StdDraw.show();
         int i = 1;
         while (tmp != 's') {
-            if (StdDraw.hasNextKeyTyped()) {
-                tmp = StdDraw.nextKeyTyped();
-                tmp = Character.toLowerCase(tmp);
-                if (tmp == '\b' && givenSeed.length() > 0) {
-                    givenSeed.deleteCharAt(givenSeed.length() - 1);
-                } else if (Character.isDigit(tmp)) {
-                    givenSeed.append(tmp);
-                }
-                drawStart();
-                StdDraw.text(WIDTH * 7, HEIGHT * 8, "SEED: " + givenSeed.toString());
-                StdDraw.show();
+            tmp = Character.toLowerCase(input.take());
+            InputQueue.discardStdDrawKeys();
+            if (tmp == '\b' && givenSeed.length() > 0) {
+                givenSeed.deleteCharAt(givenSeed.length() - 1);
+            } else if (Character.isDigit(tmp)) {
+                givenSeed.append(tmp);
             }
+            drawStart();
+            StdDraw.text(WIDTH * 7, HEIGHT * 8, "SEED: " + givenSeed.toString());
+            StdDraw.show();
         }
         this.seed = givenSeed.toString();
         return givenSeed.toString();
@@ -607,26 +1425,46 @@ public class World {
      * @return The world grid after processing the input.
      */
     public TETile[][] getWorldFromInput(String input) {
-        input = input.toLowerCase();
-        if (input.charAt(0) == 'l') {
-            In in = new In("data.txt");
+        return getWorldFromInput(CommandReader.of(input));
+    }
+
+    /**
+     * Reads and processes input keys one at a time to set up the world, exactly like
+     * getWorldFromInput(String) but without holding the whole input in memory, so recorded
+     * sessions of any length can be replayed from a file.
+     *
+     * @param input The keys: the seed and commands. It is read to the end but not closed.
+     * @return The world grid after processing the input.
+     */
+    public TETile[][] getWorldFromInput(CommandReader input) {
+        if (input.peek() == 'l') {
+            In in = new In(saveDirectory + "/data.txt");
 
             if (!in.isEmpty()) {
-                input = in.readLine() + input.substring(1);
+                input.next();
+                input.prepend(in.readLine());
+                for (int skipped = 0; skipped < 2 && in.hasNextLine(); skipped++) {
+                    in.readLine();
+                }
+                randomAlgorithm = readRandomAlgorithm(in);
             }
             in.close();
         }
 
         StringBuilder givenSeed = new StringBuilder();
-        int i = 1;
-        while (input.charAt(i) != 's') {
-            givenSeed.append(input.charAt(i));
-            i++;
+        input.next();
+        for (int key = input.next(); key != 's'; key = input.next()) {
+            if (key == CommandReader.END) {
+                throw new IllegalArgumentException("input has no seed ending in 's'");
+            }
+            givenSeed.append((char) key);
         }
-        i++;
         this.seed = givenSeed.toString();
 
-
+        undoHistory.clear();
+        if (pathScheduler != null) {
+            pathScheduler.clear();
+        }
         buildWorld();
 
         Point rndPt;
@@ -635,38 +1473,46 @@ public class World {
 
         rndPt = randRoom.getRandomPointInRoom(random);
         avatar = new Avatar(rndPt, new Point(rndPt.getX(), rndPt.getY()), Tileset.HERO);
-        world[rndPt.getX()][rndPt.getY()] = avatar.getImg();
+        setTile(rndPt.getX(), rndPt.getY(), avatar.getImg());
 
 
-        for (int k = 0; k < flowers; k++) {
+        entities.clear();
+        flowers = flowerCount;
+        long[] flowerTiles = new long[flowerCount];
+        for (int k = 0; k < flowerCount; k++) {
             randRoom = rooms.get(random.nextInt(rooms.size()));
-            rndPt = randRoom.getRandomPointInRoom(random);
-            flowerPositions.add(rndPt);
-            world[rndPt.getX()][rndPt.getY()] = Tileset.FLOWER;
+            long tile = randRoom.randomTileInRoom(random);
+            flowerTiles[k] = tile;
+            setTile(Coords.x(tile), Coords.y(tile), Tileset.FLOWER);
         }
 
         int enemyInd = random.nextInt(rooms.size());
         while (enemyInd != avtrInd) {
             enemyInd = random.nextInt(rooms.size());
         }
-        randRoom = rooms.get(random.nextInt(rooms.size()));
-        rndPt = randRoom.getRandomPointInRoom(random);
-
-
-        enemy = new Avatar(rndPt, new Point(rndPt.getX(), rndPt.getY()), Tileset.ENEMY);
-        world[enemy.getPos().getX()][enemy.getPos().getY()] = enemy.getImg();
+        // Enemies go first in the store so that removing flowers never reorders them.
+        for (int k = 0; k < enemyCount; k++) {
+            randRoom = rooms.get(random.nextInt(rooms.size()));
+            long tile = randRoom.randomTileInRoom(random);
+            entities.add(EntityStore.ENEMY, Coords.x(tile), Coords.y(tile), 1);
+            setTile(Coords.x(tile), Coords.y(tile), Tileset.ENEMY);
+        }
+        for (long flower : flowerTiles) {
+            entities.add(EntityStore.FLOWER, Coords.x(flower), Coords.y(flower), 1);
+        }
 
         calculateVisibility();
 
-        enemyPath = pathFinder.findPath(world, enemy.getPos(), avatar.getPos());
+        for (int e = 0; e < enemyCount; e++) {
+            planEnemyPath(e);
+        }
 
 
-        while (i < input.length()) {
-            updateWorld(input.charAt(i));
-            i++;
+        for (int key = input.next(); key != CommandReader.END; key = input.next()) {
+            updateWorld((char) key);
         }
 
-        this.movementHistory = "";
+        truncateHistory(0);
         return world;
     }
 
@@ -685,22 +1531,30 @@ public class World {
             changeLineOfSight();
             return;
         }
+        if (m == 'm') {
+            changeShowMetrics();
+            return;
+        }
+        if (m == 'u') {
+            rewind(1);
+            return;
+        }
         if (m != 'a' && m != 's' && m != 'w' && m != 'd' && m != ':' && m != 'q' && m != '2' && m != '3') {
             return;
         }
 
-        if (!movementHistory.isEmpty() && movementHistory.charAt(movementHistory.length() - 1) == ':') {
-            movementHistory = movementHistory.substring(0, movementHistory.length() - 1);
+        if (endsWithColon()) {
+            truncateHistory(movementHistory.length() - 1);
             if (m == 'q') {
-                Out out = new Out("data.txt");
-                out.println("n" + seed + "s" + movementHistory);
-                out.println(enemy.getPos().getX() + " " + enemy.getPos().getY());
-                out.println(avatar.getLife());
-                out.close();
+                writeSave(new Out(saveDirectory + "/data.txt"));
                 return;
             }
         }
 
+        if (m == 'a' || m == 's' || m == 'w' || m == 'd') {
+            recordUndoPoint();
+        }
+
         int x = this.avatar.getPos().getX();
         int y = this.avatar.getPos().getY();
 
@@ -727,18 +1581,40 @@ public class World {
         if (!world[x][y].equals(Tileset.WALL_GRAY)) {
 
             resetVisibility();
-            world[avatar.getPos().getX()][avatar.getPos().getY()] = Tileset.FLOOR;
+            clearTile(avatar.getPos().getX(), avatar.getPos().getY());
 
             avatar.getPos().setX(x);
             avatar.getPos().setY(y);
 
-            world[x][y] = avatar.getImg();
+            setTile(x, y, avatar.getImg());
             checkIfCatchFlower();
 
             calculateVisibility();
         }
-        this.movementHistory += m;
+        this.movementHistory.append(m);
+
+    }
 
+    /**
+     * Returns true if the last key in the movement history is ':', the first half of a save.
+     */
+    private boolean endsWithColon() {
+        int length = movementHistory.length();
+        return length > 0 && movementHistory.charAt(length - 1) == ':';
+    }
+
+    /**
+     * Shortens the movement history, copying it first if a snapshot still refers to it.
+     *
+     * @param length The new length.
+     */
+    private void truncateHistory(int length) {
+        if (historyShared) {
+            movementHistory = new StringBuilder(movementHistory.length() + 16).append(movementHistory, 0, length);
+            historyShared = false;
+        } else {
+            movementHistory.setLength(length);
+        }
     }
 
     /**
@@ -747,7 +1623,7 @@ public class World {
     public void initWorld() {
         for (int x = 0; x < world.length; x++) {
             for (int y = 0; y < world[0].length; y++) {
-                world[x][y] = Tileset.NOTHING;
+                setTile(x, y, Tileset.NOTHING);
             }
         }
     }
@@ -758,11 +1634,25 @@ public class World {
      * @param numRooms The number of rooms to generate.
      */
     public void generateRooms(int numRooms) {
-        while (rooms.size() < numRooms) {
+        generateRooms(numRooms, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Places rooms until there are numRooms of them or randomRoomGenerator has failed
+     * maxFailures times in all.
+     *
+     * @param numRooms    The number of rooms to generate.
+     * @param maxFailures The number of failures after which to stop short.
+     */
+    private void generateRooms(int numRooms, int maxFailures) {
+        int failures = 0;
+        while (rooms.size() < numRooms && failures < maxFailures) {
             Room newR = randomRoomGenerator();
             if (newR != null) {
                 rooms.add(newR);
                 drawRoom(newR);
+            } else {
+                failures++;
             }
         }
     }
@@ -784,17 +1674,14 @@ public class World {
      * @param r The room for which to draw walls.
      */
     private void drawWalls(Room r) {
-        Point bottomLeft = r.getBottomLeft();
-        Point topRight = r.getTopRight();
-
-        for (int x = bottomLeft.getX(); x < topRight.getX(); x++) {
-            world[x][bottomLeft.getY()] = Tileset.WALL_GRAY;
-            world[x][topRight.getY() - 1] = Tileset.WALL_GRAY;
+        for (int x = r.left(); x < r.right(); x++) {
+            setTile(x, r.bottom(), Tileset.WALL_GRAY);
+            setTile(x, r.top() - 1, Tileset.WALL_GRAY);
         }
 
-        for (int y = bottomLeft.getY(); y < topRight.getY(); y++) {
-            world[bottomLeft.getX()][y] = Tileset.WALL_GRAY;
-            world[topRight.getX() - 1][y] = Tileset.WALL_GRAY;
+        for (int y = r.bottom(); y < r.top(); y++) {
+            setTile(r.left(), y, Tileset.WALL_GRAY);
+            setTile(r.right() - 1, y, Tileset.WALL_GRAY);
         }
     }
 
@@ -805,12 +1692,9 @@ public class World {
      * @param r The room for which to fill the floor.
      */
     private void fillFloor(Room r) {
-        Point bottomLeft = r.getBottomLeft();
-        Point topRight = r.getTopRight();
-
-        for (int x = bottomLeft.getX() + 1; x < topRight.getX() - 1; x++) {
-            for (int y = bottomLeft.getY() + 1; y < topRight.getY() - 1; y++) {
-                world[x][y] = Tileset.FLOOR;
+        for (int x = r.left() + 1; x < r.right() - 1; x++) {
+            for (int y = r.bottom() + 1; y < r.top() - 1; y++) {
+                setTile(x, y, Tileset.FLOOR);
             }
         }
     }
@@ -855,14 +1739,17 @@ public class World {
      * @param r2 The second room to connect.
      */
     public void drawHallway(Room r1, Room r2) {
-        Point start = r1.getRandomPointInRoom(random);
-        Point end = r2.getRandomPointInRoom(random);
+        long start = r1.randomTileInRoom(random);
+        long end = r2.randomTileInRoom(random);
+        int startX = Coords.x(start), startY = Coords.y(start);
+        int endX = Coords.x(end), endY = Coords.y(end);
 
-        boolean horizontal = Math.abs(start.getX() - end.getX()) > Math.abs(start.getY() - end.getY());
-        Point turningPoint = horizontal ? new Point(end.getX(), start.getY()) : new Point(start.getX(), end.getY());
+        boolean horizontal = Math.abs(startX - endX) > Math.abs(startY - endY);
+        int turnX = horizontal ? endX : startX;
+        int turnY = horizontal ? startY : endY;
 
-        drawSegment(start, turningPoint, horizontal);
-        drawSegment(turningPoint, end, !horizontal);
+        drawSegment(startX, startY, turnX, turnY, horizontal);
+        drawSegment(turnX, turnY, endX, endY, !horizontal);
     }
 
     /**
@@ -871,17 +1758,19 @@ public class World {
      * segment if necessary. It is used as part of the hallway drawing process, typically for creating
      * straight hallway sections before a turn.
      *
-     * @param start The starting point of the segment.
-     * @param end   The ending point of the segment.
+     * @param startX The x-coordinate of the starting point of the segment.
+     * @param startY The y-coordinate of the starting point of the segment.
+     * @param endX   The x-coordinate of the ending point of the segment.
+     * @param endY   The y-coordinate of the ending point of the segment.
      */
-    private void drawSegment(Point start, Point end, boolean isHorizontal) {
+    private void drawSegment(int startX, int startY, int endX, int endY, boolean isHorizontal) {
         if (isHorizontal) {
-            for (int x = start.getX(); x != end.getX(); x += Integer.signum(end.getX() - start.getX())) {
-                drawHallwayTile(x, start.getY());
+            for (int x = startX; x != endX; x += Integer.signum(endX - startX)) {
+                drawHallwayTile(x, startY);
             }
         } else {
-            for (int y = start.getY(); y != end.getY(); y += Integer.signum(end.getY() - start.getY())) {
-                drawHallwayTile(start.getX(), y);
+            for (int y = startY; y != endY; y += Integer.signum(endY - startY)) {
+                drawHallwayTile(startX, y);
             }
         }
     }
@@ -898,7 +1787,7 @@ public class World {
         }
 
         if (world[x][y] == Tileset.NOTHING || world[x][y] == Tileset.WALL_GRAY) {
-            world[x][y] = Tileset.FLOOR;
+            setTile(x, y, Tileset.FLOOR);
             for (int i = -1; i <= 1; i++) {
                 for (int j = -1; j <= 1; j++) {
 
@@ -909,7 +1798,7 @@ public class World {
                     int wallY = y + j;
 
                     if (world[wallX][wallY] == Tileset.NOTHING) {
-                        world[wallX][wallY] = Tileset.WALL_GRAY;
+                        setTile(wallX, wallY, Tileset.WALL_GRAY);
                     }
                 }
             }
@@ -924,13 +1813,15 @@ public class World {
     public Room randomRoomGenerator() {
         int attempts = 0;
         while (attempts < 100) {
-            Point pos = randomPointOnWorld();
+            long pos = randomCornerOnWorld();
+            int x = Coords.x(pos);
+            int y = Coords.y(pos);
             int width = RandomUtils.uniform(random, 4, maxRoomWid);
             int height = RandomUtils.uniform(random, 4, maxRoomHeight);
-            Room newRoom = new Room(pos, height, width);
 
-            if (!doesIntersect(newRoom)) {
-                return newRoom;
+            // Only rooms that fit get allocated; rejected candidates are plain ints.
+            if (!doesIntersect(x, y, x + width, y + height)) {
+                return new Room(x, y, height, width);
             }
             attempts++;
         }
@@ -938,13 +1829,16 @@ public class World {
     }
 
     /**
-     * Given a room object, checks whether the given room intersects with the other rooms in the world
+     * Given the corners of a new room, checks whether it intersects with the other rooms in the world
      *
-     * @param newRoom The Room object that might overlap with the other rooms
+     * @param left   The x-coordinate of the new room's bottom left corner
+     * @param bottom The y-coordinate of the new room's bottom left corner
+     * @param right  The x-coordinate of the new room's top right corner
+     * @param top    The y-coordinate of the new room's top right corner
      */
-    private boolean doesIntersect(Room newRoom) {
+    private boolean doesIntersect(int left, int bottom, int right, int top) {
         for (Room room : rooms) {
-            if (room.intersects(newRoom)) {
+            if (room.intersects(left, bottom, right, top)) {
                 return true;
             }
         }
@@ -957,9 +1851,17 @@ public class World {
      * @return A random point within the world boundaries.
      */
     public Point randomPointOnWorld() {
+        long corner = randomCornerOnWorld();
+        return new Point(Coords.x(corner), Coords.y(corner));
+    }
+
+    /**
+     * Like randomPointOnWorld, but returns the point packed with Coords.pack.
+     */
+    private long randomCornerOnWorld() {
         int x = 1 + RandomUtils.uniform(random, world.length - maxRoomWid);
         int y = 1 + RandomUtils.uniform(random, world[0].length - maxRoomHeight);
 
-        return new Point(x, y);
+        return Coords.pack(x, y);
     }
 }
@@ -0,0 +1,221 @@
+package core;
+
+import tileengine.TETile;
+import tileengine.TileRegistry;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.random.RandomGenerator;
+import java.util.stream.Stream;
+
+/**
+ * The WorldCache class keeps generated worlds on disk, so that a seed that was generated once
+ * does not have to be generated again: later requests map the file into memory and copy the
+ * tiles out. An entry holds everything World.buildWorld produces: the tiles, one byte each via
+ * TileRegistry, the rooms, and the state of the random number generator afterwards, so the game
+ * continues exactly as if the world had just been generated.
+ * <p>
+ * Entries are named after their key: the seed, the size of the map, World.GENERATOR_VERSION and
+ * a variant naming the generator settings. A change to world generation must bump
+ * GENERATOR_VERSION so that stale entries are never read. Entries are written to a temporary
+ * file and moved into place, so readers never see half an entry and several worlds, threads or
+ * processes can share a directory. Once the directory grows beyond its byte budget, the least
+ * recently used entries are deleted; a hit counts as a use.
+ */
+public class WorldCache {
+    /** The system property naming the directory of the cache World uses by default. */
+    public static final String DIRECTORY_PROPERTY = "byow.worldCache";
+    private static final int MAGIC = 0x42595743;
+    private static final String SUFFIX = ".world";
+    private static final long DEFAULT_MAX_BYTES = 64L << 20;
+    /** The caches handed out by fromSystemProperty, one per directory. */
+    private static final Map<Path, WorldCache> SHARED = new ConcurrentHashMap<>();
+
+    private final Path directory;
+    private final long maxBytes;
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates a cache in a directory, which is created if missing.
+     *
+     * @param directory The directory to keep entries in.
+     * @param maxBytes  The total size of entries above which the least recently used are deleted.
+     */
+    public WorldCache(Path directory, long maxBytes) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns a cache in the directory named by the byow.worldCache system property, or null if
+     * the property is not set.
+     */
+    public static WorldCache fromSystemProperty() {
+        String dir = System.getProperty(DIRECTORY_PROPERTY);
+        return dir == null || dir.isEmpty() ? null
+                : SHARED.computeIfAbsent(Path.of(dir), path -> new WorldCache(path, DEFAULT_MAX_BYTES));
+    }
+
+    /**
+     * A generated world as stored in the cache.
+     *
+     * @param tiles  The tiles, indexed [x][y].
+     * @param rooms  The rooms, in generation order.
+     * @param random The generator in the state generation left it in.
+     */
+    public record Entry(TETile[][] tiles, List<Room> rooms, RandomGenerator random) {
+    }
+
+    /**
+     * Looks up a world.
+     *
+     * @param seed    The seed.
+     * @param width   The width of the map.
+     * @param height  The height of the map.
+     * @param variant The generator settings, as letters, digits and dashes.
+     * @return The entry, or null if there is none or it cannot be read.
+     */
+    public Entry get(long seed, int width, int height, String variant) {
+        Path file = fileFor(seed, width, height, variant);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.getInt() != MAGIC || in.getInt() != World.GENERATOR_VERSION
+                    || in.getInt() != width || in.getInt() != height) {
+                return miss();
+            }
+            int roomCount = in.getInt();
+            List<Room> rooms = new ArrayList<>(roomCount);
+            for (int r = 0; r < roomCount; r++) {
+                int left = in.getInt(), bottom = in.getInt(), right = in.getInt(), top = in.getInt();
+                rooms.add(new Room(left, bottom, top - bottom, right - left));
+            }
+            byte[] randomState = new byte[in.getInt()];
+            in.get(randomState);
+            TETile[][] tiles = new TETile[width][height];
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    tiles[x][y] = TileRegistry.tile(in.get());
+                }
+            }
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            synchronized (this) {
+                hits++;
+            }
+            return new Entry(tiles, rooms, WorldSnapshot.loadRandom(randomState));
+        } catch (IOException | RuntimeException e) {
+            // Missing, truncated, evicted while reading or written by other code: generate instead.
+            return miss();
+        }
+    }
+
+    /**
+     * Stores a world, replacing any entry with the same key. Worlds holding tiles that are not
+     * in TileRegistry are not stored.
+     *
+     * @param seed    The seed.
+     * @param variant The generator settings, as letters, digits and dashes.
+     * @param entry   The world.
+     */
+    public void put(long seed, String variant, Entry entry) {
+        TETile[][] tiles = entry.tiles();
+        int width = tiles.length, height = tiles[0].length;
+        byte[] randomState = WorldSnapshot.saveRandom(entry.random());
+        ByteBuffer out = ByteBuffer.allocate(20 + 16 * entry.rooms().size() + 4 + randomState.length
+                + width * height);
+        out.putInt(MAGIC).putInt(World.GENERATOR_VERSION).putInt(width).putInt(height);
+        out.putInt(entry.rooms().size());
+        for (Room room : entry.rooms()) {
+            out.putInt(room.left()).putInt(room.bottom()).putInt(room.right()).putInt(room.top());
+        }
+        out.putInt(randomState.length).put(randomState);
+        for (TETile[] column : tiles) {
+            for (TETile tile : column) {
+                int id = TileRegistry.idOf(tile);
+                if (id < 0) {
+                    return;
+                }
+                out.put((byte) id);
+            }
+        }
+        Path file = fileFor(seed, width, height, variant);
+        try {
+            Path temp = Files.createTempFile(directory, "entry", ".tmp");
+            Files.write(temp, out.array());
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            evict();
+        } catch (IOException e) {
+            // The cache is only an optimization; a world that cannot be stored is generated again.
+        }
+    }
+
+    /**
+     * Returns the number of successful lookups.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that found nothing usable.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    private synchronized Entry miss() {
+        misses++;
+        return null;
+    }
+
+    private Path fileFor(long seed, int width, int height, String variant) {
+        if (!variant.matches("[A-Za-z0-9-]*")) {
+            throw new IllegalArgumentException("bad variant: " + variant);
+        }
+        return directory.resolve(seed + "-" + width + "x" + height + "-v" + World.GENERATOR_VERSION
+                + "-" + variant + SUFFIX);
+    }
+
+    /** Deletes the least recently used entries until the directory is within its budget. */
+    private synchronized void evict() throws IOException {
+        List<File> entries = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(p -> p.toString().endsWith(SUFFIX)).forEach(p -> entries.add(p.toFile()));
+        }
+        long total = 0;
+        for (File entry : entries) {
+            total += entry.length();
+        }
+        entries.sort(Comparator.comparingLong(File::lastModified));
+        for (int i = 0; i < entries.size() && total > maxBytes; i++) {
+            long size = entries.get(i).length();
+            if (entries.get(i).delete()) {
+                total -= size;
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package core;
+
+import tileengine.TETile;
+import tileengine.TileRegistry;
+
+/**
+ * The WorldHash class computes a 64-bit fingerprint of a world: every tile, the avatar and every
+ * entity with its kind and position. Two worlds with the same hash are, for any practical
+ * purpose, the same world, which makes the hash a cheap way to check that a change to
+ * generation did not change the world a seed produces. Hashing walks the arrays once and
+ * allocates nothing.
+ */
+public class WorldHash {
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private WorldHash() {
+    }
+
+    /**
+     * Returns the hash of a world: its tiles, its avatar and its entities.
+     *
+     * @param world A world with a game started.
+     */
+    public static long of(World world) {
+        long h = tiles(world.getTiles());
+        Point avatar = world.getAvatarPosition();
+        h = step(h, avatar.getX());
+        h = step(h, avatar.getY());
+        EntityStore entities = world.getEntities();
+        h = step(h, entities.size());
+        for (int i = 0; i < entities.size(); i++) {
+            h = step(h, entities.kind(i));
+            h = step(h, entities.x(i));
+            h = step(h, entities.y(i));
+        }
+        return finish(h);
+    }
+
+    /**
+     * Returns the hash of a tile grid alone.
+     *
+     * @param tiles The tiles, indexed [x][y].
+     */
+    public static long tiles(TETile[][] tiles) {
+        long h = step(tiles.length, tiles[0].length);
+        // Neighbouring tiles are mostly the same tile, so remember the last registry lookup.
+        TETile last = null;
+        int lastValue = 0;
+        for (TETile[] column : tiles) {
+            for (TETile tile : column) {
+                if (tile != last) {
+                    int id = TileRegistry.idOf(tile);
+                    // Tiles outside the registry still count, by what they look like.
+                    lastValue = id >= 0 ? id : tile.character() * 31 + tile.description().hashCode();
+                    last = tile;
+                }
+                h = step(h, lastValue);
+            }
+        }
+        return finish(h);
+    }
+
+    private static long step(long h, int value) {
+        return (h + value + 1) * MULTIPLIER;
+    }
+
+    /** The 64-bit finalizer of MurmurHash3. */
+    private static long finish(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
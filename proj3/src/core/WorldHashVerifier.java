@@ -0,0 +1,121 @@
+package core;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+/**
+ * The WorldHashVerifier class checks that seeds still generate the worlds they always have. A
+ * golden corpus maps seeds to the WorldHash of a new game started with that seed; the verifier
+ * regenerates every seed of the corpus on all cores and reports each one whose hash changed.
+ * <p>
+ * The corpus is a text file with one "seed hash" pair per line, the hash in hexadecimal.
+ * Lines starting with # are comments.
+ * Usage: WorldHashVerifier [corpus] or WorldHashVerifier --write corpus firstSeed count
+ */
+public class WorldHashVerifier {
+    /** The corpus shipped with the tests. */
+    public static final String DEFAULT_CORPUS = "tests/golden/world-hashes.txt";
+
+    private WorldHashVerifier() {
+    }
+
+    /**
+     * Returns the hash of a new game started with a seed, in a default world.
+     *
+     * @param seed The seed.
+     */
+    public static long hashOfSeed(long seed) {
+        World world = new World();
+        world.getWorldFromInput("n" + seed + "s");
+        return WorldHash.of(world);
+    }
+
+    /**
+     * Regenerates every seed of a corpus in parallel and compares the hashes.
+     *
+     * @param expected Seeds and their expected hashes.
+     * @return One line per mismatch, ordered by seed; empty if every seed matches.
+     */
+    public static List<String> verify(Map<Long, Long> expected) {
+        List<String> mismatches = Collections.synchronizedList(new ArrayList<>());
+        expected.entrySet().parallelStream().forEach(e -> {
+            long actual = hashOfSeed(e.getKey());
+            if (actual != e.getValue()) {
+                mismatches.add(String.format("seed %d: expected %016x, got %016x", e.getKey(), e.getValue(), actual));
+            }
+        });
+        List<String> sorted = new ArrayList<>(mismatches);
+        sorted.sort((a, b) -> Long.compare(seedOf(a), seedOf(b)));
+        return sorted;
+    }
+
+    private static long seedOf(String mismatch) {
+        return Long.parseLong(mismatch.substring(5, mismatch.indexOf(':')));
+    }
+
+    /**
+     * Reads a corpus file.
+     *
+     * @param file The corpus.
+     * @return Seeds and their hashes, in file order.
+     */
+    public static Map<Long, Long> readCorpus(Path file) throws IOException {
+        Map<Long, Long> corpus = new LinkedHashMap<>();
+        try (BufferedReader in = Files.newBufferedReader(file)) {
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split("\\s+");
+                corpus.put(Long.parseLong(parts[0]), Long.parseUnsignedLong(parts[1], 16));
+            }
+        }
+        return corpus;
+    }
+
+    /**
+     * Writes a corpus for a range of seeds, hashing them in parallel.
+     *
+     * @param file      The corpus to write.
+     * @param firstSeed The first seed.
+     * @param count     The number of consecutive seeds.
+     */
+    public static void writeCorpus(Path file, long firstSeed, int count) throws IOException {
+        long[] hashes = new long[count];
+        LongStream.range(0, count).parallel().forEach(i -> hashes[(int) i] = hashOfSeed(firstSeed + i));
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            out.write("# seed -> WorldHash.of a new game, generator version " + World.GENERATOR_VERSION);
+            out.newLine();
+            for (int i = 0; i < count; i++) {
+                out.write(String.format("%d %016x", firstSeed + i, hashes[i]));
+                out.newLine();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 4 && args[0].equals("--write")) {
+            writeCorpus(Path.of(args[1]), Long.parseLong(args[2]), Integer.parseInt(args[3]));
+            return;
+        }
+        Map<Long, Long> corpus = readCorpus(Path.of(args.length > 0 ? args[0] : DEFAULT_CORPUS));
+        long start = System.nanoTime();
+        List<String> mismatches = verify(corpus);
+        mismatches.forEach(System.out::println);
+        System.out.printf("%d seeds, %d mismatches, %.2f s on %d cores%n", corpus.size(), mismatches.size(),
+                (System.nanoTime() - start) / 1e9, Runtime.getRuntime().availableProcessors());
+        if (!mismatches.isEmpty()) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package core;
+
+import tileengine.TETile;
+import utils.Xoshiro256StarStar;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * The WorldSnapshot class is an immutable capture of everything a World needs to continue a
+ * game from a given moment: the tiles, the entities with their planned paths, the avatar, the
+ * counters and the state of the random number generator. View settings such as line of sight
+ * are not part of it.
+ * <p>
+ * Tiles are held as chunks shared with earlier snapshots (see TileChunks), so taking a snapshot
+ * costs time and memory proportional to what changed since the previous one. Snapshots are
+ * taken and restored with World.snapshot and World.restore.
+ */
+public final class WorldSnapshot {
+    final TETile[][] chunks;
+    final EntityStore entities;
+    final int avatarStartX, avatarStartY, avatarX, avatarY, avatarLife;
+    final TETile avatarImg;
+    final int flowers;
+    final boolean started;
+    final long tickCount;
+    final long lastEnemyMoveTick;
+    /** Shared with the world, which only ever appends past historyLength. */
+    final CharSequence movementHistory;
+    final int historyLength;
+    final String seed;
+    final List<Room> rooms;
+    final RegionMap regionMap;
+    /** Never written after generation, so shared rather than copied. */
+    final TETile[][] ground;
+    /** A private copy of the world's generator when it can copy itself, otherwise null. */
+    private final Xoshiro256StarStar randomCopy;
+    /** The serialized generator when randomCopy is null. */
+    private final byte[] randomState;
+
+    WorldSnapshot(TETile[][] chunks, EntityStore entities, Avatar avatar, int flowers, boolean started,
+                  long tickCount, long lastEnemyMoveTick, CharSequence movementHistory, int historyLength, String seed,
+                  List<Room> rooms, RegionMap regionMap, TETile[][] ground, RandomGenerator random) {
+        this.chunks = chunks;
+        this.entities = entities;
+        this.avatarStartX = avatar.getStartPos().getX();
+        this.avatarStartY = avatar.getStartPos().getY();
+        this.avatarX = avatar.getPos().getX();
+        this.avatarY = avatar.getPos().getY();
+        this.avatarLife = avatar.getLife();
+        this.avatarImg = avatar.getImg();
+        this.flowers = flowers;
+        this.started = started;
+        this.tickCount = tickCount;
+        this.lastEnemyMoveTick = lastEnemyMoveTick;
+        this.movementHistory = movementHistory;
+        this.historyLength = historyLength;
+        this.seed = seed;
+        this.rooms = List.copyOf(rooms);
+        this.regionMap = regionMap;
+        this.ground = ground;
+        if (random instanceof Xoshiro256StarStar xoshiro) {
+            this.randomCopy = xoshiro.copy();
+            this.randomState = null;
+        } else {
+            this.randomCopy = null;
+            this.randomState = saveRandom(random);
+        }
+    }
+
+    /**
+     * Returns the tick the snapshot was taken at.
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * Returns the moves typed up to the snapshot, as they would be written to a save file.
+     */
+    public String getMovementHistory() {
+        return movementHistory.subSequence(0, historyLength).toString();
+    }
+
+    /**
+     * Returns a new generator in the state the world's generator was in at the snapshot.
+     */
+    RandomGenerator random() {
+        return randomCopy != null ? randomCopy.copy() : loadRandom(randomState);
+    }
+
+    /**
+     * Deserializes a generator written by saveRandom.
+     */
+    static RandomGenerator loadRandom(byte[] state) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(state))) {
+            return (RandomGenerator) in.readObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Serializes a generator. java.util.Random does not expose its seed, but its serialized
+     * form carries the full state, which is all a copy needs. Generators that are not
+     * serializable, such as SplittableRandom, cannot be snapshotted.
+     */
+    static byte[] saveRandom(RandomGenerator random) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(random);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,190 @@
+package server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The GameServer class hosts many independent games in one JVM. Clients connect over a local
+ * TCP or Unix domain socket and speak the line protocol described in GameSession; every
+ * connection is one session with its own World and its own save directory, served by its own
+ * thread.
+ * <p>
+ * Sessions run on virtual threads when the JVM has them (Java 21 and later) and on a cached pool
+ * of platform threads otherwise. The executor is looked up reflectively so the project still
+ * compiles for Java 17.
+ */
+public class GameServer implements Closeable {
+    private final ServerSocketChannel channel;
+    private final SocketAddress address;
+    private final Path root;
+    private final ExecutorService sessions;
+    private final Set<SocketChannel> clients;
+    private final AtomicLong nextSessionId;
+    private final Thread acceptor;
+    private volatile boolean closed;
+
+    private GameServer(ServerSocketChannel channel, Path root) throws IOException {
+        this.channel = channel;
+        this.address = channel.getLocalAddress();
+        this.root = root;
+        Files.createDirectories(root);
+        sessions = newThreadPerTaskExecutor("session");
+        clients = ConcurrentHashMap.newKeySet();
+        nextSessionId = new AtomicLong();
+        acceptor = new Thread(this::acceptLoop, "game-server-accept");
+        acceptor.setDaemon(true);
+    }
+
+    /**
+     * Opens a server on a loopback TCP port.
+     *
+     * @param port The port to listen on, or 0 for any free port.
+     * @param root The directory that session save directories are created in.
+     * @return The server, not yet accepting connections.
+     */
+    public static GameServer openTcp(int port, Path root) throws IOException {
+        ServerSocketChannel channel = ServerSocketChannel.open();
+        channel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        return new GameServer(channel, root);
+    }
+
+    /**
+     * Opens a server on a Unix domain socket. A stale socket file at the path is replaced.
+     *
+     * @param socket The path of the socket file.
+     * @param root   The directory that session save directories are created in.
+     * @return The server, not yet accepting connections.
+     */
+    public static GameServer openUnix(Path socket, Path root) throws IOException {
+        Files.deleteIfExists(socket);
+        ServerSocketChannel channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        channel.bind(UnixDomainSocketAddress.of(socket));
+        return new GameServer(channel, root);
+    }
+
+    /**
+     * Starts accepting connections on a background thread.
+     *
+     * @return This server.
+     */
+    public GameServer start() {
+        acceptor.start();
+        return this;
+    }
+
+    /**
+     * Returns the address clients connect to.
+     */
+    public SocketAddress getAddress() {
+        return address;
+    }
+
+    /**
+     * Returns the number of sessions that have been opened so far.
+     */
+    public long getSessionCount() {
+        return nextSessionId.get();
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            SocketChannel client;
+            try {
+                client = channel.accept();
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                if (closed) {
+                    return;
+                }
+                System.err.println("accept failed: " + e.getMessage());
+                continue;
+            }
+            long id = nextSessionId.incrementAndGet();
+            clients.add(client);
+            sessions.execute(() -> {
+                try {
+                    new GameSession(id, root.resolve("session-" + id), client).run();
+                } finally {
+                    clients.remove(client);
+                }
+            });
+        }
+    }
+
+    /**
+     * Stops accepting connections and disconnects every session.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        channel.close();
+        for (SocketChannel client : clients) {
+            client.close();
+        }
+        sessions.shutdown();
+        try {
+            sessions.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (address instanceof UnixDomainSocketAddress) {
+            Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+        }
+    }
+
+    /**
+     * Returns an executor that runs every task on a new virtual thread if the JVM supports them,
+     * or else on a cached pool of daemon platform threads.
+     *
+     * @param name The name prefix of the platform threads.
+     */
+    static ExecutorService newThreadPerTaskExecutor(String name) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicLong count = new AtomicLong();
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, name + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Runs a server until the process is killed.
+     *
+     * @param args "tcp:PORT" or "unix:PATH", optionally followed by the save root directory
+     *             (default "server-saves").
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1 || !(args[0].startsWith("tcp:") || args[0].startsWith("unix:"))) {
+            System.out.println("usage: GameServer tcp:PORT|unix:PATH [saveRoot]");
+            System.exit(1);
+        }
+        Path root = Path.of(args.length > 1 ? args[1] : "server-saves");
+        GameServer server = args[0].startsWith("tcp:")
+                ? openTcp(Integer.parseInt(args[0].substring(4)), root)
+                : openUnix(Path.of(args[0].substring(5)), root);
+        server.start();
+        System.out.println("listening on " + server.getAddress());
+        Thread.currentThread().join();
+    }
+}
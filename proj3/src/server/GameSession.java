@@ -0,0 +1,224 @@
+package server;
+
+import core.FrameSnapshot;
+import core.Point;
+import core.World;
+import tileengine.TETile;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The GameSession class serves one client connection of the GameServer. A session owns one
+ * World and one save directory that nothing else touches, so sessions need no locking.
+ * <p>
+ * The protocol is line based, one command per line, one reply per command:
+ * <ul>
+ *     <li>{@code NEW seed} starts a new game. Reply: {@code OK}.</li>
+ *     <li>{@code MOVE keys} applies the keys (any of wasd, k, v) and runs one tick.
+ *     Reply: a status line.</li>
+ *     <li>{@code TICK n} runs up to n ticks without input. Reply: a status line.</li>
+ *     <li>{@code UNDO [n]} takes back the last n moves (default 1), enemies included.
+ *     Reply: a status line.</li>
+ *     <li>{@code STATE} replies with a status line followed by the world's width and height and
+ *     then one line of tile characters per row, top row first.</li>
+ *     <li>{@code SAVE [slot]} and {@code LOAD [slot]} save to and load from the session's own
+ *     slots 1 to 3. Reply: {@code OK}.</li>
+ *     <li>{@code QUIT} ends the session. Reply: {@code BYE}.</li>
+ * </ul>
+ * A status line reads {@code OK status tick life flowers avatarX avatarY}. Once a game is won or
+ * lost, MOVE and TICK only report its final status. Errors are reported as {@code ERR message}
+ * and leave the session open.
+ */
+class GameSession implements Runnable {
+    /** The most keys one MOVE may carry; more would not fit the world's input queue anyway. */
+    private static final int MAX_KEYS = 256;
+    private static final int MAX_TICKS = 1_000_000;
+
+    private final long id;
+    private final Path directory;
+    private final SocketChannel channel;
+    private World world;
+    private FrameSnapshot.Status status;
+
+    GameSession(long id, Path directory, SocketChannel channel) {
+        this.id = id;
+        this.directory = directory;
+        this.channel = channel;
+    }
+
+    @Override
+    public void run() {
+        try (SocketChannel c = channel;
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(Channels.newInputStream(c), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(
+                     new OutputStreamWriter(Channels.newOutputStream(c), StandardCharsets.UTF_8))) {
+            Files.createDirectories(directory.resolve("saves"));
+            String line;
+            while ((line = in.readLine()) != null) {
+                boolean more = handle(line.trim(), out);
+                out.flush();
+                if (!more) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            // The client went away or the server is shutting down; the session just ends.
+        }
+    }
+
+    /**
+     * Handles one command line and writes its reply.
+     *
+     * @return false if the session should end.
+     */
+    private boolean handle(String line, BufferedWriter out) throws IOException {
+        int space = line.indexOf(' ');
+        String command = (space < 0 ? line : line.substring(0, space)).toUpperCase();
+        String arg = space < 0 ? "" : line.substring(space + 1).trim();
+        try {
+            switch (command) {
+                case "NEW":
+                    newGame(Long.parseLong(arg));
+                    out.write("OK\n");
+                    break;
+                case "MOVE":
+                    move(arg);
+                    writeStatus(out);
+                    break;
+                case "TICK":
+                    advance(Integer.parseInt(arg));
+                    writeStatus(out);
+                    break;
+                case "UNDO":
+                    requireGame();
+                    if (world.rewind(arg.isEmpty() ? 1 : Integer.parseInt(arg)) > 0) {
+                        status = FrameSnapshot.Status.PLAYING;
+                    }
+                    writeStatus(out);
+                    break;
+                case "STATE":
+                    requireGame();
+                    writeStatus(out);
+                    writeTiles(out);
+                    break;
+                case "SAVE":
+                    requireGame();
+                    world.save(slot(arg));
+                    out.write("OK\n");
+                    break;
+                case "LOAD":
+                    load(slot(arg));
+                    out.write("OK\n");
+                    break;
+                case "QUIT":
+                    out.write("BYE\n");
+                    return false;
+                case "":
+                    break;
+                default:
+                    out.write("ERR unknown command " + command + "\n");
+            }
+        } catch (NumberFormatException e) {
+            out.write("ERR bad number in: " + line + "\n");
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            out.write("ERR " + e.getMessage() + "\n");
+        }
+        return true;
+    }
+
+    private void newGame(long seed) {
+        if (seed < 0) {
+            throw new IllegalArgumentException("seed must not be negative");
+        }
+        world = newWorld();
+        world.getWorldFromInput("n" + seed + "s");
+        status = FrameSnapshot.Status.PLAYING;
+    }
+
+    private void load(int slot) {
+        World loaded = newWorld();
+        if (!loaded.load(slot)) {
+            throw new IllegalStateException("no save in slot " + slot);
+        }
+        world = loaded;
+        status = FrameSnapshot.Status.PLAYING;
+    }
+
+    private World newWorld() {
+        World w = new World();
+        w.setSaveDirectory(directory.toString());
+        return w;
+    }
+
+    private void move(String keys) {
+        requireGame();
+        if (keys.length() > MAX_KEYS) {
+            throw new IllegalArgumentException("at most " + MAX_KEYS + " keys per MOVE");
+        }
+        for (int k = 0; k < keys.length(); k++) {
+            char key = Character.toLowerCase(keys.charAt(k));
+            if ("wasdkv".indexOf(key) < 0) {
+                throw new IllegalArgumentException("bad key '" + keys.charAt(k) + "'");
+            }
+        }
+        if (status == FrameSnapshot.Status.PLAYING) {
+            world.getInputQueue().offerAll(keys);
+            status = world.tick();
+        }
+    }
+
+    private void advance(int ticks) {
+        requireGame();
+        if (ticks < 0 || ticks > MAX_TICKS) {
+            throw new IllegalArgumentException("ticks must be in [0, " + MAX_TICKS + "]");
+        }
+        if (status == FrameSnapshot.Status.PLAYING) {
+            status = world.simulate(ticks);
+        }
+    }
+
+    private static int slot(String arg) {
+        int slot = arg.isEmpty() ? 1 : Integer.parseInt(arg);
+        if (slot < 1 || slot > 3) {
+            throw new IllegalArgumentException("slot must be 1, 2 or 3");
+        }
+        return slot;
+    }
+
+    private void requireGame() {
+        if (world == null) {
+            throw new IllegalStateException("no game in session " + id + ", send NEW first");
+        }
+    }
+
+    private void writeStatus(BufferedWriter out) throws IOException {
+        Point avatar = world.getAvatarPosition();
+        out.write("OK " + status + ' ' + world.getTickCount() + ' ' + world.getAvatarLife() + ' '
+                + world.getFlowersLeft() + ' ' + avatar.getX() + ' ' + avatar.getY() + '\n');
+    }
+
+    private void writeTiles(BufferedWriter out) throws IOException {
+        TETile[][] tiles = world.getTiles();
+        int width = tiles.length;
+        int height = tiles[0].length;
+        out.write(width + " " + height + "\n");
+        char[] row = new char[width + 1];
+        row[width] = '\n';
+        for (int y = height - 1; y >= 0; y--) {
+            for (int x = 0; x < width; x++) {
+                row[x] = tiles[x][y].character();
+            }
+            out.write(row);
+        }
+    }
+}
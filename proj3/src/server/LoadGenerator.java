@@ -0,0 +1,163 @@
+package server;
+
+import utils.LatencyHistogram;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * The LoadGenerator class drives a GameServer with many concurrent sessions and measures the
+ * latency of every command. Each simulated client starts a game, then sends MOVE commands with
+ * random keys back to back, a STATE every 50 moves, and starts a new game whenever one ends.
+ * <p>
+ * Latencies are recorded per client into a LatencyHistogram and merged at the end, so
+ * recording never contends between clients.
+ */
+public class LoadGenerator {
+    private static final String KEYS = "wasd";
+
+    /**
+     * The outcome of a load run.
+     *
+     * @param sessions  The number of concurrent sessions.
+     * @param commands  The number of commands answered.
+     * @param millis    The wall-clock length of the run.
+     * @param latencies The latency of every command in nanoseconds.
+     */
+    public record Result(int sessions, long commands, long millis, LatencyHistogram latencies) {
+        /**
+         * Returns the number of commands answered per second.
+         */
+        public double throughput() {
+            return commands * 1000.0 / Math.max(1, millis);
+        }
+
+        @Override
+        public String toString() {
+            int cores = Runtime.getRuntime().availableProcessors();
+            return String.format("%d sessions on %d cores (%.1f per core): %d commands, %.0f/s, "
+                            + "p50 %.3f ms, p99 %.3f ms, max %.3f ms",
+                    sessions, cores, (double) sessions / cores, commands, throughput(),
+                    latencies.percentile(50) / 1e6, latencies.percentile(99) / 1e6, latencies.max() / 1e6);
+        }
+    }
+
+    /**
+     * Runs the given number of concurrent sessions against a server.
+     *
+     * @param address  The address of the server.
+     * @param sessions The number of concurrent sessions.
+     * @param millis   How long to keep sending commands.
+     * @param seed     The seed of the random games and keys; client i uses seed + i.
+     * @return The combined result.
+     */
+    public static Result run(SocketAddress address, int sessions, long millis, long seed)
+            throws IOException, InterruptedException {
+        ExecutorService clients = GameServer.newThreadPerTaskExecutor("load");
+        long start = System.nanoTime();
+        long deadline = start + millis * 1_000_000L;
+        List<Future<LatencyHistogram>> results = new ArrayList<>();
+        for (int i = 0; i < sessions; i++) {
+            long clientSeed = seed + i;
+            results.add(clients.submit(() -> runClient(address, deadline, clientSeed)));
+        }
+        LatencyHistogram all = new LatencyHistogram();
+        try {
+            for (Future<LatencyHistogram> result : results) {
+                all.add(result.get());
+            }
+        } catch (ExecutionException e) {
+            throw new IOException("a load client failed", e.getCause());
+        } finally {
+            clients.shutdownNow();
+        }
+        long elapsed = (System.nanoTime() - start) / 1_000_000L;
+        return new Result(sessions, all.count(), elapsed, all);
+    }
+
+    private static LatencyHistogram runClient(SocketAddress address, long deadline, long seed) throws IOException {
+        LatencyHistogram latencies = new LatencyHistogram();
+        Random random = new Random(seed);
+        try (SocketChannel channel = SocketChannel.open(address);
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(
+                     new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8))) {
+            long game = seed;
+            String reply = send(out, in, "NEW " + game, latencies);
+            int moves = 0;
+            while (System.nanoTime() < deadline) {
+                if (++moves % 50 == 0) {
+                    reply = send(out, in, "STATE", latencies);
+                    int height = Integer.parseInt(in.readLine().split(" ")[1]);
+                    for (int row = 0; row < height; row++) {
+                        in.readLine();
+                    }
+                } else {
+                    reply = send(out, in, "MOVE " + KEYS.charAt(random.nextInt(KEYS.length())), latencies);
+                }
+                if (!reply.startsWith("OK PLAYING")) {
+                    game += 1_000_003;
+                    send(out, in, "NEW " + game, latencies);
+                }
+            }
+            send(out, in, "QUIT", latencies);
+        }
+        return latencies;
+    }
+
+    private static String send(BufferedWriter out, BufferedReader in, String command, LatencyHistogram latencies)
+            throws IOException {
+        long start = System.nanoTime();
+        out.write(command);
+        out.write('\n');
+        out.flush();
+        String reply = in.readLine();
+        latencies.record(System.nanoTime() - start);
+        if (reply == null || reply.startsWith("ERR")) {
+            throw new IOException(command + " failed: " + reply);
+        }
+        return reply;
+    }
+
+    /**
+     * Runs a load test and prints the result.
+     *
+     * @param args The number of sessions (default 100), the run length in seconds (default 10)
+     *             and optionally "tcp:PORT" or "unix:PATH" of a running server. Without an
+     *             address, a server is started in this JVM.
+     */
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : 10;
+        if (args.length > 2) {
+            SocketAddress address = args[2].startsWith("unix:")
+                    ? UnixDomainSocketAddress.of(args[2].substring(5))
+                    : new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(args[2].substring(4)));
+            System.out.println(run(address, sessions, seconds * 1000, 1));
+            return;
+        }
+        Path root = Files.createTempDirectory("byow-load");
+        try (GameServer server = GameServer.openTcp(0, root).start()) {
+            System.out.println(run(server.getAddress(), sessions, seconds * 1000, 1));
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package tileengine;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Offscreen counterpart of TERenderer. Paints a TETile[][] into a BufferedImage without
+ * touching StdDraw, so it can run headless and on many threads at once.
+ *
+ * At the full tile size (16 px) every tile is drawn the same way TETile.draw would draw it:
+ * the image at the tile's filepath if it can be loaded, otherwise the background color with
+ * the character on top. At 1-4 px per tile the character is unreadable anyway, so each tile
+ * is reduced to a single swatch color and written straight into the pixel buffer.
+ *
+ * Instances are immutable and may be shared between threads.
+ */
+public class TEImageRenderer {
+    public static final int FULL_TILE_SIZE = 16;
+    public static final int MAX_THUMBNAIL_TILE_SIZE = 4;
+
+    /** Tile images are loaded once per path and shared by every renderer. */
+    private static final Map<String, Optional<BufferedImage>> IMAGES = new ConcurrentHashMap<>();
+
+    private final int tileSize;
+
+    /**
+     * Creates a renderer that draws every tile as a tileSize x tileSize square.
+     *
+     * @param tileSize pixels per tile, either 1 to 4 for thumbnails or 16 for full size
+     */
+    public TEImageRenderer(int tileSize) {
+        if (tileSize != FULL_TILE_SIZE && (tileSize < 1 || tileSize > MAX_THUMBNAIL_TILE_SIZE)) {
+            throw new IllegalArgumentException("tile size must be 1-" + MAX_THUMBNAIL_TILE_SIZE
+                    + " or " + FULL_TILE_SIZE + ": " + tileSize);
+        }
+        this.tileSize = tileSize;
+    }
+
+    /**
+     * Renders the world into a new image. As with TERenderer, world[0][0] ends up in the
+     * bottom left corner.
+     *
+     * @param world the 2D TETile[][] array to render
+     * @return an RGB image of world.length * tileSize by world[0].length * tileSize pixels
+     */
+    public BufferedImage render(TETile[][] world) {
+        int numXTiles = world.length;
+        int numYTiles = world[0].length;
+        BufferedImage image = new BufferedImage(numXTiles * tileSize, numYTiles * tileSize,
+                BufferedImage.TYPE_INT_RGB);
+        if (tileSize == FULL_TILE_SIZE) {
+            renderFull(world, image);
+        } else {
+            renderThumbnail(world, image);
+        }
+        return image;
+    }
+
+    /**
+     * Renders the world and writes it to the given file as a PNG.
+     *
+     * @param world the 2D TETile[][] array to render
+     * @param file  the file to write, parent directories must already exist
+     * @throws RuntimeException if an IOException occurs during the write operation.
+     */
+    public void writePng(TETile[][] world, File file) {
+        try {
+            ImageIO.write(render(world), "png", file);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private void renderThumbnail(TETile[][] world, BufferedImage image) {
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        int imageWidth = image.getWidth();
+        int numYTiles = world[0].length;
+        for (int x = 0; x < world.length; x++) {
+            for (int y = 0; y < numYTiles; y++) {
+                int rgb = swatch(tileAt(world, x, y));
+                int row = (numYTiles - 1 - y) * tileSize;
+                for (int dy = 0; dy < tileSize; dy++) {
+                    int offset = (row + dy) * imageWidth + x * tileSize;
+                    for (int dx = 0; dx < tileSize; dx++) {
+                        pixels[offset + dx] = rgb;
+                    }
+                }
+            }
+        }
+    }
+
+    private void renderFull(TETile[][] world, BufferedImage image) {
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+                    RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setFont(new Font("Monaco", Font.BOLD, FULL_TILE_SIZE - 2));
+            FontMetrics metrics = g.getFontMetrics();
+            int numYTiles = world[0].length;
+            for (int x = 0; x < world.length; x++) {
+                for (int y = 0; y < numYTiles; y++) {
+                    TETile tile = tileAt(world, x, y);
+                    int px = x * FULL_TILE_SIZE;
+                    int py = (numYTiles - 1 - y) * FULL_TILE_SIZE;
+                    BufferedImage picture = tile.filepath() == null ? null : loadImage(tile.filepath());
+                    if (picture != null) {
+                        g.drawImage(picture, px, py, FULL_TILE_SIZE, FULL_TILE_SIZE, null);
+                        continue;
+                    }
+                    g.setColor(tile.backgroundColor());
+                    g.fillRect(px, py, FULL_TILE_SIZE, FULL_TILE_SIZE);
+                    g.setColor(tile.textColor());
+                    String text = Character.toString(tile.character());
+                    int textX = px + (FULL_TILE_SIZE - metrics.stringWidth(text)) / 2;
+                    int textY = py + (FULL_TILE_SIZE - metrics.getHeight()) / 2 + metrics.getAscent();
+                    g.drawString(text, textX, textY);
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+    }
+
+    private static TETile tileAt(TETile[][] world, int x, int y) {
+        if (world[x][y] == null) {
+            throw new IllegalArgumentException("Tile at position x=" + x + ", y=" + y
+                    + " is null.");
+        }
+        return world[x][y];
+    }
+
+    /**
+     * Picks the single color a tile is reduced to in a thumbnail. Solid tiles and tiles with
+     * a colored background use their background; tiles that are a glyph on black (such as
+     * floor) use the glyph color so they stay distinguishable from empty space.
+     */
+    private static int swatch(TETile tile) {
+        Color background = tile.backgroundColor();
+        if (background.getRGB() == Color.black.getRGB()) {
+            return tile.textColor().getRGB();
+        }
+        return background.getRGB();
+    }
+
+    private static BufferedImage loadImage(String filepath) {
+        return IMAGES.computeIfAbsent(filepath, path -> {
+            try {
+                return Optional.ofNullable(ImageIO.read(new File(path)));
+            } catch (IOException e) {
+                // Same as TETile.draw: a missing image falls back to the character.
+                return Optional.empty();
+            }
+        }).orElse(null);
+    }
+}
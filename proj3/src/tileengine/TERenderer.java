@@ -17,6 +17,7 @@ public class TERenderer {
     private int height;
     private int xOffset;
     private int yOffset;
+    private int tilesDrawn;
 
     /**
      * Same functionality as the other initialization method. The only difference is that the xOff
@@ -96,5 +97,14 @@ public class TERenderer {
                 world[x][y].draw(x + xOffset, y + yOffset);
             }
         }
+        tilesDrawn = numXTiles * numYTiles;
+    }
+
+    /**
+     * Returns the number of tiles drawn by the last call to renderFrame.
+     * @return tiles drawn in the last frame
+     */
+    public int getTilesDrawn() {
+        return tilesDrawn;
     }
 }
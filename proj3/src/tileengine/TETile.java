@@ -27,6 +27,8 @@ public class TETile {
     private final Color backgroundColor;
     private final String description;
     private final String filepath;
+    /** The id TileRegistry gives the tile, set once when the registry loads; -1 if it has none. */
+    int registryId = -1;
 
     /**
      * Full constructor for TETile objects.
@@ -114,6 +116,30 @@ public class TETile {
         return description;
     }
 
+    /**
+     * Color of the character drawn on top of the tile.
+     * @return text color of the tile
+     */
+    public Color textColor() {
+        return textColor;
+    }
+
+    /**
+     * Color drawn behind the character.
+     * @return background color of the tile
+     */
+    public Color backgroundColor() {
+        return backgroundColor;
+    }
+
+    /**
+     * Path to the image drawn in place of the character, or null if the tile has none.
+     * @return image path of the tile
+     */
+    public String filepath() {
+        return filepath;
+    }
+
     /**
      * Creates a copy of the given tile with a slightly different text color. The new
      * color will have a red value that is within dr of the current red value,
@@ -0,0 +1,52 @@
+package tileengine;
+
+/**
+ * Assigns every tile of Tileset a small, stable id, so that tile grids can be written to disk
+ * as one byte per tile and read back as the very same TETile objects.
+ * <p>
+ * Ids are positions in a fixed list. New tiles must only ever be appended to it: reordering or
+ * removing entries would change what files written earlier decode to.
+ */
+public class TileRegistry {
+    private static final TETile[] TILES = {
+        Tileset.NOTHING, Tileset.FLOOR, Tileset.WALL_GRAY, Tileset.WALL, Tileset.AVATAR,
+        Tileset.GRASS, Tileset.WATER, Tileset.FLOWER, Tileset.LOCKED_DOOR, Tileset.UNLOCKED_DOOR,
+        Tileset.SAND, Tileset.MOUNTAIN, Tileset.TREE, Tileset.ENEMY, Tileset.HERO,
+    };
+
+    static {
+        for (int i = 0; i < TILES.length; i++) {
+            TILES[i].registryId = i;
+        }
+    }
+
+    private TileRegistry() {
+    }
+
+    /**
+     * Returns the id of a tile, or -1 if the tile is not one of Tileset's, for example a color
+     * variant made with TETile.colorVariant. This is a field read, cheap enough for inner loops.
+     */
+    public static int idOf(TETile tile) {
+        return tile.registryId;
+    }
+
+    /**
+     * Returns the number of registered tiles; ids run from 0 to size() - 1.
+     */
+    public static int size() {
+        return TILES.length;
+    }
+
+    /**
+     * Returns the tile with an id.
+     *
+     * @throws IllegalArgumentException if no tile has the id
+     */
+    public static TETile tile(int id) {
+        if (id < 0 || id >= TILES.length) {
+            throw new IllegalArgumentException("unknown tile id " + id);
+        }
+        return TILES[id];
+    }
+}
@@ -0,0 +1,55 @@
+package utils;
+
+/**
+ * Static helpers for packed 2D coordinates, so hot code can pass positions around as primitives
+ * instead of allocating Point objects.
+ * <p>
+ * Two encodings are used:
+ * <ul>
+ *     <li>A packed long holds any pair of ints, x in the high half and y in the low half. It is
+ *     used where coordinates are unbounded, such as hash keys.</li>
+ *     <li>A grid index x * height + y is an int that addresses a tile of a bounded grid. It is
+ *     used to index flat per-tile arrays.</li>
+ * </ul>
+ */
+public class Coords {
+    private Coords() {
+    }
+
+    /**
+     * Packs two ints into a long.
+     *
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     * @return the packed coordinate
+     */
+    public static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns the x-coordinate of a packed coordinate.
+     */
+    public static int x(long packed) {
+        return (int) (packed >> 32);
+    }
+
+    /**
+     * Returns the y-coordinate of a packed coordinate.
+     */
+    public static int y(long packed) {
+        return (int) packed;
+    }
+
+    /**
+     * Returns the grid index of a tile.
+     *
+     * @param x      the x-coordinate
+     * @param y      the y-coordinate
+     * @param height the height of the grid
+     * @return x * height + y
+     */
+    public static int index(int x, int y, int height) {
+        return x * height + y;
+    }
+}
@@ -0,0 +1,218 @@
+package utils;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * A discrete distribution over 0..n-1 that is prepared once and then sampled many times, for
+ * the per-tile draws where RandomUtils.discrete, which validates and sums the whole table on
+ * every call, is too slow. Weights need not sum to 1; entry i is drawn with probability
+ * weights[i] / sum(weights), and entries of weight 0 are never drawn.
+ * <p>
+ * Two implementations are offered:
+ * <ul>
+ *     <li>alias uses Vose's alias method: O(n) to build, then every draw is one uniform index
+ *     and one uniform double, whatever the size of the table.</li>
+ *     <li>cumulative keeps running sums and scans them, O(n) per draw, but with one random
+ *     number and no table lookups of its own. It is the faster choice for a handful of
+ *     entries.</li>
+ * </ul>
+ * The factory method of picks between them by table size. Samplers are immutable and may be shared between threads;
+ * only the generator passed to sample must not be.
+ */
+public abstract class DiscreteSampler {
+    /** Tables up to this size get a cumulative sampler from of. */
+    private static final int SMALL_TABLE = 8;
+
+    private final double[] probabilities;
+
+    private DiscreteSampler(double[] probabilities) {
+        this.probabilities = probabilities;
+    }
+
+    /**
+     * Returns a sampler for the given weights, cumulative for small tables and alias otherwise.
+     *
+     * @param weights the weight of each index
+     * @throws IllegalArgumentException if a weight is negative or not finite, or all are 0
+     */
+    public static DiscreteSampler of(double[] weights) {
+        return weights.length <= SMALL_TABLE ? cumulative(weights) : alias(weights);
+    }
+
+    /**
+     * Returns a sampler for integer frequencies, as taken by RandomUtils.discrete(random, int[]).
+     *
+     * @param frequencies the frequency of each index
+     * @throws IllegalArgumentException if a frequency is negative, or all are 0
+     */
+    public static DiscreteSampler of(int[] frequencies) {
+        double[] weights = new double[frequencies.length];
+        for (int i = 0; i < frequencies.length; i++) {
+            weights[i] = frequencies[i];
+        }
+        return of(weights);
+    }
+
+    /**
+     * Returns a sampler that uses Vose's alias method.
+     *
+     * @param weights the weight of each index
+     * @throws IllegalArgumentException if a weight is negative or not finite, or all are 0
+     */
+    public static DiscreteSampler alias(double[] weights) {
+        return new Alias(normalize(weights));
+    }
+
+    /**
+     * Returns a sampler that scans a cumulative table.
+     *
+     * @param weights the weight of each index
+     * @throws IllegalArgumentException if a weight is negative or not finite, or all are 0
+     */
+    public static DiscreteSampler cumulative(double[] weights) {
+        return new Cumulative(normalize(weights));
+    }
+
+    /**
+     * Draws an index.
+     *
+     * @param random the generator to draw from
+     * @return an index in [0, size()), i with probability probability(i)
+     */
+    public abstract int sample(RandomGenerator random);
+
+    /**
+     * Returns the number of indices.
+     */
+    public int size() {
+        return probabilities.length;
+    }
+
+    /**
+     * Returns the probability of drawing an index.
+     */
+    public double probability(int i) {
+        return probabilities[i];
+    }
+
+    private static double[] normalize(double[] weights) {
+        if (weights == null || weights.length == 0) {
+            throw new IllegalArgumentException("need at least one weight");
+        }
+        double sum = 0.0;
+        for (int i = 0; i < weights.length; i++) {
+            if (!(weights[i] >= 0.0) || Double.isInfinite(weights[i])) {
+                throw new IllegalArgumentException("weight " + i + " must be nonnegative and finite: "
+                                                   + weights[i]);
+            }
+            sum += weights[i];
+        }
+        if (!(sum > 0.0) || Double.isInfinite(sum)) {
+            throw new IllegalArgumentException("weights must have a positive, finite sum: " + sum);
+        }
+        double[] probabilities = new double[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            probabilities[i] = weights[i] / sum;
+        }
+        return probabilities;
+    }
+
+    private static final class Alias extends DiscreteSampler {
+        /** Chance of keeping column i rather than taking its alias. */
+        private final double[] keep;
+        private final int[] alias;
+
+        Alias(double[] probabilities) {
+            super(probabilities);
+            int n = probabilities.length;
+            keep = new double[n];
+            alias = new int[n];
+            double[] scaled = new double[n];
+            int[] small = new int[n];
+            int[] large = new int[n];
+            int smallCount = 0, largeCount = 0;
+            for (int i = 0; i < n; i++) {
+                scaled[i] = probabilities[i] * n;
+                if (scaled[i] < 1.0) {
+                    small[smallCount++] = i;
+                } else {
+                    large[largeCount++] = i;
+                }
+            }
+            while (smallCount > 0 && largeCount > 0) {
+                int s = small[--smallCount];
+                int l = large[--largeCount];
+                keep[s] = scaled[s];
+                alias[s] = l;
+                scaled[l] = (scaled[l] + scaled[s]) - 1.0;
+                if (scaled[l] < 1.0) {
+                    small[smallCount++] = l;
+                } else {
+                    large[largeCount++] = l;
+                }
+            }
+            // Whatever is left is 1 up to rounding error.
+            while (largeCount > 0) {
+                keep[large[--largeCount]] = 1.0;
+            }
+            while (smallCount > 0) {
+                int s = small[--smallCount];
+                keep[s] = probabilities[s] > 0.0 ? 1.0 : 0.0;
+                alias[s] = s;
+            }
+            // A leftover zero-weight column must still point somewhere drawable.
+            for (int i = 0; i < n; i++) {
+                if (keep[i] == 0.0 && probabilities[alias[i]] == 0.0) {
+                    alias[i] = firstPositive(probabilities);
+                }
+            }
+        }
+
+        @Override
+        public int sample(RandomGenerator random) {
+            int column = RandomUtils.uniform(random, keep.length);
+            return RandomUtils.uniform(random) < keep[column] ? column : alias[column];
+        }
+    }
+
+    private static final class Cumulative extends DiscreteSampler {
+        private final double[] cumulative;
+        private final int last;
+
+        Cumulative(double[] probabilities) {
+            super(probabilities);
+            cumulative = new double[probabilities.length];
+            double sum = 0.0;
+            for (int i = 0; i < probabilities.length; i++) {
+                sum += probabilities[i];
+                cumulative[i] = sum;
+            }
+            int lastPositive = probabilities.length - 1;
+            while (probabilities[lastPositive] == 0.0) {
+                lastPositive--;
+            }
+            last = lastPositive;
+        }
+
+        @Override
+        public int sample(RandomGenerator random) {
+            double r = RandomUtils.uniform(random);
+            for (int i = 0; i < last; i++) {
+                if (r < cumulative[i]) {
+                    return i;
+                }
+            }
+            // Rounding can leave the last sum just under 1; the remainder belongs to the last entry.
+            return last;
+        }
+    }
+
+    private static int firstPositive(double[] probabilities) {
+        for (int i = 0; i < probabilities.length; i++) {
+            if (probabilities[i] > 0.0) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("no positive probability");
+    }
+}
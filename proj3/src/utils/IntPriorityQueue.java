@@ -0,0 +1,102 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of int values ordered by long priorities, stored in two parallel primitive
+ * arrays. It is the open list of the A* search: values are grid indices and priorities pack the
+ * f and h costs, so pushing and popping never allocate.
+ * <p>
+ * There is no decrease-key operation. Callers push a value again with its better priority and
+ * skip the stale copy when it is popped later.
+ */
+public class IntPriorityQueue {
+    private int[] values;
+    private long[] priorities;
+    private int size;
+
+    /**
+     * Creates an empty queue.
+     *
+     * @param capacity the number of entries to allocate room for up front
+     */
+    public IntPriorityQueue(int capacity) {
+        capacity = Math.max(4, capacity);
+        values = new int[capacity];
+        priorities = new long[capacity];
+    }
+
+    /**
+     * Adds a value with the given priority.
+     */
+    public void push(int value, long priority) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+            priorities = Arrays.copyOf(priorities, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (priorities[parent] <= priority) {
+                break;
+            }
+            values[i] = values[parent];
+            priorities[i] = priorities[parent];
+            i = parent;
+        }
+        values[i] = value;
+        priorities[i] = priority;
+    }
+
+    /**
+     * Removes the entry with the lowest priority and returns its value.
+     *
+     * @throws IllegalStateException if the queue is empty
+     */
+    public int pop() {
+        if (size == 0) {
+            throw new IllegalStateException("queue is empty");
+        }
+        int top = values[0];
+        int lastValue = values[--size];
+        long lastPriority = priorities[size];
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && priorities[child + 1] < priorities[child]) {
+                child++;
+            }
+            if (lastPriority <= priorities[child]) {
+                break;
+            }
+            values[i] = values[child];
+            priorities[i] = priorities[child];
+            i = child;
+        }
+        values[i] = lastValue;
+        priorities[i] = lastPriority;
+        return top;
+    }
+
+    /**
+     * Returns true if the queue holds no entries.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of entries.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,142 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size histogram of non-negative long values (typically nanosecond durations) in the
+ * style of HdrHistogram. Values are grouped into buckets by their power of two, and every
+ * bucket is split into 2^SUB_BUCKET_BITS linear sub-buckets. A value of n significant bits shares
+ * its sub-bucket only with values that agree in the top SUB_BUCKET_BITS bits, so it reads back
+ * as a percentile less than 1/32 (about 3%) too high. Recording never allocates.
+ * <p>
+ * This class is not thread-safe; every histogram is expected to be written by one thread.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKET_COUNT = SUB_BUCKET_COUNT / 2;
+    private static final int BUCKET_COUNT = 64 - SUB_BUCKET_BITS + 1;
+
+    private final long[] counts;
+    private long totalCount;
+    private long max;
+    private long sum;
+
+    /**
+     * Creates an empty histogram.
+     */
+    public LatencyHistogram() {
+        counts = new long[(BUCKET_COUNT + 1) * HALF_SUB_BUCKET_COUNT];
+    }
+
+    /**
+     * Records a single value.
+     *
+     * @param value the value to record, negative values are recorded as 0
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts[indexOf(value)]++;
+        totalCount++;
+        sum += value;
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    /**
+     * Returns the number of recorded values.
+     */
+    public long count() {
+        return totalCount;
+    }
+
+    /**
+     * Returns the largest recorded value, or 0 if nothing was recorded.
+     */
+    public long max() {
+        return max;
+    }
+
+    /**
+     * Returns the mean of the recorded values, or 0 if nothing was recorded.
+     */
+    public double mean() {
+        return totalCount == 0 ? 0 : (double) sum / totalCount;
+    }
+
+    /**
+     * Returns the value at the given percentile. The result is the upper bound of the
+     * sub-bucket the percentile falls into, capped at the largest recorded value.
+     *
+     * @param percentile the percentile in [0, 100]
+     * @return the value at the percentile, or 0 if nothing was recorded
+     */
+    public long percentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be in [0, 100]: " + percentile);
+        }
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestValueAt(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Adds every value recorded in another histogram to this one, for example to combine the
+     * histograms of several threads after they are done.
+     *
+     * @param other the histogram to add, which is not modified
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Forgets every recorded value.
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        max = 0;
+        sum = 0;
+    }
+
+    /**
+     * Maps a value to its counts index. Values below SUB_BUCKET_COUNT get one slot each;
+     * larger values keep only their SUB_BUCKET_BITS most significant bits, which always fall
+     * in the upper half of a bucket, so consecutive buckets overlap by half.
+     */
+    private static int indexOf(long value) {
+        int bucket = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+        int subBucket = (int) (value >>> bucket);
+        return bucket * HALF_SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * Returns the largest value that maps to the given counts index.
+     */
+    private static long highestValueAt(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int bucket = index / HALF_SUB_BUCKET_COUNT - 1;
+        long subBucket = index - (long) bucket * HALF_SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << bucket) - 1;
+    }
+}
@@ -1,6 +1,8 @@
 package utils;
 
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * A library of static methods to generate pseudo-random numbers from
@@ -10,15 +12,58 @@ import java.util.Random;
  * modify this file.
  * <p>
  * Adapted from https://introcs.cs.princeton.edu/java/22library/StdRandom.java.html
+ * <p>
+ * Every method takes a java.util.random.RandomGenerator. java.util.Random is one, so code that
+ * passes a Random draws exactly the numbers it always has; newGenerator also offers faster,
+ * unsynchronized generators for code that does not need to match old seeds.
  */
 public class RandomUtils {
 
+    /**
+     * The generators newGenerator can create.
+     */
+    public enum Algorithm {
+        /** java.util.Random: every seed gives the numbers it always has. */
+        LEGACY,
+        /** java.util.SplittableRandom: fast and splittable, but cannot be copied. */
+        SPLITTABLE,
+        /** Xoshiro256StarStar: fast and copyable. */
+        XOSHIRO;
+
+        /**
+         * Returns the algorithm with the given name, ignoring case.
+         *
+         * @throws IllegalArgumentException if no algorithm has that name
+         */
+        public static Algorithm parse(String name) {
+            return valueOf(name.trim().toUpperCase());
+        }
+    }
+
+    /**
+     * Creates a generator.
+     *
+     * @param algorithm the algorithm to use
+     * @param seed      the seed
+     * @return a new generator
+     */
+    public static RandomGenerator newGenerator(Algorithm algorithm, long seed) {
+        switch (algorithm) {
+            case SPLITTABLE:
+                return new SplittableRandom(seed);
+            case XOSHIRO:
+                return new Xoshiro256StarStar(seed);
+            default:
+                return new Random(seed);
+        }
+    }
+
     /**
      * Returns a random real number uniformly in [0, 1).
      *
      * @return a random real number uniformly in [0, 1)
      */
-    public static double uniform(Random random) {
+    public static double uniform(RandomGenerator random) {
         return random.nextDouble();
     }
 
@@ -29,7 +74,7 @@ public class RandomUtils {
      * @return a random integer uniformly between 0 (inclusive) and {@code n} (exclusive)
      * @throws IllegalArgumentException if {@code n <= 0}
      */
-    public static int uniform(Random random, int n) {
+    public static int uniform(RandomGenerator random, int n) {
         if (n <= 0) {
             throw new IllegalArgumentException("argument must be positive: " + n);
         }
@@ -44,7 +89,7 @@ public class RandomUtils {
      * @return a random long integer uniformly between 0 (inclusive) and {@code n} (exclusive)
      * @throws IllegalArgumentException if {@code n <= 0}
      */
-    public static long uniform(Random random, long n) {
+    public static long uniform(RandomGenerator random, long n) {
         if (n <= 0L) {
             throw new IllegalArgumentException("argument must be positive: " + n);
         }
@@ -67,7 +112,7 @@ public class RandomUtils {
     }
 
     ///////////////////////////////////////////////////////////////////////////
-    //  STATIC METHODS BELOW RELY ON JAVA.UTIL.RANDOM ONLY INDIRECTLY VIA
+    //  STATIC METHODS BELOW RELY ON THE GENERATOR ONLY INDIRECTLY VIA
     //  THE STATIC METHODS ABOVE.
     ///////////////////////////////////////////////////////////////////////////
 
@@ -81,7 +126,7 @@ public class RandomUtils {
      * @throws IllegalArgumentException if {@code b <= a}
      * @throws IllegalArgumentException if {@code b - a >= Integer.MAX_VALUE}
      */
-    public static int uniform(Random random, int a, int b) {
+    public static int uniform(RandomGenerator random, int a, int b) {
         if ((b <= a) || ((long) b - a >= Integer.MAX_VALUE)) {
             throw new IllegalArgumentException("invalid range: [" + a + ", " + b + ")");
         }
@@ -96,7 +141,7 @@ public class RandomUtils {
      * @return a random real number uniformly in [a, b)
      * @throws IllegalArgumentException unless {@code a < b}
      */
-    public static double uniform(Random random, double a, double b) {
+    public static double uniform(RandomGenerator random, double a, double b) {
         if (!(a < b)) {
             throw new IllegalArgumentException("invalid range: [" + a + ", " + b + ")");
         }
@@ -112,7 +157,7 @@ public class RandomUtils {
      * {@code false} with probability {@code p}
      * @throws IllegalArgumentException unless {@code 0} &le; {@code p} &le; {@code 1.0}
      */
-    public static boolean bernoulli(Random random, double p) {
+    public static boolean bernoulli(RandomGenerator random, double p) {
         if (!(p >= 0.0 && p <= 1.0)) {
             throw new IllegalArgumentException("probability p must be between 0.0 and 1.0: " + p);
         }
@@ -126,7 +171,7 @@ public class RandomUtils {
      * @return {@code true} with probability 1/2 and
      * {@code false} with probability 1/2
      */
-    public static boolean bernoulli(Random random) {
+    public static boolean bernoulli(RandomGenerator random) {
         return bernoulli(random, 0.5);
     }
 
@@ -136,7 +181,7 @@ public class RandomUtils {
      * @return a random real number from a standard Gaussian distribution
      * (mean 0 and standard deviation 1).
      */
-    public static double gaussian(Random random) {
+    public static double gaussian(RandomGenerator random) {
         // use the polar form of the Box-Muller transform
         double r, x, y;
         do {
@@ -159,7 +204,7 @@ public class RandomUtils {
      * @return a real number distributed according to the Gaussian distribution
      * with mean {@code mu} and standard deviation {@code sigma}
      */
-    public static double gaussian(Random random, double mu, double sigma) {
+    public static double gaussian(RandomGenerator random, double mu, double sigma) {
         return mu + sigma * gaussian(random);
     }
 
@@ -173,7 +218,7 @@ public class RandomUtils {
      * {@code p} is (nearly) equal to {@code 1.0}.
      * @throws IllegalArgumentException unless {@code p >= 0.0} and {@code p <= 1.0}
      */
-    public static int geometric(Random random, double p) {
+    public static int geometric(RandomGenerator random, double p) {
         if (!(p >= 0.0 && p <= 1.0)) {
             throw new IllegalArgumentException("probability p must be between 0.0 and 1.0: " + p);
         }
@@ -188,7 +233,7 @@ public class RandomUtils {
      * @return a random integer from a Poisson distribution with mean {@code lambda}
      * @throws IllegalArgumentException unless {@code lambda > 0.0} and not infinite
      */
-    public static int poisson(Random random, double lambda) {
+    public static int poisson(RandomGenerator random, double lambda) {
         if (!(lambda > 0.0)) {
             throw new IllegalArgumentException("lambda must be positive: " + lambda);
         }
@@ -212,7 +257,7 @@ public class RandomUtils {
      *
      * @return a random real number from the standard Pareto distribution
      */
-    public static double pareto(Random random) {
+    public static double pareto(RandomGenerator random) {
         return pareto(random, 1.0);
     }
 
@@ -225,7 +270,7 @@ public class RandomUtils {
      * parameter {@code alpha}
      * @throws IllegalArgumentException unless {@code alpha > 0.0}
      */
-    public static double pareto(Random random, double alpha) {
+    public static double pareto(RandomGenerator random, double alpha) {
         if (!(alpha > 0.0)) {
             throw new IllegalArgumentException("alpha must be positive: " + alpha);
         }
@@ -237,12 +282,14 @@ public class RandomUtils {
      *
      * @return a random real number from the Cauchy distribution.
      */
-    public static double cauchy(Random random) {
+    public static double cauchy(RandomGenerator random) {
         return Math.tan(Math.PI * (uniform(random) - 0.5));
     }
 
     /**
      * Returns a random integer from the specified discrete distribution.
+     * Checks and sums the whole array on every call; to draw repeatedly from the same
+     * distribution, build a DiscreteSampler once instead.
      *
      * @param probabilities the probability of occurrence of each integer
      * @return a random integer from a discrete distribution:
@@ -251,7 +298,7 @@ public class RandomUtils {
      * @throws IllegalArgumentException if sum of array entries is not (very nearly) equal to 1.0
      * @throws IllegalArgumentException unless {@code probabilities[i] >= 0.0} for each index i
      */
-    public static int discrete(Random random, double[] probabilities) {
+    public static int discrete(RandomGenerator random, double[] probabilities) {
         if (probabilities == null) {
             throw new IllegalArgumentException("argument array is null");
         }
@@ -285,6 +332,8 @@ public class RandomUtils {
 
     /**
      * Returns a random integer from the specified discrete distribution.
+     * Checks and sums the whole array on every call; to draw repeatedly from the same
+     * distribution, build a DiscreteSampler once instead.
      *
      * @param frequencies the frequency of occurrence of each integer
      * @return a random integer from a discrete distribution:
@@ -294,7 +343,7 @@ public class RandomUtils {
      * @throws IllegalArgumentException if frequencies[i] is negative for any index i
      * @throws IllegalArgumentException if sum of frequencies exceeds Integer.MAX_VALUE (2^31 - 1)
      */
-    public static int discrete(Random random, int[] frequencies) {
+    public static int discrete(RandomGenerator random, int[] frequencies) {
         if (frequencies == null) {
             throw new IllegalArgumentException("argument array is null");
         }
@@ -337,7 +386,7 @@ public class RandomUtils {
      * rate {@code lambda}
      * @throws IllegalArgumentException unless {@code lambda > 0.0}
      */
-    public static double exp(Random random, double lambda) {
+    public static double exp(RandomGenerator random, double lambda) {
         if (!(lambda > 0.0)) {
             throw new IllegalArgumentException("lambda must be positive: " + lambda);
         }
@@ -350,7 +399,7 @@ public class RandomUtils {
      * @param a the array to shuffle
      * @throws IllegalArgumentException if {@code a} is {@code null}
      */
-    public static void shuffle(Random random, Object[] a) {
+    public static void shuffle(RandomGenerator random, Object[] a) {
         validateNotNull(a);
         int n = a.length;
         for (int i = 0; i < n; i++) {
@@ -367,7 +416,7 @@ public class RandomUtils {
      * @param a the array to shuffle
      * @throws IllegalArgumentException if {@code a} is {@code null}
      */
-    public static void shuffle(Random random, double[] a) {
+    public static void shuffle(RandomGenerator random, double[] a) {
         validateNotNull(a);
         int n = a.length;
         for (int i = 0; i < n; i++) {
@@ -384,7 +433,7 @@ public class RandomUtils {
      * @param a the array to shuffle
      * @throws IllegalArgumentException if {@code a} is {@code null}
      */
-    public static void shuffle(Random random, int[] a) {
+    public static void shuffle(RandomGenerator random, int[] a) {
         validateNotNull(a);
         int n = a.length;
         for (int i = 0; i < n; i++) {
@@ -401,7 +450,7 @@ public class RandomUtils {
      * @param a the array to shuffle
      * @throws IllegalArgumentException if {@code a} is {@code null}
      */
-    public static void shuffle(Random random, char[] a) {
+    public static void shuffle(RandomGenerator random, char[] a) {
         validateNotNull(a);
         int n = a.length;
         for (int i = 0; i < n; i++) {
@@ -421,7 +470,7 @@ public class RandomUtils {
      * @throws IllegalArgumentException if {@code a} is {@code null}
      * @throws IllegalArgumentException unless {@code (0 <= lo) && (lo < hi) && (hi <= a.length)}
      */
-    public static void shuffle(Random random, Object[] a, int lo, int hi) {
+    public static void shuffle(RandomGenerator random, Object[] a, int lo, int hi) {
         validateNotNull(a);
         validateSubarrayIndices(lo, hi, a.length);
 
@@ -442,7 +491,7 @@ public class RandomUtils {
      * @throws IllegalArgumentException if {@code a} is {@code null}
      * @throws IllegalArgumentException unless {@code (0 <= lo) && (lo < hi) && (hi <= a.length)}
      */
-    public static void shuffle(Random random, double[] a, int lo, int hi) {
+    public static void shuffle(RandomGenerator random, double[] a, int lo, int hi) {
         validateNotNull(a);
         validateSubarrayIndices(lo, hi, a.length);
 
@@ -463,7 +512,7 @@ public class RandomUtils {
      * @throws IllegalArgumentException if {@code a} is {@code null}
      * @throws IllegalArgumentException unless {@code (0 <= lo) && (lo < hi) && (hi <= a.length)}
      */
-    public static void shuffle(Random random, int[] a, int lo, int hi) {
+    public static void shuffle(RandomGenerator random, int[] a, int lo, int hi) {
         validateNotNull(a);
         validateSubarrayIndices(lo, hi, a.length);
 
@@ -483,7 +532,7 @@ public class RandomUtils {
      * of {@code 0}, {@code 1}, ..., {@code n-1}
      * @throws IllegalArgumentException if {@code n} is negative
      */
-    public static int[] permutation(Random random, int n) {
+    public static int[] permutation(RandomGenerator random, int n) {
         if (n < 0) {
             throw new IllegalArgumentException("argument is negative");
         }
@@ -505,7 +554,7 @@ public class RandomUtils {
      * @throws IllegalArgumentException if {@code n} is negative
      * @throws IllegalArgumentException unless {@code 0 <= k <= n}
      */
-    public static int[] permutation(Random random, int n, int k) {
+    public static int[] permutation(RandomGenerator random, int n, int k) {
         if (n < 0) {
             throw new IllegalArgumentException("argument is negative");
         }
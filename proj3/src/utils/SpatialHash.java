@@ -0,0 +1,206 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * A spatial hash of integer ids placed on an integer grid. The grid is divided into square
+ * cells; the first id of every occupied cell is found through a CoordMap keyed by the cell
+ * coordinates packed with Coords.pack, and the ids inside a cell form an intrusive doubly
+ * linked list kept in flat int arrays. Inserting, moving and removing an id are O(1), "which ids
+ * are on this tile" is one map lookup plus a walk over the ids in that cell, and none of
+ * these operations allocate once the arrays have grown to size.
+ * <p>
+ * A cell leaves the map when its last id leaves it. CoordMap removes without tombstones, so an
+ * id moving back and forth between two cells does not degrade the map.
+ */
+public class SpatialHash {
+    private static final int NONE = -1;
+
+    private final int cellSize;
+    /** Packed cell key to the first id in the cell. */
+    private final CoordMap heads;
+    /** Per id: position, packed cell key, neighbours in the cell list, whether it is inserted. */
+    private int[] xs;
+    private int[] ys;
+    private long[] cellOf;
+    private int[] next;
+    private int[] prev;
+    private boolean[] present;
+
+    /**
+     * Creates an empty spatial hash.
+     *
+     * @param cellSize    The width and height of a cell in tiles.
+     * @param idCapacity  The number of ids to allocate room for up front.
+     */
+    public SpatialHash(int cellSize, int idCapacity) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("cell size must be positive: " + cellSize);
+        }
+        this.cellSize = cellSize;
+        heads = new CoordMap(32);
+        idCapacity = Math.max(idCapacity, 4);
+        xs = new int[idCapacity];
+        ys = new int[idCapacity];
+        cellOf = new long[idCapacity];
+        next = new int[idCapacity];
+        prev = new int[idCapacity];
+        present = new boolean[idCapacity];
+    }
+
+    /**
+     * Inserts an id at a tile.
+     *
+     * @param id The id, which must not be present.
+     * @param x  The x-coordinate of the tile.
+     * @param y  The y-coordinate of the tile.
+     */
+    public void insert(int id, int x, int y) {
+        ensureIdCapacity(id + 1);
+        if (present[id]) {
+            throw new IllegalArgumentException("id " + id + " is already present");
+        }
+        present[id] = true;
+        xs[id] = x;
+        ys[id] = y;
+        link(id, cellKey(x, y));
+    }
+
+    /**
+     * Removes an id. Does nothing if the id is not present.
+     *
+     * @param id The id to remove.
+     */
+    public void remove(int id) {
+        if (id >= present.length || !present[id]) {
+            return;
+        }
+        unlink(id);
+        present[id] = false;
+    }
+
+    /**
+     * Moves an id to another tile. Only touches the table if the id changes cells.
+     *
+     * @param id The id, which must be present.
+     * @param x  The new x-coordinate.
+     * @param y  The new y-coordinate.
+     */
+    public void move(int id, int x, int y) {
+        long key = cellKey(x, y);
+        xs[id] = x;
+        ys[id] = y;
+        if (key != cellOf[id]) {
+            unlink(id);
+            link(id, key);
+        }
+    }
+
+    /**
+     * Removes every id.
+     */
+    public void clear() {
+        heads.clear();
+        Arrays.fill(present, false);
+    }
+
+    /**
+     * Returns the first id on the given tile, or -1 if the tile is empty.
+     *
+     * @param x The x-coordinate of the tile.
+     * @param y The y-coordinate of the tile.
+     */
+    public int firstAt(int x, int y) {
+        return nextAt(heads.get(cellKey(x, y), NONE), x, y);
+    }
+
+    /**
+     * Returns the id after the given one on the same tile, or -1 if there is none. Together
+     * with firstAt this walks every id on a tile without allocating.
+     *
+     * @param id The id returned by the previous call to firstAt or nextAt.
+     */
+    public int nextAt(int id) {
+        return nextAt(next[id], xs[id], ys[id]);
+    }
+
+    private int nextAt(int id, int x, int y) {
+        while (id != NONE && (xs[id] != x || ys[id] != y)) {
+            id = next[id];
+        }
+        return id;
+    }
+
+    /**
+     * Writes every id within the given Euclidean radius of a tile into out.
+     *
+     * @param x      The x-coordinate of the centre tile.
+     * @param y      The y-coordinate of the centre tile.
+     * @param radius The radius in tiles, 0 for only the centre tile.
+     * @param out    The array to fill. Ids that do not fit are counted but not written.
+     * @return The number of ids within the radius.
+     */
+    public int queryRadius(int x, int y, int radius, int[] out) {
+        int found = 0;
+        long radiusSquared = (long) radius * radius;
+        int minCx = Math.floorDiv(x - radius, cellSize);
+        int maxCx = Math.floorDiv(x + radius, cellSize);
+        int minCy = Math.floorDiv(y - radius, cellSize);
+        int maxCy = Math.floorDiv(y + radius, cellSize);
+        for (int cx = minCx; cx <= maxCx; cx++) {
+            for (int cy = minCy; cy <= maxCy; cy++) {
+                for (int id = heads.get(Coords.pack(cx, cy), NONE); id != NONE; id = next[id]) {
+                    long dx = xs[id] - x;
+                    long dy = ys[id] - y;
+                    if (dx * dx + dy * dy <= radiusSquared) {
+                        if (found < out.length) {
+                            out[found] = id;
+                        }
+                        found++;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private long cellKey(int x, int y) {
+        return Coords.pack(Math.floorDiv(x, cellSize), Math.floorDiv(y, cellSize));
+    }
+
+    private void link(int id, long key) {
+        int head = heads.put(key, id, NONE);
+        cellOf[id] = key;
+        prev[id] = NONE;
+        next[id] = head;
+        if (head != NONE) {
+            prev[head] = id;
+        }
+    }
+
+    private void unlink(int id) {
+        if (prev[id] != NONE) {
+            next[prev[id]] = next[id];
+        } else if (next[id] != NONE) {
+            heads.put(cellOf[id], next[id], NONE);
+        } else {
+            heads.remove(cellOf[id], NONE);
+        }
+        if (next[id] != NONE) {
+            prev[next[id]] = prev[id];
+        }
+    }
+
+    private void ensureIdCapacity(int capacity) {
+        if (capacity <= present.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, present.length * 2);
+        xs = Arrays.copyOf(xs, newCapacity);
+        ys = Arrays.copyOf(ys, newCapacity);
+        cellOf = Arrays.copyOf(cellOf, newCapacity);
+        next = Arrays.copyOf(next, newCapacity);
+        prev = Arrays.copyOf(prev, newCapacity);
+        present = Arrays.copyOf(present, newCapacity);
+    }
+}
@@ -0,0 +1,81 @@
+package utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A lock-free triple buffer for handing the latest value from one writer thread to one reader
+ * thread. The writer fills the back slot and publishes it; the reader takes whatever was
+ * published last. Neither side ever waits for the other: a writer that is faster than the
+ * reader simply overwrites values that were never read, and a reader that is faster than the
+ * writer keeps seeing the last value it took.
+ * <p>
+ * The three slots are allocated once and reused, so values should be mutable containers that
+ * the writer overwrites in place. A slot the reader holds is never touched by the writer until
+ * the reader asks for a newer one.
+ *
+ * @param <T> the type of the values handed over
+ */
+public class TripleBuffer<T> {
+    private static final int INDEX_MASK = 3;
+    private static final int FRESH = 4;
+
+    private final Object[] slots;
+    /** Index of the slot between the two threads, with FRESH set if the reader has not seen it. */
+    private final AtomicInteger middle;
+    /** Slot owned by the writer. */
+    private int back;
+    /** Slot owned by the reader. */
+    private int front;
+
+    /**
+     * Creates a triple buffer whose three slots are created by the factory.
+     *
+     * @param factory creates the initial value of each slot
+     */
+    public TripleBuffer(Supplier<T> factory) {
+        slots = new Object[]{factory.get(), factory.get(), factory.get()};
+        front = 0;
+        middle = new AtomicInteger(1);
+        back = 2;
+    }
+
+    /**
+     * Returns the slot the writer may fill. Only the writer thread may call this.
+     *
+     * @return the writer's slot
+     */
+    @SuppressWarnings("unchecked")
+    public T back() {
+        return (T) slots[back];
+    }
+
+    /**
+     * Publishes the writer's slot and hands the writer a new one to fill. Only the writer
+     * thread may call this.
+     */
+    public void publish() {
+        back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * Returns true if a value was published since the reader last called latest.
+     */
+    public boolean hasFresh() {
+        return (middle.get() & FRESH) != 0;
+    }
+
+    /**
+     * Returns the most recently published value. Only the reader thread may call this.
+     *
+     * @return the newest published value, or the value the reader already had if nothing new
+     * was published
+     */
+    @SuppressWarnings("unchecked")
+    public T latest() {
+        if (hasFresh()) {
+            front = middle.getAndSet(front) & INDEX_MASK;
+        }
+        return (T) slots[front];
+    }
+}
@@ -0,0 +1,65 @@
+package utils;
+
+import java.io.Serializable;
+import java.util.random.RandomGenerator;
+
+/**
+ * The xoshiro256** generator of Blackman and Vigna: 256 bits of state, a period of 2^256 - 1,
+ * and a handful of shifts, rotations and multiplications per number. It is not thread safe,
+ * which is what makes it fast; every thread or world should own its own instance.
+ * <p>
+ * The state is filled from a 64-bit seed with SplitMix64, as the authors recommend, so nearby
+ * seeds give unrelated streams. Instances are serializable, so a World can snapshot one the
+ * same way it snapshots a java.util.Random.
+ */
+public class Xoshiro256StarStar implements RandomGenerator, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private long s0, s1, s2, s3;
+
+    /**
+     * Creates a generator from a seed.
+     *
+     * @param seed the seed
+     */
+    public Xoshiro256StarStar(long seed) {
+        long x = seed;
+        s0 = splitMix(x += 0x9E3779B97F4A7C15L);
+        s1 = splitMix(x += 0x9E3779B97F4A7C15L);
+        s2 = splitMix(x += 0x9E3779B97F4A7C15L);
+        s3 = splitMix(x + 0x9E3779B97F4A7C15L);
+    }
+
+    private Xoshiro256StarStar(Xoshiro256StarStar other) {
+        s0 = other.s0;
+        s1 = other.s1;
+        s2 = other.s2;
+        s3 = other.s3;
+    }
+
+    /**
+     * Returns a generator in the same state as this one; both then produce the same numbers.
+     */
+    public Xoshiro256StarStar copy() {
+        return new Xoshiro256StarStar(this);
+    }
+
+    @Override
+    public long nextLong() {
+        long result = Long.rotateLeft(s1 * 5, 7) * 9;
+        long t = s1 << 17;
+        s2 ^= s0;
+        s3 ^= s1;
+        s1 ^= s2;
+        s0 ^= s3;
+        s2 ^= t;
+        s3 = Long.rotateLeft(s3, 45);
+        return result;
+    }
+
+    private static long splitMix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
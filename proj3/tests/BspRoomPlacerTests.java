@@ -0,0 +1,71 @@
+import core.BspRoomPlacer;
+import core.Room;
+import core.World;
+import org.junit.jupiter.api.Test;
+import utils.Xoshiro256StarStar;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BspRoomPlacerTests {
+    @Test
+    public void roomsStayInsideAndNeverTouch() {
+        BspRoomPlacer placer = new BspRoomPlacer(4, 11);
+        for (int count : new int[]{1, 5, 20, 60, 500}) {
+            for (long seed = 0; seed < 20; seed++) {
+                List<Room> rooms = placer.place(new Xoshiro256StarStar(seed), 1, 1, 99, 59, count);
+                assertTrue(rooms.size() <= count);
+                assertTrue(rooms.size() == count || count == 500, "only " + rooms.size() + " of " + count);
+                for (int i = 0; i < rooms.size(); i++) {
+                    Room a = rooms.get(i);
+                    assertTrue(a.left() >= 1 && a.bottom() >= 1 && a.right() <= 99 && a.top() <= 59);
+                    assertTrue(a.right() - a.left() >= 4 && a.right() - a.left() <= 11);
+                    assertTrue(a.top() - a.bottom() >= 4 && a.top() - a.bottom() <= 11);
+                    for (int j = i + 1; j < rooms.size(); j++) {
+                        assertFalse(a.intersects(rooms.get(j).left(), rooms.get(j).bottom(),
+                                rooms.get(j).right(), rooms.get(j).top()), "rooms " + i + " and " + j + " touch");
+                    }
+                }
+            }
+        }
+        assertTrue(placer.place(new Xoshiro256StarStar(1), 0, 0, 4, 40, 3).isEmpty());
+    }
+
+    @Test
+    public void bspWorldsAreDeterministicAndFullyLinked() {
+        for (long seed = 1; seed <= 10; seed++) {
+            World a = new World();
+            a.setRoomPlacement(World.RoomPlacement.BSP);
+            a.setRoomCount(45);
+            World b = new World();
+            b.setRoomPlacement(World.RoomPlacement.BSP);
+            b.setRoomCount(45);
+            assertArrayEquals(a.getWorldFromInput("n" + seed + "s"), b.getWorldFromInput("n" + seed + "s"));
+            assertEquals(45, a.getRegionMap().roomCount());
+            int avatar = a.getConnectivity().componentOf(a.getAvatarPosition().getX(), a.getAvatarPosition().getY());
+            for (int r = 0; r < 45; r++) {
+                Room room = a.getRegionMap().room(r);
+                assertEquals(avatar, a.getConnectivity().componentOf(room.centerX(), room.centerY()));
+            }
+        }
+    }
+
+    @Test
+    public void sampledPlacementStopsWhenTheMapIsFull() {
+        World sampled = new World();
+        sampled.setRoomCount(60);
+        for (long seed = 1; seed <= 10; seed++) {
+            sampled.getWorldFromInput("n" + seed + "s");
+            int rooms = sampled.getRegionMap().roomCount();
+            assertTrue(rooms > 40 && rooms <= 60, rooms + " rooms");
+            World again = new World();
+            again.setRoomCount(60);
+            assertArrayEquals(sampled.getTiles(), again.getWorldFromInput("n" + seed + "s"));
+        }
+        World few = new World();
+        few.setRoomCount(30);
+        few.getWorldFromInput("n5s");
+        assertEquals(30, few.getRegionMap().roomCount());
+    }
+}
@@ -0,0 +1,91 @@
+import core.ChunkGenerator;
+import core.ChunkedWorld;
+import org.junit.jupiter.api.Test;
+import tileengine.TETile;
+import tileengine.Tileset;
+import utils.Coords;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChunkedWorldTests {
+    private static final int SIZE = ChunkGenerator.CHUNK_SIZE;
+
+    @Test
+    public void chunksDependOnlyOnSeedAndPosition() {
+        ChunkGenerator a = new ChunkGenerator(99);
+        ChunkGenerator b = new ChunkGenerator(99);
+        for (int cx = -3; cx <= 3; cx++) {
+            for (int cy = -3; cy <= 3; cy++) {
+                assertArrayEquals(a.generate(cx, cy), b.generate(cx, cy));
+            }
+        }
+        assertFalse(Arrays.equals(a.generate(0, 0), new ChunkGenerator(100).generate(0, 0)));
+    }
+
+    @Test
+    public void doorsLineUpAcrossBorders() {
+        ChunkedWorld world = new ChunkedWorld(7, 64);
+        ChunkGenerator generator = new ChunkGenerator(7);
+        for (int cx = -5; cx <= 5; cx++) {
+            for (int cy = -5; cy <= 5; cy++) {
+                int east = generator.doorOffset(cx, cy, true);
+                assertSame(Tileset.FLOOR, world.tileAt(cx * SIZE + SIZE - 1, cy * SIZE + east));
+                assertSame(Tileset.FLOOR, world.tileAt(cx * SIZE + SIZE, cy * SIZE + east));
+                int north = generator.doorOffset(cx, cy, false);
+                assertSame(Tileset.FLOOR, world.tileAt(cx * SIZE + north, cy * SIZE + SIZE - 1));
+                assertSame(Tileset.FLOOR, world.tileAt(cx * SIZE + north, cy * SIZE + SIZE));
+            }
+        }
+    }
+
+    @Test
+    public void everyFloorInARegionIsReachable() {
+        ChunkedWorld world = new ChunkedWorld(2024, 64);
+        int min = -2 * SIZE, max = 3 * SIZE;
+        long spawn = world.spawnPoint();
+        Set<Long> seen = new HashSet<>();
+        ArrayDeque<Long> queue = new ArrayDeque<>();
+        seen.add(spawn);
+        queue.add(spawn);
+        int[][] dirs = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+        while (!queue.isEmpty()) {
+            long p = queue.remove();
+            for (int[] d : dirs) {
+                int x = Coords.x(p) + d[0], y = Coords.y(p) + d[1];
+                if (x >= min && x < max && y >= min && y < max && world.tileAt(x, y) == Tileset.FLOOR
+                        && seen.add(Coords.pack(x, y))) {
+                    queue.add(Coords.pack(x, y));
+                }
+            }
+        }
+        for (int x = min; x < max; x++) {
+            for (int y = min; y < max; y++) {
+                if (world.tileAt(x, y) == Tileset.FLOOR) {
+                    assertTrue(seen.contains(Coords.pack(x, y)), "unreachable floor at " + x + "," + y);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void memoryStaysWithinBudget() {
+        ChunkedWorld world = new ChunkedWorld(5, 16);
+        TETile[][] view = new TETile[40][30];
+        for (int step = 0; step < 200; step++) {
+            world.view(view, step * SIZE, -15);
+            assertTrue(world.loadedChunks() <= 16);
+        }
+        TETile[] fresh = new ChunkGenerator(5).generate(0, 0);
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                assertSame(fresh[x * SIZE + y], world.tileAt(x, y), "chunk (0, 0) changed after eviction");
+            }
+        }
+        assertTrue(world.generatedChunks() > 200);
+    }
+}
@@ -0,0 +1,55 @@
+import core.CommandReader;
+import core.World;
+import core.WorldHash;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CommandReaderTests {
+    private static String read(CommandReader reader) {
+        StringBuilder keys = new StringBuilder();
+        for (int key = reader.next(); key != CommandReader.END; key = reader.next()) {
+            keys.append((char) key);
+        }
+        return keys.toString();
+    }
+
+    @Test
+    public void readsLowerCasedKeysFromStringsAndStreams() {
+        assertEquals("n12swa:q", read(CommandReader.of("N12SwA:Q")));
+        StringBuilder big = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            big.append("WASD".charAt(i % 4));
+        }
+        assertEquals(big.toString().toLowerCase(), read(CommandReader.of(new StringReader(big.toString()))));
+        assertEquals(CommandReader.END, CommandReader.of("").peek());
+    }
+
+    @Test
+    public void prependedKeysComeFirst() {
+        CommandReader reader = CommandReader.of(new StringReader("lwd"));
+        assertEquals('l', reader.next());
+        reader.prepend("N5Sa");
+        assertEquals('n', reader.peek());
+        assertThrows(IllegalStateException.class, () -> reader.prepend("x"));
+        assertEquals("n5saw" + "d", read(reader));
+    }
+
+    @Test
+    public void streamedReplayMatchesStringReplay() {
+        Random random = new Random(9);
+        StringBuilder keys = new StringBuilder("n31s");
+        for (int i = 0; i < 30000; i++) {
+            keys.append("wasd".charAt(random.nextInt(4)));
+        }
+        World fromString = new World();
+        fromString.getWorldFromInput(keys.toString());
+        World fromStream = new World();
+        fromStream.getWorldFromInput(CommandReader.of(new StringReader(keys.toString())));
+        assertEquals(WorldHash.of(fromString), WorldHash.of(fromStream));
+        assertThrows(IllegalArgumentException.class, () -> new World().getWorldFromInput("n123"));
+    }
+}
@@ -0,0 +1,93 @@
+import core.AStarPathFinder;
+import core.ConnectivityIndex;
+import core.World;
+import org.junit.jupiter.api.Test;
+import tileengine.TETile;
+import tileengine.Tileset;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConnectivityTests {
+    private static TETile[][] randomGrid(Random random, int width, int height, double walls) {
+        TETile[][] grid = new TETile[width][height];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                grid[x][y] = random.nextDouble() < walls ? Tileset.WALL_GRAY : Tileset.FLOOR;
+            }
+        }
+        return grid;
+    }
+
+    @Test
+    public void agreesWithSearchOnRandomGrids() {
+        Random random = new Random(11);
+        AStarPathFinder plain = new AStarPathFinder();
+        for (int round = 0; round < 20; round++) {
+            TETile[][] grid = randomGrid(random, 30, 20, 0.45);
+            ConnectivityIndex index = new ConnectivityIndex(grid);
+            for (int q = 0; q < 200; q++) {
+                int sx = random.nextInt(30), sy = random.nextInt(20);
+                int gx = random.nextInt(30), gy = random.nextInt(20);
+                boolean found = plain.search(grid, sx, sy, gx, gy) > 0;
+                assertEquals(found, index.canReach(sx, sy, gx, gy),
+                        "from " + sx + "," + sy + " to " + gx + "," + gy);
+            }
+        }
+    }
+
+    @Test
+    public void followsTileChanges() {
+        TETile[][] grid = randomGrid(new Random(1), 9, 3, 0);
+        for (int y = 0; y < 3; y++) {
+            grid[4][y] = Tileset.WALL_GRAY;
+        }
+        ConnectivityIndex index = new ConnectivityIndex(grid);
+        assertFalse(index.canReach(0, 1, 8, 1));
+        assertEquals(-1, index.componentOf(4, 1));
+
+        grid[4][1] = Tileset.FLOOR;
+        index.tileChanged(4, 1);
+        assertTrue(index.canReach(0, 1, 8, 1));
+        assertEquals(index.componentOf(0, 0), index.componentOf(8, 2));
+
+        grid[4][1] = Tileset.WALL_GRAY;
+        index.tileChanged(4, 1);
+        assertFalse(index.canReach(0, 1, 8, 1));
+        assertNotEquals(index.componentOf(0, 0), index.componentOf(8, 2));
+    }
+
+    @Test
+    public void pathFinderRejectsUnreachableGoalsWithoutSearching() {
+        TETile[][] grid = randomGrid(new Random(2), 60, 60, 0);
+        for (int y = 0; y < 60; y++) {
+            grid[30][y] = Tileset.WALL_GRAY;
+        }
+        AStarPathFinder pathFinder = new AStarPathFinder();
+        assertEquals(0, pathFinder.search(grid, 5, 5, 50, 50));
+        assertTrue(pathFinder.getLastExpandedCount() > 1000);
+
+        pathFinder.setConnectivity(new ConnectivityIndex(grid));
+        assertEquals(0, pathFinder.search(grid, 5, 5, 50, 50));
+        assertEquals(0, pathFinder.getLastExpandedCount());
+        assertTrue(pathFinder.search(grid, 5, 5, 25, 50) > 0);
+    }
+
+    @Test
+    public void worldFloorsFormOneComponent() {
+        for (long seed = 1; seed <= 20; seed++) {
+            World world = new World();
+            TETile[][] tiles = world.getWorldFromInput("n" + seed + "s");
+            ConnectivityIndex index = world.getConnectivity();
+            int component = index.componentOf(world.getAvatarPosition().getX(), world.getAvatarPosition().getY());
+            for (int x = 0; x < tiles.length; x++) {
+                for (int y = 0; y < tiles[0].length; y++) {
+                    if (tiles[x][y] == Tileset.FLOOR) {
+                        assertEquals(component, index.componentOf(x, y), "seed " + seed + " at " + x + "," + y);
+                    }
+                }
+            }
+        }
+    }
+}
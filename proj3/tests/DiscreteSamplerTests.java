@@ -0,0 +1,104 @@
+import org.junit.jupiter.api.Test;
+import utils.DiscreteSampler;
+import utils.RandomUtils;
+import utils.Xoshiro256StarStar;
+
+import java.util.Random;
+import java.util.function.Function;
+import java.util.random.RandomGenerator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DiscreteSamplerTests {
+    private static final int DRAWS = 400_000;
+
+    private static final double[][] DISTRIBUTIONS = {
+            {1},
+            {1, 1},
+            {0.9, 0.1},
+            {0, 3, 0, 1, 0},
+            {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17},
+            {1e-3, 1, 1, 1, 1e-3, 0, 50, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1e-2, 1, 1, 1, 1, 1, 1, 1, 1, 5},
+    };
+
+    /**
+     * Chi-squared value above which a fair sampler fails with probability about 0.001, by the
+     * Wilson-Hilferty approximation.
+     */
+    private static double criticalValue(int degreesOfFreedom) {
+        double k = degreesOfFreedom;
+        double z = 3.09;
+        double t = 1 - 2 / (9 * k) + z * Math.sqrt(2 / (9 * k));
+        return k * t * t * t;
+    }
+
+    private static void assertFollows(double[] weights, DiscreteSampler sampler, RandomGenerator random) {
+        double sum = 0;
+        for (double w : weights) {
+            sum += w;
+        }
+        long[] counts = new long[weights.length];
+        for (int i = 0; i < DRAWS; i++) {
+            counts[sampler.sample(random)]++;
+        }
+        double chiSquared = 0;
+        int categories = 0;
+        for (int i = 0; i < weights.length; i++) {
+            assertEquals(weights[i] / sum, sampler.probability(i), 1e-12);
+            if (weights[i] == 0) {
+                assertEquals(0, counts[i], "drew index " + i + " of weight 0");
+                continue;
+            }
+            double expected = DRAWS * weights[i] / sum;
+            chiSquared += (counts[i] - expected) * (counts[i] - expected) / expected;
+            categories++;
+        }
+        if (categories > 1) {
+            assertTrue(chiSquared < criticalValue(categories - 1),
+                    "chi-squared " + chiSquared + " for " + categories + " categories");
+        }
+    }
+
+    private static void assertAllFollow(Function<double[], DiscreteSampler> factory) {
+        for (double[] weights : DISTRIBUTIONS) {
+            assertFollows(weights, factory.apply(weights), new Xoshiro256StarStar(7));
+            assertFollows(weights, factory.apply(weights), new Random(7));
+        }
+    }
+
+    @Test
+    public void aliasSamplerMatchesItsDistribution() {
+        assertAllFollow(DiscreteSampler::alias);
+    }
+
+    @Test
+    public void cumulativeSamplerMatchesItsDistribution() {
+        assertAllFollow(DiscreteSampler::cumulative);
+    }
+
+    @Test
+    public void frequenciesMatchRandomUtilsDiscrete() {
+        int[] frequencies = {5, 0, 20, 75};
+        DiscreteSampler sampler = DiscreteSampler.of(frequencies);
+        assertEquals(4, sampler.size());
+        assertEquals(0.75, sampler.probability(3), 1e-12);
+        assertFollows(new double[]{5, 0, 20, 75}, sampler, new Random(3));
+        long[] counts = new long[4];
+        Random random = new Random(3);
+        for (int i = 0; i < DRAWS; i++) {
+            counts[RandomUtils.discrete(random, frequencies)]++;
+        }
+        assertEquals(0, counts[1]);
+        assertEquals(0.75, (double) counts[3] / DRAWS, 0.01);
+    }
+
+    @Test
+    public void rejectsInvalidWeights() {
+        assertThrows(IllegalArgumentException.class, () -> DiscreteSampler.alias(new double[0]));
+        assertThrows(IllegalArgumentException.class, () -> DiscreteSampler.alias(new double[]{0, 0}));
+        assertThrows(IllegalArgumentException.class, () -> DiscreteSampler.cumulative(new double[]{1, -1}));
+        assertThrows(IllegalArgumentException.class, () -> DiscreteSampler.of(new double[]{1, Double.NaN}));
+        assertThrows(IllegalArgumentException.class,
+                () -> DiscreteSampler.of(new double[]{1, Double.POSITIVE_INFINITY}));
+    }
+}
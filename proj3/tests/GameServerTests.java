@@ -0,0 +1,93 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import server.GameServer;
+import server.LoadGenerator;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.SocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameServerTests {
+    /** A blocking line client for one session. */
+    private static class Client implements AutoCloseable {
+        private final SocketChannel channel;
+        private final BufferedReader in;
+        private final BufferedWriter out;
+
+        Client(SocketAddress address) throws IOException {
+            channel = SocketChannel.open(address);
+            in = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+            out = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8));
+        }
+
+        String send(String command) throws IOException {
+            out.write(command + "\n");
+            out.flush();
+            return in.readLine();
+        }
+
+        /** Sends STATE and returns the header followed by every row of tiles. */
+        String state() throws IOException {
+            StringBuilder state = new StringBuilder(send("STATE")).append('\n');
+            String size = in.readLine();
+            state.append(size).append('\n');
+            int height = Integer.parseInt(size.split(" ")[1]);
+            for (int row = 0; row < height; row++) {
+                state.append(in.readLine()).append('\n');
+            }
+            return state.toString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    @Test
+    public void sessionsAreIndependent(@TempDir Path root) throws IOException {
+        try (GameServer server = GameServer.openTcp(0, root).start();
+             Client a = new Client(server.getAddress());
+             Client b = new Client(server.getAddress())) {
+            assertTrue(a.send("MOVE w").startsWith("ERR"));
+            assertEquals("OK", a.send("NEW 1234"));
+            assertEquals("OK", b.send("NEW 1234"));
+            String before = b.state();
+            assertEquals(before, a.state());
+
+            for (int i = 0; i < 20; i++) {
+                assertTrue(a.send("MOVE d").startsWith("OK "));
+            }
+            assertEquals(before, b.state(), "moving in one session changed another");
+
+            assertEquals("OK", a.send("SAVE 2"));
+            assertTrue(b.send("LOAD 2").startsWith("ERR"), "saves must not leak between sessions");
+            String saved = a.state().split("\n", 2)[1];
+            assertEquals("OK", a.send("NEW 99"));
+            assertEquals("OK", a.send("LOAD 2"));
+            assertEquals(saved, a.state().split("\n", 2)[1]);
+
+            assertTrue(a.send("BOGUS").startsWith("ERR"));
+            assertTrue(a.send("TICK x").startsWith("ERR"));
+            assertEquals("BYE", a.send("QUIT"));
+        }
+    }
+
+    @Test
+    public void worksOverUnixSocketsUnderLoad(@TempDir Path root) throws Exception {
+        try (GameServer server = GameServer.openUnix(root.resolve("game.sock"), root).start()) {
+            LoadGenerator.Result result = LoadGenerator.run(server.getAddress(), 8, 300, 7);
+            assertTrue(result.commands() > 8, result.toString());
+            assertEquals(8, server.getSessionCount());
+        }
+    }
+}
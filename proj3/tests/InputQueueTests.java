@@ -0,0 +1,52 @@
+import core.InputQueue;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InputQueueTests {
+    @Test
+    public void keysComeOutInTypedOrder() {
+        InputQueue queue = new InputQueue(8);
+        assertEquals(5, queue.offerAll("wasd:"));
+        assertEquals(5, queue.size());
+
+        StringBuilder drained = new StringBuilder();
+        int key;
+        while ((key = queue.poll()) != InputQueue.EMPTY) {
+            drained.append((char) key);
+        }
+        assertEquals("wasd:", drained.toString());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void fullQueueDropsKeys() {
+        InputQueue queue = new InputQueue(4);
+        assertEquals(4, queue.offerAll("wwwwww"));
+        assertFalse(queue.offer('a'));
+        assertEquals('w', queue.poll());
+        assertTrue(queue.offer('a'));
+    }
+
+    @Test
+    public void concurrentProducerKeepsOrder() throws InterruptedException {
+        InputQueue queue = new InputQueue(64);
+        int total = 200_000;
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < total; i++) {
+                char key = (char) ('a' + i % 26);
+                while (!queue.offer(key)) {
+                    Thread.yield();
+                }
+            }
+        });
+        producer.start();
+        for (int i = 0; i < total; i++) {
+            assertEquals('a' + i % 26, queue.take());
+        }
+        producer.join();
+        assertTrue(queue.isEmpty());
+    }
+}
@@ -0,0 +1,42 @@
+import org.junit.jupiter.api.Test;
+import utils.LatencyHistogram;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTests {
+    @Test
+    public void percentilesStayWithinAThirtySecondOfTheValue() {
+        Random random = new Random(27);
+        for (int n = 0; n < 10_000; n++) {
+            long value = random.nextLong() >>> (2 + random.nextInt(62));
+            LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(value);
+            // Capped at the maximum, so record a slightly larger value to see the bucket's bound.
+            histogram.record(value + value / 16 + 1);
+            long read = histogram.percentile(50);
+            assertTrue(read >= value && read - value <= value / 32, value + " read back as " + read);
+        }
+    }
+
+    @Test
+    public void percentilesMeanAndMerging() {
+        LatencyHistogram a = new LatencyHistogram();
+        LatencyHistogram b = new LatencyHistogram();
+        for (int v = 1; v <= 100; v++) {
+            (v % 2 == 0 ? a : b).record(v * 1000L);
+        }
+        a.add(b);
+        assertEquals(100, a.count());
+        assertEquals(100_000, a.max());
+        assertEquals(50_500, a.mean(), 1e-9);
+        assertEquals(100_000, a.percentile(100));
+        long median = a.percentile(50);
+        assertTrue(median >= 50_000 && median <= 50_000 + 50_000 / 32, "median " + median);
+        assertEquals(0, new LatencyHistogram().percentile(99));
+        assertThrows(IllegalArgumentException.class, () -> a.percentile(101));
+        a.reset();
+        assertEquals(0, a.count());
+    }
+}
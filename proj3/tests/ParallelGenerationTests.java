@@ -0,0 +1,88 @@
+import core.ParallelWorldGenerator;
+import core.Room;
+import core.World;
+import org.junit.jupiter.api.Test;
+import tileengine.TETile;
+import tileengine.Tileset;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelGenerationTests {
+    private static TETile[][] generate(long seed, int size, int threads) {
+        TETile[][] world = new TETile[size][size];
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            new ParallelWorldGenerator(seed, 32).generate(world, pool);
+        } finally {
+            pool.shutdown();
+        }
+        return world;
+    }
+
+    @Test
+    public void sameWorldForAnyThreadCount() {
+        for (long seed = 1; seed <= 5; seed++) {
+            TETile[][] single = generate(seed, 300, 1);
+            for (int threads : new int[]{2, 3, 8}) {
+                for (int run = 0; run < 3; run++) {
+                    assertArrayEquals(single, generate(seed, 300, threads), "seed " + seed + ", " + threads + " threads");
+                }
+            }
+        }
+        assertFalse(Arrays.deepEquals(generate(1, 300, 4), generate(2, 300, 4)));
+    }
+
+    @Test
+    public void everyFloorIsReachable() {
+        TETile[][] world = new TETile[250][180];
+        List<Room> rooms = new ParallelWorldGenerator(7, 40).generate(world);
+        assertTrue(rooms.size() >= 6 * 4);
+        int width = world.length, height = world[0].length;
+        boolean[][] seen = new boolean[width][height];
+        ArrayDeque<int[]> queue = new ArrayDeque<>();
+        Room first = rooms.get(0);
+        queue.add(new int[]{first.centerX(), first.centerY()});
+        seen[first.centerX()][first.centerY()] = true;
+        int[][] dirs = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+        while (!queue.isEmpty()) {
+            int[] p = queue.poll();
+            for (int[] d : dirs) {
+                int x = p[0] + d[0], y = p[1] + d[1];
+                if (world[x][y] == Tileset.FLOOR && !seen[x][y]) {
+                    seen[x][y] = true;
+                    queue.add(new int[]{x, y});
+                }
+            }
+        }
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if (world[x][y] == Tileset.FLOOR) {
+                    assertTrue(seen[x][y], "floor at " + x + "," + y + " is cut off");
+                    for (int i = -1; i <= 1; i++) {
+                        for (int j = -1; j <= 1; j++) {
+                            assertNotSame(Tileset.NOTHING, world[x + i][y + j], "floor at " + x + "," + y + " is open");
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void worldCanUseParallelGeneration() {
+        World a = new World();
+        a.setParallelGeneration(true);
+        a.getWorldFromInput("n123swasd");
+        World b = new World();
+        b.setParallelGeneration(true);
+        b.getWorldFromInput("n123swasd");
+        assertArrayEquals(a.getTiles(), b.getTiles());
+        assertEquals(a.getAvatarPosition().getX(), b.getAvatarPosition().getX());
+        assertEquals(a.getAvatarPosition().getY(), b.getAvatarPosition().getY());
+    }
+}
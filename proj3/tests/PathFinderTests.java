@@ -0,0 +1,90 @@
+import core.AStarPathFinder;
+import core.AutograderBuddy;
+import core.Point;
+import org.junit.jupiter.api.Test;
+import tileengine.TETile;
+import tileengine.Tileset;
+import utils.Coords;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PathFinderTests {
+    /** Breadth-first distance from start to goal, where only the goal may be a wall. */
+    private static int bfsDistance(TETile[][] tiles, int sx, int sy, int gx, int gy) {
+        int w = tiles.length, h = tiles[0].length;
+        int[] dist = new int[w * h];
+        Arrays.fill(dist, -1);
+        int[] queue = new int[w * h];
+        int head = 0, tail = 0;
+        dist[Coords.index(sx, sy, h)] = 0;
+        queue[tail++] = Coords.index(sx, sy, h);
+        while (head < tail) {
+            int p = queue[head++];
+            int x = p / h, y = p % h;
+            if (x == gx && y == gy) {
+                return dist[Coords.index(x, y, h)];
+            }
+            int[][] dirs = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+            for (int[] d : dirs) {
+                int nx = x + d[0], ny = y + d[1];
+                if (nx < 0 || ny < 0 || nx >= w || ny >= h || dist[Coords.index(nx, ny, h)] >= 0) {
+                    continue;
+                }
+                if (tiles[nx][ny] == Tileset.WALL_GRAY && !(nx == gx && ny == gy)) {
+                    continue;
+                }
+                dist[Coords.index(nx, ny, h)] = dist[Coords.index(x, y, h)] + 1;
+                queue[tail++] = Coords.index(nx, ny, h);
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    public void findsShortestPaths() {
+        TETile[][] tiles = AutograderBuddy.getWorldFromInput("n4242s");
+        AStarPathFinder finder = new AStarPathFinder();
+        Random random = new Random(7);
+        int w = tiles.length, h = tiles[0].length;
+        for (int n = 0; n < 300; n++) {
+            int sx, sy, gx, gy;
+            do {
+                sx = random.nextInt(w);
+                sy = random.nextInt(h);
+            } while (tiles[sx][sy] != Tileset.FLOOR);
+            do {
+                gx = random.nextInt(w);
+                gy = random.nextInt(h);
+            } while (tiles[gx][gy] != Tileset.FLOOR);
+
+            List<Point> path = finder.findPath(tiles, new Point(sx, sy), new Point(gx, gy));
+            int expected = bfsDistance(tiles, sx, sy, gx, gy);
+            if (expected < 0) {
+                assertNull(path);
+                continue;
+            }
+            assertNotNull(path);
+            assertEquals(expected + 1, path.size());
+            assertEquals(new Point(sx, sy), path.get(0));
+            assertEquals(new Point(gx, gy), path.get(path.size() - 1));
+            for (int k = 1; k < path.size(); k++) {
+                Point a = path.get(k - 1), b = path.get(k);
+                assertEquals(1, Math.abs(a.getX() - b.getX()) + Math.abs(a.getY() - b.getY()));
+            }
+        }
+    }
+
+    @Test
+    public void handlesTrivialAndInvalidQueries() {
+        TETile[][] tiles = AutograderBuddy.getWorldFromInput("n4242s");
+        AStarPathFinder finder = new AStarPathFinder();
+        assertEquals(List.of(new Point(3, 3)), finder.findPath(tiles, new Point(3, 3), new Point(3, 3)));
+        assertNull(finder.findPath(tiles, new Point(-1, 0), new Point(3, 3)));
+        assertNull(finder.findPath(tiles, new Point(3, 3), new Point(tiles.length, 0)));
+        assertEquals(0, finder.search(tiles, 3, 3, 3, tiles[0].length));
+    }
+}
@@ -0,0 +1,111 @@
+import core.AStarPathFinder;
+import core.AutograderBuddy;
+import core.EntityStore;
+import core.FrameSnapshot;
+import core.PathScheduler;
+import core.World;
+import org.junit.jupiter.api.Test;
+import tileengine.TETile;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PathSchedulerTests {
+    @Test
+    public void slicedSearchesFindTheSamePaths() {
+        TETile[][] tiles = AutograderBuddy.getWorldFromInput("n777s");
+        AStarPathFinder whole = new AStarPathFinder();
+        AStarPathFinder sliced = new AStarPathFinder();
+        Random random = new Random(4);
+        for (int n = 0; n < 200; n++) {
+            int[] s = TestTiles.randomFloorTile(tiles, random);
+            int[] g = TestTiles.randomFloorTile(tiles, random);
+            int length = whole.search(tiles, s[0], s[1], g[0], g[1]);
+            int result = sliced.startSearch(tiles, s[0], s[1], g[0], g[1]);
+            int slices = 0;
+            while (result == AStarPathFinder.IN_PROGRESS) {
+                int before = sliced.getLastExpandedCount();
+                result = sliced.continueSearch(7);
+                assertTrue(sliced.getLastExpandedCount() - before <= 7);
+                slices++;
+            }
+            assertEquals(length, result);
+            assertEquals(whole.getLastExpandedCount(), sliced.getLastExpandedCount());
+            assertArrayEquals(Arrays.copyOf(whole.getPath(), length), Arrays.copyOf(sliced.getPath(), result));
+            assertTrue(slices >= whole.getLastExpandedCount() / 7);
+        }
+        assertThrows(IllegalStateException.class, () -> sliced.continueSearch(1));
+    }
+
+    @Test
+    public void schedulerStaysWithinBudgetAndServesNearestFirst() {
+        TETile[][] tiles = AutograderBuddy.getWorldFromInput("n31337s");
+        Random random = new Random(5);
+        EntityStore entities = new EntityStore(20, tiles[0].length);
+        int[] goal = TestTiles.randomFloorTile(tiles, random);
+        for (int e = 0; e < 20; e++) {
+            int[] p = TestTiles.randomFloorTile(tiles, random);
+            entities.add(EntityStore.ENEMY, p[0], p[1], 1);
+        }
+        PathScheduler scheduler = new PathScheduler(50);
+        for (int e = 0; e < 20; e++) {
+            scheduler.request(e);
+            scheduler.request(e);
+        }
+        assertEquals(20, scheduler.pendingCount());
+        int nearest = 0;
+        for (int e = 1; e < 20; e++) {
+            if (distance(entities, e, goal) < distance(entities, nearest, goal)) {
+                nearest = e;
+            }
+        }
+        int runs = 0;
+        boolean anyServed = false;
+        while (scheduler.pendingCount() > 0) {
+            int expanded = scheduler.run(tiles, entities, goal[0], goal[1]);
+            assertTrue(expanded <= 50, "expanded " + expanded);
+            for (int e = 0; e < 20 && !anyServed; e++) {
+                if (entities.remainingPathLength(e) > 0) {
+                    assertTrue(entities.remainingPathLength(nearest) > 0, "served " + e + " before the nearest");
+                    anyServed = true;
+                }
+            }
+            runs++;
+            assertTrue(runs < 10000);
+        }
+        AStarPathFinder finder = new AStarPathFinder();
+        for (int e = 0; e < 20; e++) {
+            int length = finder.search(tiles, entities.x(e), entities.y(e), goal[0], goal[1]);
+            assertEquals(length, entities.remainingPathLength(e));
+        }
+        assertTrue(runs > 1);
+    }
+
+    private static int distance(EntityStore entities, int e, int[] goal) {
+        return Math.abs(entities.x(e) - goal[0]) + Math.abs(entities.y(e) - goal[1]);
+    }
+
+    @Test
+    public void budgetedWorldsKeepPlaying() {
+        World world = new World(12, 3);
+        world.setPathBudget(64);
+        world.getWorldFromInput("n2468s");
+        Random random = new Random(8);
+        FrameSnapshot.Status status = FrameSnapshot.Status.PLAYING;
+        for (int m = 0; m < 300 && status == FrameSnapshot.Status.PLAYING; m++) {
+            world.getInputQueue().offer("wasd".charAt(random.nextInt(4)));
+            status = world.simulate(4);
+        }
+        int moving = 0;
+        EntityStore entities = world.getEntities();
+        for (int e = 0; e < entities.size(); e++) {
+            if (entities.kind(e) == EntityStore.ENEMY && entities.remainingPathLength(e) > 0) {
+                moving++;
+            }
+        }
+        assertTrue(moving > 0 || status != FrameSnapshot.Status.PLAYING);
+        assertThrows(IllegalArgumentException.class, () -> world.setPathBudget(-1));
+    }
+}
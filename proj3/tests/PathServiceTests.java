@@ -0,0 +1,114 @@
+import core.AStarPathFinder;
+import core.AutograderBuddy;
+import core.EntityStore;
+import core.FrameSnapshot;
+import core.PathService;
+import core.World;
+import org.junit.jupiter.api.Test;
+import tileengine.TETile;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PathServiceTests {
+    @Test
+    public void workersFindTheSamePathsAsTheGameLoop() {
+        TETile[][] tiles = AutograderBuddy.getWorldFromInput("n4321s");
+        Random random = new Random(2);
+        AStarPathFinder finder = new AStarPathFinder();
+        try (PathService service = new PathService(4)) {
+            List<CompletableFuture<PathService.Result>> futures = new ArrayList<>();
+            List<int[]> expected = new ArrayList<>();
+            for (int agent = 0; agent < 300; agent++) {
+                int[] s = TestTiles.randomFloorTile(tiles, random);
+                int[] g = TestTiles.randomFloorTile(tiles, random);
+                int length = finder.search(tiles, s[0], s[1], g[0], g[1]);
+                expected.add(Arrays.copyOf(finder.getPath(), length));
+                futures.add(service.request(tiles, 0, agent, s[0], s[1], g[0], g[1]));
+            }
+            for (int agent = 0; agent < 300; agent++) {
+                PathService.Result result = futures.get(agent).join();
+                assertEquals(agent, result.agent());
+                assertArrayEquals(expected.get(agent), result.tiles());
+            }
+            assertEquals(300, service.getCompleted());
+        }
+    }
+
+    @Test
+    public void staleRequestsAreDropped() {
+        TETile[][] tiles = AutograderBuddy.getWorldFromInput("n4321s");
+        Random random = new Random(3);
+        ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        PathService service = new PathService(tasks::add);
+        int[] s = TestTiles.randomFloorTile(tiles, random);
+        int[] g = TestTiles.randomFloorTile(tiles, random);
+
+        CompletableFuture<PathService.Result> old = service.request(tiles, 0, 7, s[0], s[1], g[0], g[1]);
+        CompletableFuture<PathService.Result> newer = service.request(tiles, 0, 7, s[0], s[1], s[0], s[1]);
+        CompletableFuture<PathService.Result> other = service.request(tiles, 0, 8, s[0], s[1], g[0], g[1]);
+        CompletableFuture<PathService.Result> outdated = service.request(tiles, 5, 9, s[0], s[1], g[0], g[1]);
+        while (!tasks.isEmpty()) {
+            tasks.poll().run();
+        }
+        assertTrue(old.isCancelled());
+        assertTrue(outdated.isCancelled());
+        assertEquals(1, newer.join().tiles().length);
+        assertTrue(other.join().tiles().length > 0);
+
+        CompletableFuture<PathService.Result> beforeBump = service.request(tiles, 0, 1, s[0], s[1], g[0], g[1]);
+        service.setWorldVersion(1);
+        tasks.poll().run();
+        assertTrue(beforeBump.isCancelled());
+        assertEquals(3, service.getDropped());
+        assertEquals(2, service.getCompleted());
+    }
+
+    @Test
+    public void worldsPlanOnTheServiceWithoutWaiting() {
+        // Searches run only when the test runs them, as if every worker were busy.
+        ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        PathService service = new PathService(tasks::add);
+        World world = new World(8, 3);
+        world.setPathService(service);
+        world.getWorldFromInput("n97531s");
+        long version = world.getWorldVersion();
+        assertEquals(version, service.getWorldVersion());
+        Random random = new Random(6);
+        FrameSnapshot.Status status = FrameSnapshot.Status.PLAYING;
+        for (int m = 0; m < 20 && status == FrameSnapshot.Status.PLAYING; m++) {
+            world.getInputQueue().offer("wasd".charAt(random.nextInt(4)));
+            status = world.simulate(4);
+        }
+        assertEquals(80, world.getTickCount(), "the game must not wait for searches");
+        assertFalse(tasks.isEmpty());
+        assertEquals(0, service.getCompleted() + service.getDropped());
+
+        int ran = 0;
+        for (int m = 0; m < 300 && status == FrameSnapshot.Status.PLAYING; m++) {
+            while (!tasks.isEmpty()) {
+                tasks.poll().run();
+                ran++;
+            }
+            world.getInputQueue().offer("wasd".charAt(random.nextInt(4)));
+            status = world.simulate(4);
+        }
+        while (!tasks.isEmpty()) {
+            tasks.poll().run();
+            ran++;
+        }
+        assertTrue(service.getCompleted() > 0);
+        assertEquals(ran, service.getCompleted() + service.getDropped());
+        assertEquals(8, world.getEntities().count(EntityStore.ENEMY));
+        if (world.rewind(1) == 1) {
+            assertEquals(version + 1, world.getWorldVersion());
+            assertEquals(version + 1, service.getWorldVersion());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+import core.World;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import utils.RandomUtils;
+import utils.Xoshiro256StarStar;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.random.RandomGenerator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RandomUtilsTests {
+    @Test
+    public void legacyGeneratorDrawsWhatRandomDraws() {
+        RandomGenerator legacy = RandomUtils.newGenerator(RandomUtils.Algorithm.LEGACY, 1234);
+        Random random = new Random(1234);
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(random.nextInt(i % 50 + 1), RandomUtils.uniform(legacy, i % 50 + 1));
+            assertEquals(random.nextDouble(), RandomUtils.uniform(legacy), 0.0);
+        }
+    }
+
+    @Test
+    public void xoshiroCopiesContinueIdentically() {
+        Xoshiro256StarStar a = new Xoshiro256StarStar(99);
+        for (int i = 0; i < 100; i++) {
+            a.nextLong();
+        }
+        Xoshiro256StarStar b = a.copy();
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(a.nextLong(), b.nextLong());
+        }
+        assertNotEquals(new Xoshiro256StarStar(1).nextLong(), new Xoshiro256StarStar(2).nextLong());
+
+        int[] counts = new int[8];
+        for (int i = 0; i < 80_000; i++) {
+            counts[RandomUtils.uniform(a, 8)]++;
+        }
+        for (int count : counts) {
+            assertTrue(Math.abs(count - 10_000) < 500, "skewed bucket: " + count);
+        }
+    }
+
+    @Test
+    public void worldsKeepTheirGeneratorAcrossSaves(@TempDir Path dir) throws Exception {
+        Files.createDirectories(dir.resolve("saves"));
+        World legacy = new World();
+        World xoshiro = new World();
+        xoshiro.setRandomAlgorithm(RandomUtils.Algorithm.XOSHIRO);
+        xoshiro.setSaveDirectory(dir.toString());
+        assertFalse(Arrays.deepEquals(legacy.getWorldFromInput("n5s"), xoshiro.getWorldFromInput("n5s")));
+
+        xoshiro.save(1);
+        World loaded = new World();
+        loaded.setSaveDirectory(dir.toString());
+        assertTrue(loaded.load(1));
+        assertArrayEquals(xoshiro.getTiles(), loaded.getTiles());
+        assertTrue(Files.readAllLines(dir.resolve("saves/save-slot-1.txt")).contains("XOSHIRO"));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> legacy.setRandomAlgorithm(RandomUtils.Algorithm.SPLITTABLE));
+    }
+}
@@ -0,0 +1,88 @@
+import core.RegionMap;
+import core.Room;
+import core.World;
+import org.junit.jupiter.api.Test;
+import tileengine.TETile;
+import tileengine.Tileset;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RegionMapTests {
+    private static void fill(TETile[][] grid, int left, int bottom, int right, int top, TETile tile) {
+        for (int x = left; x < right; x++) {
+            for (int y = bottom; y < top; y++) {
+                grid[x][y] = tile;
+            }
+        }
+    }
+
+    @Test
+    public void mapsTilesAndLinksOfAHandBuiltLayout() {
+        TETile[][] grid = new TETile[30][10];
+        fill(grid, 0, 0, 30, 10, Tileset.NOTHING);
+        List<Room> rooms = List.of(new Room(1, 1, 6, 6), new Room(12, 1, 6, 6), new Room(23, 1, 6, 6));
+        for (Room room : rooms) {
+            fill(grid, room.left(), room.bottom(), room.right(), room.top(), Tileset.WALL_GRAY);
+            fill(grid, room.left() + 1, room.bottom() + 1, room.right() - 1, room.top() - 1, Tileset.FLOOR);
+        }
+        // A hallway from the first room to the second through both walls; the third stays apart.
+        fill(grid, 6, 3, 13, 4, Tileset.FLOOR);
+
+        RegionMap map = RegionMap.build(grid, rooms);
+        assertEquals(3, map.roomCount());
+        assertEquals(4, map.regionCount());
+        assertEquals(0, map.regionAt(1, 1));
+        assertSame(rooms.get(1), map.roomAt(12, 3));
+        assertNull(map.roomAt(9, 3));
+        int hallway = map.regionAt(9, 3);
+        assertFalse(map.isRoom(hallway));
+        assertEquals(RegionMap.NONE, map.regionAt(9, 8));
+        assertArrayEquals(new int[]{0, 1}, map.links(hallway));
+        assertArrayEquals(new int[]{hallway}, map.links(0));
+        assertArrayEquals(new int[]{1}, map.neighbours(0));
+        assertArrayEquals(new int[]{0}, map.neighbours(1));
+        assertArrayEquals(new int[0], map.neighbours(2));
+    }
+
+    @Test
+    public void generatedWorldsFormOneRoomGraph() {
+        for (long seed = 1; seed <= 30; seed++) {
+            World world = new World();
+            TETile[][] tiles = world.getWorldFromInput("n" + seed + "s");
+            RegionMap map = world.getRegionMap();
+            for (int x = 0; x < tiles.length; x++) {
+                for (int y = 0; y < tiles[0].length; y++) {
+                    if (tiles[x][y] == Tileset.FLOOR) {
+                        assertNotEquals(RegionMap.NONE, map.regionAt(x, y), "seed " + seed);
+                    }
+                    Room room = map.roomAt(x, y);
+                    if (room != null) {
+                        assertTrue(x >= room.left() && x < room.right() && y >= room.bottom() && y < room.top());
+                    }
+                }
+            }
+
+            boolean[] seen = new boolean[map.roomCount()];
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            seen[0] = true;
+            queue.add(0);
+            while (!queue.isEmpty()) {
+                int room = queue.poll();
+                for (int other : map.neighbours(room)) {
+                    assertTrue(Arrays.binarySearch(map.neighbours(other), room) >= 0, "graph is not symmetric");
+                    if (!seen[other]) {
+                        seen[other] = true;
+                        queue.add(other);
+                    }
+                }
+            }
+            for (int room = 0; room < seen.length; room++) {
+                assertTrue(seen[room], "seed " + seed + ": room " + room + " is not linked to room 0");
+            }
+        }
+    }
+}
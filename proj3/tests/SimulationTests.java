@@ -0,0 +1,114 @@
+import core.FrameSnapshot;
+import core.SimulationClock;
+import core.World;
+import org.junit.jupiter.api.Test;
+import tileengine.TETile;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimulationTests {
+    private static final String KEYS = "wasd";
+
+    /** A time source that only moves when the test or a clock's waits move it. */
+    private static final class FakeTime implements SimulationClock.TimeSource {
+        long now;
+        long parked;
+
+        @Override
+        public long nanoTime() {
+            return now;
+        }
+
+        @Override
+        public void parkNanos(long nanos) {
+            now += nanos;
+            parked += nanos;
+        }
+    }
+
+    /**
+     * Plays one game headless with pseudo-random keys, one key every 6 ticks, and returns a
+     * fingerprint of where it ended up.
+     */
+    private static String play(long seed, long maxTicks) {
+        World world = new World();
+        TETile[][] tiles = world.getWorldFromInput("n" + seed + "s");
+        Random keys = new Random(seed);
+        FrameSnapshot.Status status = FrameSnapshot.Status.PLAYING;
+        while (status == FrameSnapshot.Status.PLAYING && world.getTickCount() < maxTicks) {
+            world.getInputQueue().offer(KEYS.charAt(keys.nextInt(KEYS.length())));
+            status = world.simulate(6);
+        }
+        StringBuilder fingerprint = new StringBuilder();
+        fingerprint.append(status).append(' ').append(world.getTickCount()).append('\n');
+        for (TETile[] column : tiles) {
+            for (TETile tile : column) {
+                fingerprint.append(tile.character());
+            }
+        }
+        return fingerprint.toString();
+    }
+
+    @Test
+    public void sameSeedAndKeysPlayOutIdentically() {
+        for (long seed = 1; seed <= 5; seed++) {
+            assertEquals(play(seed, 20_000), play(seed, 20_000), "seed " + seed);
+        }
+    }
+
+    @Test
+    public void soakAnHourOfGameTime() {
+        long hour = 60L * 60 * SimulationClock.TICKS_PER_SECOND;
+        long simulated = 0;
+        long seed = 100;
+        while (simulated < hour) {
+            String result = play(seed++, hour - simulated);
+            long ticks = Long.parseLong(result.substring(result.indexOf(' ') + 1, result.indexOf('\n')));
+            String status = result.substring(0, result.indexOf(' '));
+            assertTrue(ticks > 0, "seed " + (seed - 1) + " ran no ticks");
+            simulated += ticks;
+            if (simulated < hour) {
+                assertNotEquals("PLAYING", status, "seed " + (seed - 1) + " stopped before its game ended");
+            }
+        }
+        // simulate(6) runs whole steps, so the last game may overshoot by up to 5 ticks.
+        assertTrue(simulated < hour + 6, simulated + " ticks");
+    }
+
+    @Test
+    public void clocksParseAndPace() {
+        assertEquals(SimulationClock.Mode.REAL_TIME, SimulationClock.parse("1").getMode());
+        assertEquals(10.0, SimulationClock.parse("10x").getScale());
+        assertEquals(SimulationClock.Mode.UNTHROTTLED, SimulationClock.parse("max").getMode());
+        assertThrows(IllegalArgumentException.class, () -> SimulationClock.scaled(0));
+        assertEquals(13, SimulationClock.ticksFor(200));
+
+        FakeTime time = new FakeTime();
+        SimulationClock fast = SimulationClock.scaled(10, time);
+        long period = Math.round(SimulationClock.TICK_NANOS / 10.0);
+        for (int t = 0; t < 60; t++) {
+            fast.awaitNextTick();
+        }
+        assertEquals(60 * period, time.now);
+
+        time.now += period / 4;
+        fast.awaitNextTick();
+        assertEquals(60 * period + period - period / 4, time.parked, "work shortens the wait");
+        time.now += 5 * period;
+        long parked = time.parked;
+        fast.awaitNextTick();
+        assertEquals(parked, time.parked, "a late tick runs at once");
+        fast.awaitNextTick();
+        assertEquals(parked + period, time.parked, "and the clock does not catch up");
+
+        FakeTime real = new FakeTime();
+        SimulationClock clock = SimulationClock.realTime(real);
+        for (int t = 0; t < SimulationClock.TICKS_PER_SECOND; t++) {
+            clock.awaitNextTick();
+        }
+        assertEquals(SimulationClock.TICKS_PER_SECOND * SimulationClock.TICK_NANOS, real.now);
+        SimulationClock.unthrottled().awaitNextTick();
+    }
+}
@@ -0,0 +1,153 @@
+import core.EntityStore;
+import core.FrameSnapshot;
+import core.TileChunks;
+import core.World;
+import core.WorldSnapshot;
+import org.junit.jupiter.api.Test;
+import tileengine.TETile;
+import tileengine.Tileset;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotTests {
+    private static final String KEYS = "wasd";
+
+    private static String fingerprint(World world) {
+        StringBuilder s = new StringBuilder();
+        s.append(world.getTickCount()).append(' ').append(world.getAvatarLife()).append(' ')
+                .append(world.getFlowersLeft()).append(' ').append(world.getAvatarPosition().getX())
+                .append(' ').append(world.getAvatarPosition().getY()).append('\n');
+        EntityStore entities = world.getEntities();
+        for (int i = 0; i < entities.size(); i++) {
+            s.append(entities.kind(i)).append(entities.x(i)).append(',').append(entities.y(i)).append(' ');
+        }
+        for (TETile[] column : world.getTiles()) {
+            for (TETile tile : column) {
+                s.append(tile.character());
+            }
+        }
+        return s.toString();
+    }
+
+    /** Plays the given number of moves, one key every 4 ticks, keys drawn from random. */
+    private static void play(World world, Random random, int moves) {
+        for (int m = 0; m < moves; m++) {
+            world.getInputQueue().offer(KEYS.charAt(random.nextInt(KEYS.length())));
+            if (world.simulate(4) != FrameSnapshot.Status.PLAYING) {
+                return;
+            }
+        }
+    }
+
+    private static World newWorld(long seed) {
+        World world = new World();
+        world.getWorldFromInput("n" + seed + "s");
+        return world;
+    }
+
+    @Test
+    public void restoreReturnsToTheSnapshotAndReplaysIdentically() {
+        World world = newWorld(2024);
+        play(world, new Random(1), 30);
+        WorldSnapshot snapshot = world.snapshot();
+        String atSnapshot = fingerprint(world);
+
+        play(world, new Random(2), 40);
+        String firstContinuation = fingerprint(world);
+        assertNotEquals(atSnapshot, firstContinuation);
+
+        world.restore(snapshot);
+        assertEquals(atSnapshot, fingerprint(world));
+        play(world, new Random(2), 40);
+        assertEquals(firstContinuation, fingerprint(world));
+    }
+
+    @Test
+    public void forksAreIndependent() {
+        World world = newWorld(77);
+        play(world, new Random(3), 20);
+        String before = fingerprint(world);
+
+        World fork = world.fork();
+        assertEquals(before, fingerprint(fork));
+        play(fork, new Random(4), 30);
+        assertEquals(before, fingerprint(world), "playing the fork changed the original");
+
+        play(world, new Random(4), 30);
+        assertEquals(fingerprint(fork), fingerprint(world));
+    }
+
+    @Test
+    public void rewindUndoesMoves() {
+        World world = newWorld(5);
+        play(world, new Random(6), 10);
+        String before = fingerprint(world);
+        String history = world.snapshot().getMovementHistory();
+        world.updateWorld('d');
+        world.updateWorld('w');
+        world.updateWorld('d');
+        assertEquals(3, world.rewind(3));
+        assertEquals(before, fingerprint(world));
+        assertEquals(history, world.snapshot().getMovementHistory());
+
+        world.updateWorld('a');
+        String afterA = fingerprint(world);
+        world.updateWorld('w');
+        world.updateWorld('u');
+        assertEquals(afterA, fingerprint(world));
+        assertEquals(0, newWorld(5).rewind(1));
+    }
+
+    @Test
+    public void snapshotsKeepTheirHistoryWhileTheGameGoesOn() {
+        World world = newWorld(8);
+        world.updateWorld('d');
+        world.updateWorld(':');
+        WorldSnapshot colon = world.snapshot();
+        world.updateWorld('w');
+        world.updateWorld('a');
+        World fork = world.fork();
+        fork.updateWorld('s');
+        assertEquals("d:", colon.getMovementHistory());
+        assertEquals("dwa", world.snapshot().getMovementHistory());
+        assertEquals("dwas", fork.snapshot().getMovementHistory());
+        world.restore(colon);
+        world.updateWorld('d');
+        assertEquals("dd", world.snapshot().getMovementHistory());
+        assertEquals("d:", colon.getMovementHistory());
+    }
+
+    @Test
+    public void captureCopiesOnlyDirtyChunks() {
+        TETile[][] grid = new TETile[20][20];
+        for (TETile[] column : grid) {
+            Arrays.fill(column, Tileset.FLOOR);
+        }
+        TileChunks chunks = new TileChunks(20, 20);
+        TETile[][] first = chunks.capture(grid);
+        assertEquals(0, chunks.dirtyChunks());
+
+        grid[17][3] = Tileset.WALL_GRAY;
+        chunks.markDirty(17, 3);
+        assertEquals(1, chunks.dirtyChunks());
+        TETile[][] second = chunks.capture(grid);
+        int shared = 0;
+        for (int c = 0; c < first.length; c++) {
+            if (first[c] == second[c]) {
+                shared++;
+            }
+        }
+        assertEquals(first.length - 1, shared);
+
+        grid[0][0] = Tileset.NOTHING;
+        chunks.markDirty(0, 0);
+        chunks.restore(grid, first);
+        assertSame(Tileset.FLOOR, grid[17][3]);
+        assertSame(Tileset.FLOOR, grid[0][0]);
+        chunks.restore(grid, second);
+        assertSame(Tileset.WALL_GRAY, grid[17][3]);
+    }
+}
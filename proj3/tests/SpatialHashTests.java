@@ -0,0 +1,130 @@
+import core.EntityStore;
+import org.junit.jupiter.api.Test;
+import utils.SpatialHash;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpatialHashTests {
+    /** Returns the ids within the radius, sorted. */
+    private static int[] near(SpatialHash hash, int x, int y, int radius) {
+        int[] out = new int[16];
+        int found = hash.queryRadius(x, y, radius, out);
+        int[] ids = Arrays.copyOf(out, found);
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /** Returns the ids on a tile, sorted. */
+    private static int[] at(SpatialHash hash, int x, int y) {
+        int[] ids = new int[0];
+        for (int id = hash.firstAt(x, y); id != -1; id = hash.nextAt(id)) {
+            ids = Arrays.copyOf(ids, ids.length + 1);
+            ids[ids.length - 1] = id;
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    @Test
+    public void removesTheHeadMiddleAndTailOfACell() {
+        // Ids 0 to 4 share the cell (0, 0); the list runs 4, 3, 2, 1, 0 from its head.
+        for (int victim = 0; victim < 5; victim++) {
+            SpatialHash hash = new SpatialHash(4, 2);
+            for (int id = 0; id < 5; id++) {
+                hash.insert(id, id % 2, id / 2);
+            }
+            hash.remove(victim);
+            int[] expected = new int[4];
+            for (int id = 0, k = 0; id < 5; id++) {
+                if (id != victim) {
+                    expected[k++] = id;
+                }
+            }
+            assertArrayEquals(expected, near(hash, 1, 1, 3), "removing " + victim);
+            for (int id : expected) {
+                assertArrayEquals(new int[]{id}, at(hash, id % 2, id / 2));
+            }
+            assertArrayEquals(new int[0], at(hash, victim % 2, victim / 2));
+            hash.remove(victim);
+            assertThrows(IllegalArgumentException.class, () -> hash.insert(expected[0], 0, 0));
+        }
+    }
+
+    @Test
+    public void idsMoveAcrossCellsAndBack() {
+        SpatialHash hash = new SpatialHash(4, 4);
+        hash.insert(0, 1, 1);
+        hash.insert(1, 2, 2);
+        hash.insert(2, 2, 2);
+        hash.move(1, 9, 9);
+        assertArrayEquals(new int[]{2}, at(hash, 2, 2));
+        assertArrayEquals(new int[]{1}, at(hash, 9, 9));
+        assertArrayEquals(new int[]{0, 2}, near(hash, 2, 2, 2));
+        hash.move(1, 2, 2);
+        assertArrayEquals(new int[]{1, 2}, at(hash, 2, 2));
+        assertArrayEquals(new int[0], at(hash, 9, 9));
+        assertArrayEquals(new int[0], near(hash, 9, 9, 2));
+        // Within one cell only the position changes.
+        hash.move(0, 3, 3);
+        assertArrayEquals(new int[0], at(hash, 1, 1));
+        assertArrayEquals(new int[]{0}, at(hash, 3, 3));
+        for (int round = 0; round < 1000; round++) {
+            hash.move(2, round % 2 == 0 ? -5 : 2, 2);
+        }
+        assertArrayEquals(new int[]{1, 2}, at(hash, 2, 2));
+    }
+
+    @Test
+    public void clearEmptiesEveryCell() {
+        SpatialHash hash = new SpatialHash(4, 4);
+        for (int id = 0; id < 20; id++) {
+            hash.insert(id, id * 3 - 30, id);
+        }
+        hash.clear();
+        for (int id = 0; id < 20; id++) {
+            assertEquals(-1, hash.firstAt(id * 3 - 30, id));
+        }
+        assertEquals(0, hash.queryRadius(0, 0, 100, new int[0]));
+        hash.insert(7, 0, 0);
+        assertArrayEquals(new int[]{7}, near(hash, 0, 0, 100));
+    }
+
+    @Test
+    public void queryRadiusHandlesNegativeTilesAndCellBorders() {
+        SpatialHash hash = new SpatialHash(4, 8);
+        hash.insert(0, -1, 0);
+        hash.insert(1, 0, -1);
+        hash.insert(2, -1, -1);
+        hash.insert(3, -4, 0);
+        hash.insert(4, -5, 0);
+        hash.insert(5, 3, 0);
+        hash.insert(6, 4, 0);
+        assertArrayEquals(new int[]{0, 1}, near(hash, 0, 0, 1));
+        assertArrayEquals(new int[]{0, 1, 2}, near(hash, 0, 0, 2));
+        assertArrayEquals(new int[]{0, 3, 4}, near(hash, -3, 0, 2));
+        assertArrayEquals(new int[]{3, 4}, near(hash, -5, 0, 1));
+        assertArrayEquals(new int[]{5, 6}, near(hash, 3, 0, 1));
+        assertArrayEquals(new int[]{6}, near(hash, 4, 0, 0));
+        int[] small = new int[1];
+        assertEquals(3, hash.queryRadius(0, 0, 2, small));
+        assertTrue(small[0] <= 2);
+    }
+
+    @Test
+    public void entityStoreQueriesFollowRemovalsAndMoves() {
+        EntityStore entities = new EntityStore(4, 60);
+        entities.add(EntityStore.ENEMY, 10, 10, 1);
+        entities.add(EntityStore.FLOWER, 11, 10, 1);
+        entities.add(EntityStore.ENEMY, 20, 20, 1);
+        int[] out = new int[4];
+        assertEquals(2, entities.queryRadius(10, 10, 1, out));
+        // Removing entity 0 moves entity 2 into its slot.
+        entities.remove(0);
+        assertEquals(1, entities.queryRadius(10, 10, 1, out));
+        assertEquals(EntityStore.FLOWER, entities.kind(out[0]));
+        entities.move(0, 12, 10);
+        assertEquals(2, entities.queryRadius(11, 10, 1, out));
+    }
+}
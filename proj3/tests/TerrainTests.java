@@ -0,0 +1,158 @@
+import core.AStarPathFinder;
+import core.Point;
+import core.TerrainCosts;
+import core.TerrainGenerator;
+import core.World;
+import core.WorldHash;
+import org.junit.jupiter.api.Test;
+import tileengine.TETile;
+import tileengine.TileRegistry;
+import tileengine.Tileset;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TerrainTests {
+    private static final TETile[] TERRAIN = {
+        Tileset.FLOOR, Tileset.GRASS, Tileset.SAND, Tileset.WATER, Tileset.MOUNTAIN, Tileset.WALL_GRAY,
+    };
+
+    /** Cheapest cost from start to every tile by Dijkstra, stepping like the weighted search. */
+    private static int dijkstra(TETile[][] grid, TerrainCosts costs, int sx, int sy, int gx, int gy) {
+        int w = grid.length;
+        int h = grid[0].length;
+        int[] dist = new int[w * h];
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        PriorityQueue<int[]> queue = new PriorityQueue<>((a, b) -> Integer.compare(a[0], b[0]));
+        dist[sx * h + sy] = 0;
+        queue.add(new int[]{0, sx, sy});
+        int[][] steps = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+        while (!queue.isEmpty()) {
+            int[] top = queue.poll();
+            if (top[0] > dist[top[1] * h + top[2]]) {
+                continue;
+            }
+            for (int[] s : steps) {
+                int x = top[1] + s[0];
+                int y = top[2] + s[1];
+                if (x < 0 || y < 0 || x >= w || y >= h) {
+                    continue;
+                }
+                int cost = costs.costOf(grid[x][y]);
+                if (cost == TerrainCosts.IMPASSABLE) {
+                    if (x != gx || y != gy) {
+                        continue;
+                    }
+                    cost = costs.minimumCost();
+                }
+                if (top[0] + cost < dist[x * h + y]) {
+                    dist[x * h + y] = top[0] + cost;
+                    queue.add(new int[]{top[0] + cost, x, y});
+                }
+            }
+        }
+        return dist[gx * h + gy];
+    }
+
+    /** Compares weighted searches on random grids of TERRAIN tiles with dijkstra. */
+    private static void assertCheapestPaths(TerrainCosts costs, long seed) {
+        Random random = new Random(seed);
+        AStarPathFinder pathFinder = new AStarPathFinder();
+        pathFinder.setTerrainCosts(costs);
+        for (int round = 0; round < 200; round++) {
+            TETile[][] grid = new TETile[20][15];
+            for (TETile[] column : grid) {
+                for (int y = 0; y < column.length; y++) {
+                    column[y] = TERRAIN[random.nextInt(TERRAIN.length)];
+                }
+            }
+            int sx = random.nextInt(20), sy = random.nextInt(15), gx = random.nextInt(20), gy = random.nextInt(15);
+            int expected = dijkstra(grid, costs, sx, sy, gx, gy);
+            int length = pathFinder.search(grid, sx, sy, gx, gy);
+            if (expected == Integer.MAX_VALUE) {
+                assertEquals(0, length);
+                continue;
+            }
+            assertTrue(length > 0);
+            assertEquals(expected, pathFinder.getLastPathCost(), "round " + round);
+            int[] path = pathFinder.getPath();
+            int sum = 0;
+            for (int k = 1; k < length; k++) {
+                int x = path[k] / 15, y = path[k] % 15;
+                assertEquals(1, Math.abs(x - path[k - 1] / 15) + Math.abs(y - path[k - 1] % 15));
+                sum += k == length - 1 && grid[x][y] == Tileset.WALL_GRAY ? costs.minimumCost() : costs.costOf(grid[x][y]);
+            }
+            assertEquals(expected, sum);
+        }
+    }
+
+    @Test
+    public void weightedSearchFindsTheCheapestPath() {
+        assertCheapestPaths(TerrainCosts.defaults(), 12);
+    }
+
+    @Test
+    public void impassableGoalCostsTheMinimumStep() {
+        int[] table = new int[TileRegistry.size()];
+        Arrays.fill(table, 3);
+        table[TileRegistry.idOf(Tileset.SAND)] = 5;
+        table[TileRegistry.idOf(Tileset.WATER)] = 7;
+        table[TileRegistry.idOf(Tileset.MOUNTAIN)] = 12;
+        table[TileRegistry.idOf(Tileset.WALL_GRAY)] = TerrainCosts.IMPASSABLE;
+        TerrainCosts costs = new TerrainCosts(table, 3);
+        assertEquals(3, costs.minimumCost());
+        assertCheapestPaths(costs, 34);
+    }
+
+    @Test
+    public void costTableIsIndexedByTileId() {
+        TerrainCosts costs = TerrainCosts.defaults();
+        assertEquals(TerrainCosts.IMPASSABLE, costs.costOf(Tileset.WALL_GRAY));
+        assertEquals(8, costs.costOf(Tileset.MOUNTAIN));
+        assertEquals(1, costs.costOf(Tileset.FLOOR));
+        assertEquals(1, costs.costOf(new TETile(Tileset.WATER, java.awt.Color.red)));
+        assertEquals(1, costs.minimumCost());
+        int[] table = new int[TileRegistry.size()];
+        Arrays.fill(table, 3);
+        assertEquals(3, new TerrainCosts(table, 5).minimumCost());
+        assertThrows(IllegalArgumentException.class, () -> new TerrainCosts(new int[2], 1));
+    }
+
+    @Test
+    public void terrainCoversTheFloorWithoutMovingAnything() {
+        World plain = new World();
+        TETile[][] before = TETile.copyOf(plain.getWorldFromInput("n99s"));
+        World covered = new World();
+        covered.setTerrain(true);
+        TETile[][] after = covered.getWorldFromInput("n99s");
+        TerrainGenerator generator = new TerrainGenerator(99);
+        int changed = 0;
+        for (int x = 0; x < before.length; x++) {
+            for (int y = 0; y < before[0].length; y++) {
+                if (before[x][y] == Tileset.FLOOR) {
+                    assertSame(generator.terrainAt(x, y), after[x][y]);
+                    changed += after[x][y] != Tileset.FLOOR ? 1 : 0;
+                } else {
+                    assertSame(before[x][y], after[x][y]);
+                }
+            }
+        }
+        assertTrue(changed > 0);
+        assertEquals(plain.getAvatarPosition().getX(), covered.getAvatarPosition().getX());
+        assertEquals(plain.getAvatarPosition().getY(), covered.getAvatarPosition().getY());
+        assertNotEquals(WorldHash.of(plain), WorldHash.of(covered));
+
+        Point start = covered.getAvatarPosition();
+        int x = start.getX(), y = start.getY();
+        for (char key : "wasdwasd".toCharArray()) {
+            covered.updateWorld(key);
+        }
+        TETile left = covered.getTiles()[x][y];
+        if (covered.getAvatarPosition().getX() != x || covered.getAvatarPosition().getY() != y) {
+            assertSame(generator.terrainAt(x, y), left);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+import tileengine.TETile;
+import tileengine.Tileset;
+
+import java.util.Random;
+
+/**
+ * Tile picking shared by the path search tests.
+ */
+final class TestTiles {
+    private TestTiles() {
+    }
+
+    /** Returns the {x, y} of a random floor tile. */
+    static int[] randomFloorTile(TETile[][] tiles, Random random) {
+        int x, y;
+        do {
+            x = random.nextInt(tiles.length);
+            y = random.nextInt(tiles[0].length);
+        } while (tiles[x][y] != Tileset.FLOOR);
+        return new int[]{x, y};
+    }
+}
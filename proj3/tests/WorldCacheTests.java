@@ -0,0 +1,71 @@
+import core.World;
+import core.WorldCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tileengine.TETile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WorldCacheTests {
+    private static String play(WorldCache cache, String input) {
+        World world = new World();
+        world.setWorldCache(cache);
+        TETile[][] tiles = world.getWorldFromInput(input);
+        return TETile.toString(tiles) + world.getAvatarPosition().getX() + "," + world.getAvatarPosition().getY()
+                + " " + world.getAvatarLife() + " " + world.getFlowersLeft();
+    }
+
+    private static long entries(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.toString().endsWith(".world")).count();
+        }
+    }
+
+    @Test
+    public void cachedWorldsPlayExactlyLikeGeneratedOnes(@TempDir Path dir) throws IOException {
+        WorldCache cache = new WorldCache(dir, 1 << 20);
+        for (long seed = 1; seed <= 10; seed++) {
+            String input = "n" + seed + "sddwwaassdwdwdwasdasd";
+            String generated = play(null, input);
+            assertEquals(generated, play(cache, input));
+            assertEquals(generated, play(cache, input));
+        }
+        assertEquals(10, cache.getHits());
+        assertEquals(10, cache.getMisses());
+    }
+
+    @Test
+    public void settingsAreSeparateEntries(@TempDir Path dir) throws IOException {
+        WorldCache cache = new WorldCache(dir, 1 << 20);
+        World sampled = new World();
+        sampled.setWorldCache(cache);
+        World bsp = new World();
+        bsp.setWorldCache(cache);
+        bsp.setRoomPlacement(World.RoomPlacement.BSP);
+        assertNotEquals(TETile.toString(sampled.getWorldFromInput("n7s")), TETile.toString(bsp.getWorldFromInput("n7s")));
+        assertEquals(2, entries(dir));
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedAndSurvivesDamage(@TempDir Path dir) throws IOException {
+        WorldCache cache = new WorldCache(dir, 3 * 7000);
+        for (long seed = 1; seed <= 10; seed++) {
+            play(cache, "n" + seed + "s");
+        }
+        assertTrue(entries(dir) <= 3, entries(dir) + " entries left");
+
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                Files.write(file, new byte[]{1, 2, 3});
+            }
+        }
+        assertEquals(play(null, "n10s"), play(cache, "n10s"));
+        assertEquals(0, cache.getHits());
+    }
+}
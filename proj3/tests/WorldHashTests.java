@@ -0,0 +1,41 @@
+import core.World;
+import core.WorldHash;
+import core.WorldHashVerifier;
+import org.junit.jupiter.api.Test;
+import tileengine.TETile;
+import tileengine.Tileset;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WorldHashTests {
+    @Test
+    public void everySeedOfTheGoldenCorpusStillGeneratesTheSameWorld() throws IOException {
+        Map<Long, Long> corpus = WorldHashVerifier.readCorpus(Path.of(WorldHashVerifier.DEFAULT_CORPUS));
+        assertTrue(corpus.size() >= 1000, "corpus has only " + corpus.size() + " seeds");
+        List<String> mismatches = WorldHashVerifier.verify(corpus);
+        assertTrue(mismatches.isEmpty(), mismatches.size() + " seeds changed, first: "
+                + (mismatches.isEmpty() ? "" : mismatches.get(0)));
+    }
+
+    @Test
+    public void hashSeesTilesAvatarAndEntities() {
+        World world = new World();
+        world.getWorldFromInput("n42s");
+        long start = WorldHash.of(world);
+        assertEquals(start, WorldHashVerifier.hashOfSeed(42));
+        assertNotEquals(start, WorldHashVerifier.hashOfSeed(43));
+
+        TETile[][] copy = TETile.copyOf(world.getTiles());
+        long tiles = WorldHash.tiles(copy);
+        copy[0][0] = copy[0][0] == Tileset.NOTHING ? Tileset.WALL_GRAY : Tileset.NOTHING;
+        assertNotEquals(tiles, WorldHash.tiles(copy));
+
+        world.getEntities().move(0, world.getEntities().x(0) + 1, world.getEntities().y(0));
+        assertNotEquals(start, WorldHash.of(world));
+    }
+}